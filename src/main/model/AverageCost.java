@@ -0,0 +1,44 @@
+package model;
+
+// The Canadian adjusted cost base, where the shares given up in a sale cost their share of the total cost of all the
+// shares held.  The totals of the row before a replay are all it needs, so it keeps nothing of its own
+final class AverageCost implements CostBasis {
+
+    @Override
+    public boolean holdsLots() {
+        return false;
+    }
+
+    @Override
+    public int lotCount() {
+        return 0;
+    }
+
+    // There is nothing to copy, so the copy is this
+    @Override
+    public CostBasis copy() {
+        return this;
+    }
+
+    @Override
+    public void buy(int shares, long cost) {
+    }
+
+    @Override
+    public long sell(int shares, int heldShares, long heldCost) {
+        return Money.costOfShares(heldCost, shares, heldShares);
+    }
+
+    @Override
+    public void split(int sharesAfter, int sharesBefore) {
+    }
+
+    @Override
+    public void reduceCost(long amount, long heldCost) {
+    }
+
+    @Override
+    public boolean deniesSuperficialLosses() {
+        return true;
+    }
+}
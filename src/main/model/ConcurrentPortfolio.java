@@ -0,0 +1,254 @@
+package model;
+
+import exceptions.NoTickerException;
+import org.json.JSONObject;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.SortedMap;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+// A portfolio that can be shared between threads, for example a background import and the screens reading it.
+// Adding and removing securities takes the write lock on the holdings, everything else only takes the read lock so
+// it can run alongside other readers.  Changes to the history of a security are guarded by the lock of that
+// security alone, so a reader is never held up by a write to an unrelated security.
+// Transaction objects handed out by a security that is not compact are updated when its history is replayed, read
+// them only while nothing is writing to that security or use a compact portfolio to be given detached copies
+public class ConcurrentPortfolio extends Portfolio {
+    private final ReentrantReadWriteLock holdingsLock = new ReentrantReadWriteLock();
+    private final Lock readLock = holdingsLock.readLock();
+    private final Lock writeLock = holdingsLock.writeLock();
+
+    public ConcurrentPortfolio(String name) {
+        super(name);
+    }
+
+    // EFFECTS: Makes a new concurrent portfolio, see Portfolio
+    public ConcurrentPortfolio(String name, boolean compact) {
+        super(name, compact);
+    }
+
+    // EFFECTS: Makes a new concurrent portfolio whose securities use the given cost basis method, see Portfolio
+    public ConcurrentPortfolio(String name, boolean compact, CostBasisMethod method) {
+        super(name, compact, method);
+    }
+
+    // EFFECTS: Returns a copy of the security holdings as they are now
+    @Override
+    public List<Security> getHoldings() {
+        readLock.lock();
+        try {
+            return new ArrayList<>(super.getHoldings());
+        } finally {
+            readLock.unlock();
+        }
+    }
+
+    @Override
+    public boolean addNewSecurity(String ticker) {
+        writeLock.lock();
+        try {
+            return super.addNewSecurity(ticker);
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    @Override
+    public boolean removeSecurity(String ticker) {
+        writeLock.lock();
+        try {
+            return super.removeSecurity(ticker);
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    // EFFECTS: Adds the transaction like Portfolio.addTransaction, only the security it belongs to is locked for
+    //          writing
+    @Override
+    public void addTransaction(Transaction transAdd) throws NoTickerException {
+        readLock.lock();
+        try {
+            super.addTransaction(transAdd);
+        } finally {
+            readLock.unlock();
+        }
+    }
+
+    // EFFECTS: Adds the transactions like Portfolio.addTransactions, no security can be removed part way through
+    @Override
+    public void addTransactions(Collection<Transaction> transactions) throws NoTickerException {
+        readLock.lock();
+        try {
+            super.addTransactions(transactions);
+        } finally {
+            readLock.unlock();
+        }
+    }
+
+    // EFFECTS: Adds the transactions like Portfolio.addTransactions, no security can be removed part way through
+    @Override
+    public void addTransactions(Collection<Transaction> transactions, ForkJoinPool pool) throws NoTickerException {
+        readLock.lock();
+        try {
+            super.addTransactions(transactions, pool);
+        } finally {
+            readLock.unlock();
+        }
+    }
+
+    @Override
+    public List<String> getTickers() {
+        readLock.lock();
+        try {
+            return super.getTickers();
+        } finally {
+            readLock.unlock();
+        }
+    }
+
+    @Override
+    public boolean hasTicker(String ticker) {
+        readLock.lock();
+        try {
+            return super.hasTicker(ticker);
+        } finally {
+            readLock.unlock();
+        }
+    }
+
+    @Override
+    public int getNumHoldings() {
+        readLock.lock();
+        try {
+            return super.getNumHoldings();
+        } finally {
+            readLock.unlock();
+        }
+    }
+
+    @Override
+    public List<String> getSummary() {
+        readLock.lock();
+        try {
+            return super.getSummary();
+        } finally {
+            readLock.unlock();
+        }
+    }
+
+    @Override
+    public PortfolioSnapshot snapshot() {
+        readLock.lock();
+        try {
+            return super.snapshot();
+        } finally {
+            readLock.unlock();
+        }
+    }
+
+    @Override
+    public List<Position> positionsAsOf(LocalDate date) {
+        readLock.lock();
+        try {
+            return super.positionsAsOf(date);
+        } finally {
+            readLock.unlock();
+        }
+    }
+
+    @Override
+    public List<Valuation> valuation(LocalDate date, PriceSource prices, FxRates rates) {
+        readLock.lock();
+        try {
+            return super.valuation(date, prices, rates);
+        } finally {
+            readLock.unlock();
+        }
+    }
+
+    @Override
+    public List<String> searchTransactions(String ticker) throws NoTickerException {
+        readLock.lock();
+        try {
+            return super.searchTransactions(ticker);
+        } finally {
+            readLock.unlock();
+        }
+    }
+
+    @Override
+    public Security matchString(String ticker) throws NoTickerException {
+        readLock.lock();
+        try {
+            return super.matchString(ticker);
+        } finally {
+            readLock.unlock();
+        }
+    }
+
+    @Override
+    public String getName() {
+        readLock.lock();
+        try {
+            return super.getName();
+        } finally {
+            readLock.unlock();
+        }
+    }
+
+    @Override
+    public void setName(String name) {
+        writeLock.lock();
+        try {
+            super.setName(name);
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    @Override
+    public List<Transaction> getTaxSlips(int year) {
+        readLock.lock();
+        try {
+            return super.getTaxSlips(year);
+        } finally {
+            readLock.unlock();
+        }
+    }
+
+    @Override
+    public YearlyGains getGains(int year) {
+        readLock.lock();
+        try {
+            return super.getGains(year);
+        } finally {
+            readLock.unlock();
+        }
+    }
+
+    @Override
+    public SortedMap<Integer, YearlyGains> getYearlyGains() {
+        readLock.lock();
+        try {
+            return super.getYearlyGains();
+        } finally {
+            readLock.unlock();
+        }
+    }
+
+    @Override
+    public JSONObject toJson() {
+        readLock.lock();
+        try {
+            return super.toJson();
+        } finally {
+            readLock.unlock();
+        }
+    }
+}
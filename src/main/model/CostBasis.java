@@ -0,0 +1,41 @@
+package model;
+
+// Works out the cost of the shares given up in each sale as the history of a security is replayed, see
+// TransactionStore.  The replay tells it about every buy, sell and corporate action in chronological order.  A
+// method that holds lots is copied at checkpoints along the history, so that a replay can resume from the lots held
+// at a checkpoint instead of the first row.  Amounts are fixed point micro-cents in CAD, see Money
+interface CostBasis {
+
+    // EFFECTS: Returns true if the cost of a sale depends on the lots bought before it and not only on the totals
+    //          held, in which case a replay must resume from the lots held at an earlier row
+    boolean holdsLots();
+
+    // EFFECTS: Returns the number of lots held, which is the work of making a copy
+    int lotCount();
+
+    // EFFECTS: Returns a copy holding the same lots that does not change when this does
+    CostBasis copy();
+
+    // MODIFIES: this
+    // EFFECTS: Records a purchase of shares costing cost in total
+    void buy(int shares, long cost);
+
+    // REQUIRES: heldShares and heldCost are the totals held before the sale
+    // MODIFIES: this
+    // EFFECTS: Records a sale of shares and returns the cost of the shares given up
+    long sell(int shares, int heldShares, long heldCost);
+
+    // REQUIRES: sharesAfter > 0, sharesBefore > 0
+    // MODIFIES: this
+    // EFFECTS: Records a split of every sharesBefore shares held into sharesAfter shares, keeping their cost
+    void split(int sharesAfter, int sharesBefore);
+
+    // REQUIRES: 0 <= amount <= heldCost, and heldCost is the total cost held
+    // MODIFIES: this
+    // EFFECTS: Records a return of capital that takes amount off the cost of the shares held
+    void reduceCost(long amount, long heldCost);
+
+    // EFFECTS: Returns true if superficial losses are denied and added back to the cost of the shares held, which
+    //          only applies to the average cost of a Canadian account
+    boolean deniesSuperficialLosses();
+}
@@ -0,0 +1,29 @@
+package model;
+
+// The ways the cost of the shares given up in a sale can be worked out.  Canadian accounts must use the average
+// cost of all the shares held, the adjusted cost base.  Other accounts may instead track the lot bought by each
+// purchase and give up whole or part lots, either the oldest first or the dearest per share first.  Neither lot
+// method picks lots named by the sale, there is no specific lot identification
+public enum CostBasisMethod {
+    AVERAGE_COST {
+        @Override
+        CostBasis newCostBasis() {
+            return new AverageCost();
+        }
+    },
+    FIFO {
+        @Override
+        CostBasis newCostBasis() {
+            return new FifoLots();
+        }
+    },
+    HIGHEST_COST_FIRST {
+        @Override
+        CostBasis newCostBasis() {
+            return new HighestCostLots();
+        }
+    };
+
+    // EFFECTS: Returns a new cost basis that works out costs by this method for one security history
+    abstract CostBasis newCostBasis();
+}
@@ -0,0 +1,63 @@
+package model;
+
+// Formats amounts of money as dollars in the Canadian style, such as $1,234.56 or -$0.25, the same way as
+// NumberFormat.getCurrencyInstance(Locale.CANADA).  Unlike a NumberFormat it keeps no state, so it can be used on any
+// number of threads at once, and it writes straight into a StringBuilder that the caller can reuse.  Amounts are
+// rounded to the nearest cent with halves rounded away from zero, as Money rounds
+public final class DollarFormat {
+    private static final long MICROS_PER_CENT = Money.SCALE / 100;
+
+    private DollarFormat() {
+    }
+
+    // EFFECTS: Returns the amount of micro-cents formatted as dollars
+    public static String format(long amount) {
+        return append(new StringBuilder(16), amount).toString();
+    }
+
+    // EFFECTS: Returns the dollar amount formatted as dollars
+    public static String format(double dollars) {
+        return format(Money.of(dollars));
+    }
+
+    // MODIFIES: out
+    // EFFECTS: Appends the amount of micro-cents formatted as dollars to out and returns out
+    public static StringBuilder append(StringBuilder out, long amount) {
+        long cents = Money.divide(amount, MICROS_PER_CENT);
+        if (cents < 0) {
+            out.append('-');
+            cents = -cents;
+        }
+        out.append('$');
+        appendGrouped(out, cents / 100);
+        out.append('.');
+        appendPadded(out, cents % 100, 2);
+        return out;
+    }
+
+    // MODIFIES: out
+    // EFFECTS: Appends the whole number to out with a comma between each group of three digits
+    private static void appendGrouped(StringBuilder out, long number) {
+        long group = 1;
+        while (number / group >= 1000) {
+            group *= 1000;
+        }
+        out.append(number / group);
+        for (group /= 1000; group > 0; group /= 1000) {
+            out.append(',');
+            appendPadded(out, (number / group) % 1000, 3);
+        }
+    }
+
+    // REQUIRES: 0 <= number < 10^digits
+    // MODIFIES: out
+    // EFFECTS: Appends the number to out with leading zeros to make it the given number of digits
+    private static void appendPadded(StringBuilder out, long number, int digits) {
+        for (long limit = 10; digits > 1; digits--, limit *= 10) {
+            if (number < limit) {
+                out.append('0');
+            }
+        }
+        out.append(number);
+    }
+}
@@ -0,0 +1,112 @@
+package model;
+
+import java.util.Arrays;
+
+// Gives up the oldest shares first.  Each purchase is a lot kept in a queue held as two primitive arrays, so there
+// is no object for each lot.  The lots held depend on every earlier row, so a replay resumes from a copy of the lots
+// held at a checkpoint, see TransactionStore
+final class FifoLots implements CostBasis {
+    private static final int INITIAL_CAPACITY = 8;
+
+    private int[] lotShares;    // shares left in each lot
+    private long[] lotCosts;    // cost of the shares left in each lot, in micro-cents
+    private int head;           // the oldest lot
+    private int tail;           // one past the newest lot
+
+    // EFFECTS: Makes a queue holding no lots
+    FifoLots() {
+        lotShares = new int[INITIAL_CAPACITY];
+        lotCosts = new long[INITIAL_CAPACITY];
+    }
+
+    // EFFECTS: Makes a queue holding the same lots as other, with no room to spare beyond the initial capacity
+    private FifoLots(FifoLots other) {
+        int count = other.tail - other.head;
+        lotShares = Arrays.copyOfRange(other.lotShares, other.head, other.head + Math.max(count, INITIAL_CAPACITY));
+        lotCosts = Arrays.copyOfRange(other.lotCosts, other.head, other.head + Math.max(count, INITIAL_CAPACITY));
+        tail = count;
+    }
+
+    @Override
+    public boolean holdsLots() {
+        return true;
+    }
+
+    @Override
+    public int lotCount() {
+        return tail - head;
+    }
+
+    @Override
+    public CostBasis copy() {
+        return new FifoLots(this);
+    }
+
+    @Override
+    public void buy(int shares, long cost) {
+        if (tail == lotShares.length) {
+            makeRoom();
+        }
+        lotShares[tail] = shares;
+        lotCosts[tail] = cost;
+        tail++;
+    }
+
+    @Override
+    public long sell(int shares, int heldShares, long heldCost) {
+        long cost = 0;
+        int remaining = shares;
+
+        while (remaining > 0 && head < tail) {
+            if (lotShares[head] <= remaining) {
+                remaining -= lotShares[head];
+                cost += lotCosts[head];
+                head++;
+            } else {
+                long part = Money.costOfShares(lotCosts[head], remaining, lotShares[head]);
+                lotShares[head] -= remaining;
+                lotCosts[head] -= part;
+                cost += part;
+                remaining = 0;
+            }
+        }
+        return cost;
+    }
+
+    @Override
+    public void split(int sharesAfter, int sharesBefore) {
+        for (int lot = head; lot < tail; lot++) {
+            lotShares[lot] = Transaction.splitShares(lotShares[lot], sharesAfter, sharesBefore);
+        }
+    }
+
+    // Each lot gives up its share of the amount in proportion to its cost, and the newest lot takes any rounding
+    @Override
+    public void reduceCost(long amount, long heldCost) {
+        long remaining = amount;
+        for (int lot = head; lot < tail && heldCost != 0; lot++) {
+            long part = lot == tail - 1 ? remaining : Money.mulDiv(amount, lotCosts[lot], heldCost);
+            lotCosts[lot] -= part;
+            remaining -= part;
+        }
+    }
+
+    @Override
+    public boolean deniesSuperficialLosses() {
+        return false;
+    }
+
+    // MODIFIES: this
+    // EFFECTS: Moves the lots held to the front of the arrays, growing them if more than half full
+    private void makeRoom() {
+        int count = tail - head;
+        if (count > lotShares.length / 2) {
+            lotShares = Arrays.copyOf(lotShares, lotShares.length * 2);
+            lotCosts = Arrays.copyOf(lotCosts, lotCosts.length * 2);
+        }
+        System.arraycopy(lotShares, head, lotShares, 0, count);
+        System.arraycopy(lotCosts, head, lotCosts, 0, count);
+        head = 0;
+        tail = count;
+    }
+}
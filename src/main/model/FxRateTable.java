@@ -0,0 +1,88 @@
+package model;
+
+import java.time.LocalDate;
+import java.util.Map;
+
+// A table of daily USD to CAD exchange rates, such as the Bank of Canada publishes for each business day.  The rates
+// are kept in one array with a slot for every day from the first rate to the last, and the days without a rate of
+// their own, such as weekends and holidays, are filled with the rate of the business day before them when the table
+// is made.  Finding the rate for a date is then a single array read, with no parsing, searching or boxing
+public final class FxRateTable implements FxRates {
+    public static final FxRateTable EMPTY = new FxRateTable(new long[0], 0);
+    public static final int MAX_STALE_DAYS = 7;  // days after the last rate that it is still used for
+
+    private final long[] rates;     // the rate in effect on each day from firstDay on, in millionths
+    private final int firstDay;     // the date of the first rate as a count of days since 1970-01-01
+
+    // REQUIRES: every rate > 0
+    // EFFECTS: Makes a table holding the rate given for each date
+    public FxRateTable(Map<LocalDate, Double> ratesByDate) {
+        this(fill(ratesByDate), firstDay(ratesByDate));
+    }
+
+    private FxRateTable(long[] rates, int firstDay) {
+        this.rates = rates;
+        this.firstDay = firstDay;
+    }
+
+    // EFFECTS: Returns the earliest date with a rate as a count of days since 1970-01-01, 0 if there are none
+    private static int firstDay(Map<LocalDate, Double> ratesByDate) {
+        int first = Integer.MAX_VALUE;
+        for (LocalDate date : ratesByDate.keySet()) {
+            first = Math.min(first, (int) date.toEpochDay());
+        }
+        return ratesByDate.isEmpty() ? 0 : first;
+    }
+
+    // EFFECTS: Returns the rate in effect on each day from the first rate to the last, in millionths.  A day without
+    //          a rate takes the rate of the day before it
+    private static long[] fill(Map<LocalDate, Double> ratesByDate) {
+        int first = firstDay(ratesByDate);
+        int last = first - 1;
+        for (LocalDate date : ratesByDate.keySet()) {
+            last = Math.max(last, (int) date.toEpochDay());
+        }
+
+        long[] filled = new long[last - first + 1];
+        for (Map.Entry<LocalDate, Double> entry : ratesByDate.entrySet()) {
+            filled[(int) entry.getKey().toEpochDay() - first] = Money.rateOf(entry.getValue());
+        }
+        for (int day = 1; day < filled.length; day++) {
+            if (filled[day] == 0) {
+                filled[day] = filled[day - 1];
+            }
+        }
+        return filled;
+    }
+
+    // EFFECTS: Returns true if there is a rate for the given date, that is the date is on or after the first rate
+    //          and no more than MAX_STALE_DAYS after the last
+    @Override
+    public boolean hasRate(LocalDate date) {
+        return rateOn((int) date.toEpochDay()) != 0;
+    }
+
+    @Override
+    public double getRate(LocalDate date) {
+        long rate = rateOn((int) date.toEpochDay());
+        if (rate == 0) {
+            throw new IllegalArgumentException("No USD to CAD exchange rate for " + date);
+        }
+        return Money.rateToDouble(rate);
+    }
+
+    // EFFECTS: Returns the rate in effect on the date given as a count of days since 1970-01-01 in millionths, or
+    //          0 if there is none
+    private long rateOn(int epochDay) {
+        int index = epochDay - firstDay;
+        if (index < 0 || rates.length == 0 || index >= rates.length + MAX_STALE_DAYS) {
+            return 0;
+        }
+        return rates[Math.min(index, rates.length - 1)];
+    }
+
+    // EFFECTS: Returns the number of days from the first rate to the last
+    public int getNumDays() {
+        return rates.length;
+    }
+}
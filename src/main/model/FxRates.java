@@ -0,0 +1,13 @@
+package model;
+
+import java.time.LocalDate;
+
+// A source of daily USD to CAD exchange rates
+public interface FxRates {
+
+    // EFFECTS: Returns true if there is a rate for the given date
+    boolean hasRate(LocalDate date);
+
+    // EFFECTS: Returns the rate in effect on the given date, throws IllegalArgumentException if there is none
+    double getRate(LocalDate date);
+}
@@ -0,0 +1,127 @@
+package model;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+// The totals of the sales of a trading history for each year that has any, along with any gains on returns of capital
+// beyond the cost of the shares, kept up to date as the history is replayed so that the gains of a year are read
+// without going over its sales.  The years are held in ascending order in columns of primitive arrays.  A replay
+// only changes the rows from some row onward, so the years from the one that row falls in are cleared and summed
+// again in order, and the earlier years are left as they are
+final class GainsRollup {
+    private static final int INITIAL_CAPACITY = 4;
+
+    private int count;                 // years held
+    private int[] years = new int[INITIAL_CAPACITY];
+    private int[] sales = new int[INITIAL_CAPACITY];
+    private long[] proceeds = new long[INITIAL_CAPACITY];      // CAD micro-cents
+    private long[] costs = new long[INITIAL_CAPACITY];         // CAD micro-cents
+    private long[] commissions = new long[INITIAL_CAPACITY];   // CAD micro-cents
+    private long[] denied = new long[INITIAL_CAPACITY];        // CAD micro-cents
+    private long[] gains = new long[INITIAL_CAPACITY];         // CAD micro-cents
+
+    // MODIFIES: this
+    // EFFECTS: Removes the totals of the given year and every year after it
+    void clearFrom(int year) {
+        count = indexOf(year);
+    }
+
+    // REQUIRES: year is no earlier than any year held
+    // MODIFIES: this
+    // EFFECTS: Adds a sale with the given proceeds, commission, superficial loss and gain to the totals of its year
+    void addSale(int year, long saleProceeds, long commission, long deniedLoss, long gain) {
+        int i = yearIndex(year);
+        sales[i]++;
+        proceeds[i] += saleProceeds;
+        costs[i] += saleProceeds - commission - (gain - deniedLoss);
+        commissions[i] += commission;
+        denied[i] += deniedLoss;
+        gains[i] += gain;
+    }
+
+    // REQUIRES: year is no earlier than any year held
+    // MODIFIES: this
+    // EFFECTS: Adds the gain on a return of capital beyond the cost of the shares to the totals of its year, as
+    //          proceeds with no cost
+    void addGain(int year, long gain) {
+        int i = yearIndex(year);
+        proceeds[i] += gain;
+        gains[i] += gain;
+    }
+
+    // REQUIRES: year is no earlier than any year held
+    // MODIFIES: this
+    // EFFECTS: Returns the index of the totals of the given year, adding empty totals for it if it is not held
+    private int yearIndex(int year) {
+        if (count == 0 || years[count - 1] != year) {
+            ensureCapacity(count + 1);
+            years[count] = year;
+            sales[count] = 0;
+            proceeds[count] = 0;
+            costs[count] = 0;
+            commissions[count] = 0;
+            denied[count] = 0;
+            gains[count] = 0;
+            count++;
+        }
+        return count - 1;
+    }
+
+    // EFFECTS: Returns the totals of the given year, found with a binary search
+    YearlyGains get(int year) {
+        int i = indexOf(year);
+        return i < count && years[i] == year ? make(i) : YearlyGains.none(year);
+    }
+
+    // EFFECTS: Returns the number of sales in the given year
+    int getNumSales(int year) {
+        int i = indexOf(year);
+        return i < count && years[i] == year ? sales[i] : 0;
+    }
+
+    // EFFECTS: Returns the totals of every year with a sale or gain in ascending order
+    List<YearlyGains> getAll() {
+        List<YearlyGains> all = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            all.add(make(i));
+        }
+        return all;
+    }
+
+    // EFFECTS: Returns the index of the first year held that is no earlier than the given year
+    private int indexOf(int year) {
+        int low = 0;
+        int high = count;
+
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (years[mid] < year) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+
+    // EFFECTS: Returns the totals at the given index
+    private YearlyGains make(int i) {
+        return new YearlyGains(years[i], sales[i], proceeds[i], costs[i], commissions[i], denied[i], gains[i]);
+    }
+
+    // MODIFIES: this
+    // EFFECTS: Doubles every column until it can hold at least the given number of years
+    private void ensureCapacity(int size) {
+        if (size > years.length) {
+            int capacity = Math.max(size, years.length * 2);
+            years = Arrays.copyOf(years, capacity);
+            sales = Arrays.copyOf(sales, capacity);
+            proceeds = Arrays.copyOf(proceeds, capacity);
+            costs = Arrays.copyOf(costs, capacity);
+            commissions = Arrays.copyOf(commissions, capacity);
+            denied = Arrays.copyOf(denied, capacity);
+            gains = Arrays.copyOf(gains, capacity);
+        }
+    }
+}
@@ -0,0 +1,163 @@
+package model;
+
+import java.util.Arrays;
+
+// Gives up the shares that cost the most per share first, which keeps gains smallest.  This is a fixed rule, not
+// specific lot identification: transactions do not name the lot a sale comes from.  Each purchase is a lot kept in
+// a binary heap ordered by cost per share and held as primitive arrays, so there is no object for each lot.  The lots
+// held depend on every earlier row, so a replay resumes from a copy of the lots held at a checkpoint, see
+// TransactionStore
+final class HighestCostLots implements CostBasis {
+    private static final int INITIAL_CAPACITY = 8;
+
+    private int[] lotShares;        // shares left in each lot
+    private long[] lotCosts;        // cost of the shares left, in micro-cents
+    private double[] unitCosts;     // cost per share the lot was bought at
+    private int count;              // lots held, the dearest is at index 0
+
+    // EFFECTS: Makes a heap holding no lots
+    HighestCostLots() {
+        lotShares = new int[INITIAL_CAPACITY];
+        lotCosts = new long[INITIAL_CAPACITY];
+        unitCosts = new double[INITIAL_CAPACITY];
+    }
+
+    // EFFECTS: Makes a heap holding the same lots as other, with no room to spare beyond the initial capacity
+    private HighestCostLots(HighestCostLots other) {
+        int capacity = Math.max(other.count, INITIAL_CAPACITY);
+        lotShares = Arrays.copyOf(other.lotShares, capacity);
+        lotCosts = Arrays.copyOf(other.lotCosts, capacity);
+        unitCosts = Arrays.copyOf(other.unitCosts, capacity);
+        count = other.count;
+    }
+
+    @Override
+    public boolean holdsLots() {
+        return true;
+    }
+
+    @Override
+    public int lotCount() {
+        return count;
+    }
+
+    @Override
+    public CostBasis copy() {
+        return new HighestCostLots(this);
+    }
+
+    @Override
+    public void buy(int shares, long cost) {
+        if (count == lotShares.length) {
+            lotShares = Arrays.copyOf(lotShares, count * 2);
+            lotCosts = Arrays.copyOf(lotCosts, count * 2);
+            unitCosts = Arrays.copyOf(unitCosts, count * 2);
+        }
+        set(count, shares, cost, shares == 0 ? 0 : (double) cost / shares);
+        siftUp(count++);
+    }
+
+    @Override
+    public long sell(int shares, int heldShares, long heldCost) {
+        long cost = 0;
+        int remaining = shares;
+
+        while (remaining > 0 && count > 0) {
+            if (lotShares[0] <= remaining) {
+                remaining -= lotShares[0];
+                cost += lotCosts[0];
+                count--;
+                set(0, lotShares[count], lotCosts[count], unitCosts[count]);
+                siftDown(0);
+            } else {
+                // Part of a lot still costs the same per share, so it keeps its place
+                long part = Money.costOfShares(lotCosts[0], remaining, lotShares[0]);
+                lotShares[0] -= remaining;
+                lotCosts[0] -= part;
+                cost += part;
+                remaining = 0;
+            }
+        }
+        return cost;
+    }
+
+    @Override
+    public void split(int sharesAfter, int sharesBefore) {
+        for (int lot = 0; lot < count; lot++) {
+            lotShares[lot] = Transaction.splitShares(lotShares[lot], sharesAfter, sharesBefore);
+        }
+        reorder();
+    }
+
+    // Each lot gives up its share of the amount in proportion to its cost, and the last lot takes any rounding
+    @Override
+    public void reduceCost(long amount, long heldCost) {
+        long remaining = amount;
+        for (int lot = 0; lot < count && heldCost != 0; lot++) {
+            long part = lot == count - 1 ? remaining : Money.mulDiv(amount, lotCosts[lot], heldCost);
+            lotCosts[lot] -= part;
+            remaining -= part;
+        }
+        reorder();
+    }
+
+    @Override
+    public boolean deniesSuperficialLosses() {
+        return false;
+    }
+
+    // MODIFIES: this
+    // EFFECTS: Works out the cost per share of every lot again and rebuilds the heap from the bottom up, which
+    //          takes time linear in the lots held
+    private void reorder() {
+        for (int lot = 0; lot < count; lot++) {
+            unitCosts[lot] = lotShares[lot] == 0 ? 0 : (double) lotCosts[lot] / lotShares[lot];
+        }
+        for (int lot = count / 2 - 1; lot >= 0; lot--) {
+            siftDown(lot);
+        }
+    }
+
+    // MODIFIES: this
+    // EFFECTS: Moves the lot at index up the heap until its parent costs at least as much per share
+    private void siftUp(int index) {
+        int shares = lotShares[index];
+        long cost = lotCosts[index];
+        double unit = unitCosts[index];
+
+        while (index > 0 && unitCosts[(index - 1) / 2] < unit) {
+            int parent = (index - 1) / 2;
+            set(index, lotShares[parent], lotCosts[parent], unitCosts[parent]);
+            index = parent;
+        }
+        set(index, shares, cost, unit);
+    }
+
+    // MODIFIES: this
+    // EFFECTS: Moves the lot at index down the heap until neither child costs more per share
+    private void siftDown(int index) {
+        int shares = lotShares[index];
+        long cost = lotCosts[index];
+        double unit = unitCosts[index];
+
+        for (int child = 2 * index + 1; child < count; child = 2 * index + 1) {
+            if (child + 1 < count && unitCosts[child + 1] > unitCosts[child]) {
+                child++;
+            }
+            if (unitCosts[child] <= unit) {
+                break;
+            }
+            set(index, lotShares[child], lotCosts[child], unitCosts[child]);
+            index = child;
+        }
+        set(index, shares, cost, unit);
+    }
+
+    // MODIFIES: this
+    // EFFECTS: Puts a lot at the given index of the heap
+    private void set(int index, int shares, long cost, double unit) {
+        lotShares[index] = shares;
+        lotCosts[index] = cost;
+        unitCosts[index] = unit;
+    }
+}
@@ -0,0 +1,203 @@
+package model;
+
+// Fixed point arithmetic for money held in a long as a whole number of micro-cents, where one dollar is 100,000,000
+// micro-cents.  Exchange rates are held the same way with six decimal places.  Sums and differences are exact, and
+// every multiplication or division rounds once to the nearest micro-cent with halves rounded away from zero.
+// Nothing here allocates, so it can be used inside the history replay loop
+public final class Money {
+    public static final long SCALE = 100_000_000L;      // micro-cents in a dollar
+    public static final long RATE_SCALE = 1_000_000L;   // units in an exchange rate of 1.0
+    private static final long LOW_32 = 0xFFFFFFFFL;
+
+    private Money() {
+    }
+
+    // EFFECTS: Returns the dollar amount as micro-cents, rounded to the nearest micro-cent
+    public static long of(double dollars) {
+        return Math.round(dollars * SCALE);
+    }
+
+    // EFFECTS: Returns the exchange rate in fixed point, rounded to six decimal places
+    public static long rateOf(double rate) {
+        return Math.round(rate * RATE_SCALE);
+    }
+
+    // EFFECTS: Returns the micro-cents amount in dollars
+    public static double toDouble(long amount) {
+        return (double) amount / SCALE;
+    }
+
+    // EFFECTS: Returns the fixed point exchange rate as a double
+    public static double rateToDouble(long rate) {
+        return (double) rate / RATE_SCALE;
+    }
+
+    // EFFECTS: Returns the amount converted to CAD at the fixed point rate if it is a USD amount, otherwise returns
+    //          the amount unchanged.  A CAD amount takes the same steps at a rate of 1.0 instead of a branch of its
+    //          own, as the currencies of the rows of a history come in no order and a mispredicted branch costs more
+    //          than the multiply.  Dividing by the constant RATE_SCALE lets the compiler multiply instead of divide
+    public static long toCad(long amount, boolean isUSD, long rate) {
+        long effective = isUSD ? rate : RATE_SCALE;
+        if (!fitsProduct(amount, effective)) {
+            return isUSD ? mulDiv(amount, rate, RATE_SCALE) : amount;
+        }
+        long product = amount * effective;
+        long quotient = product / RATE_SCALE;
+        long remainder = product - quotient * RATE_SCALE;
+        // Halves away from zero, without branching on the remainder
+        return quotient + (remainder >= RATE_SCALE / 2 ? 1 : 0) - (remainder <= -RATE_SCALE / 2 ? 1 : 0);
+    }
+
+    // EFFECTS: Returns the part of an adjusted cost base belonging to some of the shares it covers, the share of the
+    //          cost removed when they are sold.  Selling from an empty position has no cost
+    public static long costOfShares(long acb, int shares, int totalShares) {
+        if (totalShares == 0) {
+            return 0;
+        }
+        return mulDiv(acb, shares, totalShares);
+    }
+
+    // REQUIRES: divisor != 0
+    // EFFECTS: Returns a * b / divisor rounded to the nearest whole number with halves away from zero.  The product
+    //          is worked out to 128 bits so it cannot overflow, throws ArithmeticException if the result does not
+    //          fit in a long
+    public static long mulDiv(long a, long b, long divisor) {
+        if (fitsProduct(a, b)) {
+            return divide(a * b, divisor);
+        }
+        long high = multiplyHigh(a, b);
+        long low = a * b;
+
+        if ((high == 0 && low >= 0) || (high == -1 && low < 0)) {
+            return divide(low, divisor);
+        }
+        return divideWide(high, low, divisor);
+    }
+
+    // EFFECTS: Returns true if the magnitudes of a and b have at most 63 bits between them, so their product fits in
+    //          a long without working out its upper half
+    private static boolean fitsProduct(long a, long b) {
+        return Long.numberOfLeadingZeros(Math.abs(a)) + Long.numberOfLeadingZeros(Math.abs(b)) >= 65;
+    }
+
+    // REQUIRES: divisor != 0
+    // EFFECTS: Returns dividend / divisor rounded to the nearest whole number with halves away from zero, throws
+    //          ArithmeticException if the result does not fit in a long
+    public static long divide(long dividend, long divisor) {
+        if (dividend == Long.MIN_VALUE && divisor == -1) {
+            throw new ArithmeticException("Money amount is too large");
+        }
+        // A cost over a number of shares is the common case, and adding half the divisor rounds it in one division
+        if (dividend >= 0 && divisor > 0 && dividend <= Long.MAX_VALUE - (divisor >> 1)) {
+            return (dividend + (divisor >> 1)) / divisor;
+        }
+        long quotient = dividend / divisor;
+        long remainder = Math.abs(dividend - quotient * divisor);
+        long away = (dividend ^ divisor) < 0 ? -1 : 1;
+
+        // Compared unsigned so that the magnitude of Long.MIN_VALUE reads as 2^63.  Selected rather than branched on,
+        // as whether a quotient rounds up is as good as random
+        return quotient + (Long.compareUnsigned(remainder, Math.abs(divisor) - remainder) >= 0 ? away : 0);
+    }
+
+    // EFFECTS: Returns the upper 64 bits of the 128 bit product of two signed longs.
+    //          From section 8-2 of Henry S. Warren, Jr., Hacker's Delight (2nd ed.)
+    private static long multiplyHigh(long x, long y) {
+        long x1 = x >> 32;
+        long x2 = x & 0xFFFFFFFFL;
+        long y1 = y >> 32;
+        long y2 = y & 0xFFFFFFFFL;
+        long z2 = x2 * y2;
+        long t = x1 * y2 + (z2 >>> 32);
+        long z1 = t & 0xFFFFFFFFL;
+        long z0 = t >> 32;
+        z1 += x2 * y1;
+        return x1 * y1 + z0 + (z1 >> 32);
+    }
+
+    // REQUIRES: divisor != 0
+    // EFFECTS: Returns the signed 128 bit number high:low divided by the divisor and rounded with halves away from
+    //          zero, throws ArithmeticException if the result does not fit in a long
+    private static long divideWide(long high, long low, long divisor) {
+        boolean negative = (high < 0) != (divisor < 0);
+        if (high < 0) {
+            // Two's complement negation across both halves
+            low = -low;
+            high = low == 0 ? -high : ~high;
+        }
+        // Read as unsigned, so Long.MIN_VALUE stays 2^63
+        long magnitude = Math.abs(divisor);
+        if (Long.compareUnsigned(high, magnitude) >= 0) {
+            throw new ArithmeticException("Money amount is too large");
+        }
+        long quotient = divideUnsigned(high, low, magnitude);
+        // The remainder is below the divisor, so the low 64 bits of the dividend less quotient * divisor give it
+        return finishWide(quotient, low - quotient * magnitude, magnitude, negative);
+    }
+
+    // REQUIRES: high < divisor, both read as unsigned
+    // EFFECTS: Returns the unsigned 128 bit number high:low divided by the unsigned divisor, rounded down.  The
+    //          divisor is shifted until its top bit is set and the quotient is found as two 32 bit digits, each from
+    //          dividing by the top half of the divisor and correcting at most twice.
+    //          From divlu in section 9-4 of Henry S. Warren, Jr., Hacker's Delight (2nd ed.)
+    private static long divideUnsigned(long high, long low, long divisor) {
+        int shift = Long.numberOfLeadingZeros(divisor);
+        long normalized = divisor << shift;
+        long top = shift == 0 ? high : (high << shift) | (low >>> (64 - shift));
+        long bottom = low << shift;
+
+        long upperDigit = quotientDigit(top, bottom >>> 32, normalized);
+        long middle = (top << 32) + (bottom >>> 32) - upperDigit * normalized;
+        long lowerDigit = quotientDigit(middle, bottom & LOW_32, normalized);
+        return (upperDigit << 32) | lowerDigit;
+    }
+
+    // REQUIRES: the top bit of divisor is set, dividend < divisor read as unsigned, next < 2^32
+    // EFFECTS: Returns the 32 bit quotient of dividend * 2^32 + next divided by the divisor, rounded down
+    private static long quotientDigit(long dividend, long next, long divisor) {
+        long divisorHigh = divisor >>> 32;
+        long divisorLow = divisor & LOW_32;
+        long digit = divideBy32(dividend, divisorHigh);
+        long remainder = dividend - digit * divisorHigh;
+
+        // The estimate from the top half of the divisor is never too small and at most 2 too large
+        while (digit > LOW_32 || Long.compareUnsigned(digit * divisorLow, (remainder << 32) | next) > 0) {
+            digit--;
+            remainder += divisorHigh;
+            if (remainder > LOW_32) {
+                break;
+            }
+        }
+        return digit;
+    }
+
+    // REQUIRES: 2^31 <= divisor < 2^32
+    // EFFECTS: Returns the unsigned dividend divided by the divisor, rounded down, without the BigInteger that
+    //          Long.divideUnsigned falls back on for dividends with the top bit set
+    private static long divideBy32(long dividend, long divisor) {
+        long quotient = ((dividend >>> 1) / divisor) << 1;
+        if (dividend - quotient * divisor >= divisor) {
+            quotient++;
+        }
+        return quotient;
+    }
+
+    // EFFECTS: Rounds the unsigned quotient by its unsigned remainder and gives it a sign, throws ArithmeticException
+    //          if the result does not fit in a long
+    private static long finishWide(long quotient, long remainder, long magnitude, boolean negative) {
+        // Checked before rounding too, as rounding 2^64 - 1 up would wrap around to 0
+        checkFits(quotient, negative);
+        if (Long.compareUnsigned(remainder, magnitude - remainder) >= 0) {
+            quotient++;
+        }
+        checkFits(quotient, negative);
+        return negative ? -quotient : quotient;
+    }
+
+    // EFFECTS: throws ArithmeticException if the unsigned magnitude with the given sign does not fit in a long
+    private static void checkFits(long magnitude, boolean negative) {
+        if (magnitude < 0 && !(negative && magnitude == Long.MIN_VALUE)) {
+            throw new ArithmeticException("Money amount is too large");
+        }
+    }
+}
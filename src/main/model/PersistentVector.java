@@ -0,0 +1,157 @@
+package model;
+
+import java.util.Arrays;
+
+// An immutable list that is changed by making a new version of it.  Elements are kept in a tree where every node
+// holds up to 32 children, with the last few elements in a separate tail, so appending or removing the last element
+// copies only the nodes on one path from the root, O(log n), and shares everything else with the version it was made
+// from.  Old versions never change, so they can be read on any thread without a lock.
+// Follows the persistent vector of Clojure, see Phil Bagwell, Ideal Hash Trees (2001)
+final class PersistentVector<E> {
+    private static final int BITS = 5;
+    private static final int WIDTH = 1 << BITS;
+    private static final int MASK = WIDTH - 1;
+    private static final Object[] EMPTY_NODE = new Object[WIDTH];
+    private static final PersistentVector<?> EMPTY = new PersistentVector<>(0, BITS, EMPTY_NODE, new Object[0]);
+
+    private final int size;
+    private final int shift;        // bits of an index used by the levels below the root
+    private final Object[] root;    // tree nodes hold WIDTH children, leaves hold WIDTH elements
+    private final Object[] tail;    // the last elements, up to WIDTH of them
+
+    private PersistentVector(int size, int shift, Object[] root, Object[] tail) {
+        this.size = size;
+        this.shift = shift;
+        this.root = root;
+        this.tail = tail;
+    }
+
+    // EFFECTS: Returns the empty vector
+    @SuppressWarnings("unchecked")
+    static <E> PersistentVector<E> empty() {
+        return (PersistentVector<E>) EMPTY;
+    }
+
+    int size() {
+        return size;
+    }
+
+    // REQUIRES: 0 <= index < size
+    // EFFECTS: Returns the element at the given index
+    @SuppressWarnings("unchecked")
+    E get(int index) {
+        return (E) leafFor(index)[index & MASK];
+    }
+
+    // EFFECTS: Returns a new vector with the element added to the end
+    PersistentVector<E> append(E element) {
+        if (size - tailOffset() < WIDTH) {
+            Object[] newTail = Arrays.copyOf(tail, tail.length + 1);
+            newTail[tail.length] = element;
+            return new PersistentVector<>(size + 1, shift, root, newTail);
+        }
+        // The tail is full, so it becomes a leaf of the tree and a new tail is started
+        if ((size >>> BITS) > (1 << shift)) {
+            Object[] newRoot = new Object[WIDTH];
+            newRoot[0] = root;
+            newRoot[1] = newPath(shift, tail);
+            return new PersistentVector<>(size + 1, shift + BITS, newRoot, new Object[] {element});
+        }
+        return new PersistentVector<>(size + 1, shift, pushTail(shift, root), new Object[] {element});
+    }
+
+    // REQUIRES: size > 0
+    // EFFECTS: Returns a new vector without the last element
+    PersistentVector<E> pop() {
+        if (size == 1) {
+            return empty();
+        }
+        if (size - tailOffset() > 1) {
+            return new PersistentVector<>(size - 1, shift, root, Arrays.copyOf(tail, tail.length - 1));
+        }
+        // The tail is emptied, so the last leaf of the tree becomes the tail
+        Object[] newTail = leafFor(size - 2);
+        Object[] newRoot = popTail(shift, root);
+        int newShift = shift;
+        if (newRoot == null) {
+            newRoot = EMPTY_NODE;
+        }
+        if (shift > BITS && newRoot[1] == null) {
+            newRoot = (Object[]) newRoot[0];
+            newShift -= BITS;
+        }
+        return new PersistentVector<>(size - 1, newShift, newRoot, newTail);
+    }
+
+    // REQUIRES: 0 <= length <= size
+    // EFFECTS: Returns a new vector of the first length elements of this
+    PersistentVector<E> truncate(int length) {
+        PersistentVector<E> truncated = this;
+        while (truncated.size > length) {
+            truncated = truncated.pop();
+        }
+        return truncated;
+    }
+
+    // EFFECTS: Returns the index of the first element held in the tail
+    private int tailOffset() {
+        return size < WIDTH ? 0 : ((size - 1) >>> BITS) << BITS;
+    }
+
+    // EFFECTS: Returns the leaf or tail holding the element at the given index
+    private Object[] leafFor(int index) {
+        if (index >= tailOffset()) {
+            return tail;
+        }
+        Object[] node = root;
+        for (int level = shift; level > 0; level -= BITS) {
+            node = (Object[]) node[(index >>> level) & MASK];
+        }
+        return node;
+    }
+
+    // EFFECTS: Returns a copy of the node at the given level with the full tail added as its last leaf
+    private Object[] pushTail(int level, Object[] parent) {
+        int child = ((size - 1) >>> level) & MASK;
+        Object[] copy = parent.clone();
+
+        if (level == BITS) {
+            copy[child] = tail;
+        } else if (parent[child] == null) {
+            copy[child] = newPath(level - BITS, tail);
+        } else {
+            copy[child] = pushTail(level - BITS, (Object[]) parent[child]);
+        }
+        return copy;
+    }
+
+    // EFFECTS: Returns a copy of the node at the given level without its last leaf, or null if it would be empty
+    private Object[] popTail(int level, Object[] node) {
+        int child = ((size - 2) >>> level) & MASK;
+
+        if (level > BITS) {
+            Object[] newChild = popTail(level - BITS, (Object[]) node[child]);
+            if (newChild == null && child == 0) {
+                return null;
+            }
+            Object[] copy = node.clone();
+            copy[child] = newChild;
+            return copy;
+        } else if (child == 0) {
+            return null;
+        }
+        Object[] copy = node.clone();
+        copy[child] = null;
+        return copy;
+    }
+
+    // EFFECTS: Returns a chain of new nodes from the given level down to the leaf
+    private static Object[] newPath(int level, Object[] leaf) {
+        if (level == 0) {
+            return leaf;
+        }
+        Object[] node = new Object[WIDTH];
+        node[0] = newPath(level - BITS, leaf);
+        return node;
+    }
+}
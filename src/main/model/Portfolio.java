@@ -5,19 +5,59 @@ import org.json.JSONArray;
 import org.json.JSONObject;
 import persistence.Writable;
 
+import java.time.LocalDate;
 import java.util.*;
-
-import static ui.console.JCapTrack.DOLLAR_FORMAT;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
 
 // A stock portfolio holding information and transactions for various securities
 public class Portfolio implements Writable {
+    // Alphabetical ordering of tickers used for the holdings list, compares without allocating lower case copies
+    private static final Comparator<String> TICKER_ORDER = String.CASE_INSENSITIVE_ORDER;
+    public static final String COST_BASIS_KEY = "costBasis";
+    static final String SUMMARY_FORMAT = "%6s || %5d   || %10s  ||%2d\n";  // One line of getSummary
 
     private String name;
     private List<Security> holdings;  // A list of all the securities held, with no duplicates, in alphabetical order
+    private Map<String, Security> index;  // The same securities as holdings, keyed by their ticker
+    private final boolean compact;  // true if new securities keep compact histories
+    private final CostBasisMethod method;  // the cost basis method of every security
+    private final List<PortfolioObserver> observers;  // Told about every change to this, in the order added
+    private final PortfolioObserver dispatcher;  // Passes each change on to all of the observers
 
     public Portfolio(String name) {
+        this(name, false);
+    }
+
+    // EFFECTS: Makes a new portfolio, if compact is true its securities keep only the columns of their trading
+    //          histories rather than the Transaction objects added to them
+    public Portfolio(String name, boolean compact) {
+        this(name, compact, CostBasisMethod.AVERAGE_COST);
+    }
+
+    // EFFECTS: Makes a new portfolio like Portfolio(name, compact) whose securities work out the cost of the shares
+    //          given up in each sale by the given method
+    public Portfolio(String name, boolean compact, CostBasisMethod method) {
         this.name = name;
+        this.compact = compact;
+        this.method = method;
         holdings = new ArrayList<>();
+        index = new HashMap<>();
+        observers = new CopyOnWriteArrayList<>();
+        dispatcher = new Dispatcher();
+    }
+
+    // MODIFIES: this
+    // EFFECTS: Adds an observer to be told about every change to this and its securities from now on
+    public void addObserver(PortfolioObserver observer) {
+        observers.add(observer);
+    }
+
+    // MODIFIES: this
+    // EFFECTS: Stops telling the observer about changes to this
+    public void removeObserver(PortfolioObserver observer) {
+        observers.remove(observer);
     }
 
     // EFFECTS: Returns an unmodifiable list of all of the security holdings
@@ -29,16 +69,13 @@ public class Portfolio implements Writable {
     // EFFECTS:  Tries to add a new security to this with the name matching input, returns true if successful
     //           returns false if the security ticker is already listed
     public boolean addNewSecurity(String ticker) {
-        Security s = new Security(ticker);
-
-        if (getTickers().contains(ticker)) {
+        if (index.containsKey(ticker)) {
             return false;
         } else {
-            if (holdings.size() == 0) {
-                holdings.add(s);
-            } else {
-                holdings.add(findInsertionIndex(ticker), s);
-            }
+            Security s = new Security(ticker, compact, method, dispatcher);
+            holdings.add(findInsertionIndex(ticker), s);
+            index.put(ticker, s);
+            dispatcher.securityAdded(ticker);
             return true;
         }
     }
@@ -48,13 +85,19 @@ public class Portfolio implements Writable {
     // EFFECTS: returns true if security is found in portfolio and removes it
     //          if the security is not in the portfolio, return false
     public boolean removeSecurity(String ticker) {
-        for (Security s : holdings) {
-            if (s.getTicker().equals(ticker)) {
-                holdings.remove(s);
-                return true;
-            }
+        Security s = index.remove(ticker);
+
+        if (s == null) {
+            return false;
         }
-        return false;
+        // Securities that tie on a case-insensitive compare sit directly before the insertion index
+        int i = findInsertionIndex(ticker) - 1;
+        while (holdings.get(i) != s) {
+            i--;
+        }
+        holdings.remove(i);
+        dispatcher.securityRemoved(ticker);
+        return true;
     }
 
     // MODIFIES: this
@@ -66,6 +109,49 @@ public class Portfolio implements Writable {
         transSecurity.addTransaction(transAdd);
     }
 
+    // MODIFIES: this
+    // EFFECTS: adds a batch of transactions to their existing tickers, each security is sorted and replayed only once.
+    //          throws runtime exception if unable to find an existing ticker matching a transaction, in which case
+    //          none of the transactions are added
+    public void addTransactions(Collection<Transaction> transactions) throws NoTickerException {
+        for (Map.Entry<Security, List<Transaction>> group : groupBySecurity(transactions).entrySet()) {
+            group.getKey().addAll(group.getValue());
+        }
+    }
+
+    // MODIFIES: this
+    // EFFECTS: adds a batch of transactions to their existing tickers like addTransactions, but each security is
+    //          sorted and replayed as its own task on the given pool.  Securities never share any state so they can
+    //          be replayed at the same time, the largest are started first so that one long history is not left
+    //          running alone at the end.  Returns once every security is complete.
+    //          throws runtime exception if unable to find an existing ticker matching a transaction, in which case
+    //          none of the transactions are added
+    public void addTransactions(Collection<Transaction> transactions, ForkJoinPool pool) throws NoTickerException {
+        List<Map.Entry<Security, List<Transaction>>> groups = new ArrayList<>(groupBySecurity(transactions).entrySet());
+        groups.sort((a, b) -> Integer.compare(b.getValue().size(), a.getValue().size()));
+
+        List<ForkJoinTask<?>> tasks = new ArrayList<>(groups.size());
+        for (Map.Entry<Security, List<Transaction>> group : groups) {
+            tasks.add(pool.submit(() -> group.getKey().addAll(group.getValue())));
+        }
+        for (ForkJoinTask<?> task : tasks) {
+            task.join();
+        }
+    }
+
+    // EFFECTS: returns the transactions grouped by the security they belong to, in the order they were given.
+    //          throws runtime exception if unable to find an existing ticker matching a transaction
+    private Map<Security, List<Transaction>> groupBySecurity(Collection<Transaction> transactions)
+            throws NoTickerException {
+        Map<Security, List<Transaction>> groups = new LinkedHashMap<>();
+
+        for (Transaction t : transactions) {
+            Security s = matchString(t.getSecurity());
+            groups.computeIfAbsent(s, k -> new ArrayList<>()).add(t);
+        }
+        return groups;
+    }
+
     // EFFECTS: returns a list of the names of all of the tickers held in this portfolio in alphabetical order
     public List<String> getTickers() {
         List<String> tickers = new ArrayList<>();
@@ -78,12 +164,7 @@ public class Portfolio implements Writable {
 
     // EFFECTS: Returns true if the portfolio contains a security matching the given ticker string, false otherwise
     public boolean hasTicker(String ticker) {
-        for (Security s : holdings) {
-            if (s.getTicker().equals(ticker)) {
-                return true;
-            }
-        }
-        return false;
+        return index.containsKey(ticker);
     }
 
     // EFFECTS: Returns the number of holdings contained in this
@@ -99,12 +180,63 @@ public class Portfolio implements Writable {
 
         // Make the summary lines
         for (Security s : holdings) {
-            summary.add(String.format("%6s || %5d   || %10s  ||%2d\n", s.getTicker(), s.getShares(),
-                    DOLLAR_FORMAT.format(s.getAcb()), s.getNumTransactions()));
+            summary.add(s.getSummaryLine(SUMMARY_FORMAT));
         }
         return summary;
     }
 
+    // EFFECTS: Returns an unchanging copy of this as it is now that can be read on any thread without a lock.  Each
+    //          security reuses its last snapshot if it has not changed since, and otherwise shares all but the changed
+    //          part of its history with it
+    public PortfolioSnapshot snapshot() {
+        List<SecuritySnapshot> securities = new ArrayList<>(holdings.size());
+
+        for (Security s : holdings) {
+            securities.add(s.snapshot());
+        }
+        return new PortfolioSnapshot(name, securities);
+    }
+
+    // EFFECTS: Returns the position held in each security at the end of the given date, in alphabetical order
+    public List<Position> positionsAsOf(LocalDate date) {
+        List<Position> positions = new ArrayList<>(holdings.size());
+
+        for (Security s : holdings) {
+            positions.add(s.positionAsOf(date));
+        }
+        return positions;
+    }
+
+    // EFFECTS: Returns the value of the position held in each security at the close of the given date like
+    //          valuation(date, prices, rates), but with no exchange rates, so a security trading in USD is left
+    //          unpriced
+    public List<Valuation> valuation(LocalDate date, PriceSource prices) {
+        return valuation(date, prices, FxRateTable.EMPTY);
+    }
+
+    // EFFECTS: Returns the value of the position held in each security at the close of the given date, at the
+    //          closing prices from the given source, in alphabetical order.  A price is in the currency the security
+    //          trades in, see Security.tradesInUsd, and a USD price is converted to CAD at the rate for the date so
+    //          that it can be set against the ACB.  A security without a price, or a USD security without a rate,
+    //          that day is left unpriced
+    public List<Valuation> valuation(LocalDate date, PriceSource prices, FxRates rates) {
+        List<Valuation> valuations = new ArrayList<>(holdings.size());
+
+        for (Security s : holdings) {
+            Position position = s.positionAsOf(date);
+            boolean isUSD = s.tradesInUsd();
+            boolean priced = position.getShares() != 0 && prices.hasPrice(s.getTicker(), date)
+                    && (!isUSD || rates.hasRate(date));
+            long price = 0;
+            if (priced) {
+                long rate = isUSD ? Money.rateOf(rates.getRate(date)) : 0;
+                price = Money.toCad(Money.of(prices.getPrice(s.getTicker(), date)), isUSD, rate);
+            }
+            valuations.add(new Valuation(position, price));
+        }
+        return valuations;
+    }
+
     // EFFECTS: Searches for all transactions for the security matching the parameter ticker, then returns them
     //          as a list of strings.
     public List<String> searchTransactions(String ticker) throws NoTickerException {
@@ -114,61 +246,110 @@ public class Portfolio implements Writable {
 
     // EFFECTS: Returns the security that matches the name of the string given.  Throws an exception if not found
     public Security matchString(String ticker) throws NoTickerException {
+        Security s = index.get(ticker);
 
-        for (Security s : holdings) {
-            if (s.getTicker().equals(ticker)) {
-                return s;
-            }
+        if (s == null) {
+            throw new NoTickerException("No security found that matches " + ticker);
         }
-        throw new NoTickerException("No security found that matches " + ticker);
+        return s;
     }
 
     public String getName() {
         return name;
     }
 
+    public CostBasisMethod getCostBasisMethod() {
+        return method;
+    }
+
     public void setName(String name) {
         this.name = name;
     }
 
-    // EFFECTS: Generates a list of all of the tax information for a given year, transactions that had a capital gain
-    public List<String> getTaxTransactions(int year) {
-        ArrayList<String> transactions = new ArrayList<>();
+    // EFFECTS: Returns the sells with a capital gain or loss in the given year, grouped by security in ticker order
+    //          and in chronological order within a security.  Securities without a sell in the year are skipped
+    //          without looking at their history
+    public List<Transaction> getTaxSlips(int year) {
+        List<Transaction> slips = new ArrayList<>();
 
         for (Security s : holdings) {
-            for (Transaction t : s.getHistory()) {
-                if (t.getDate().get(Calendar.YEAR) == year && t.getBuyOrSell()) {
-                    transactions.add(t.toString());
-                }
+            if (s.getNumSales(year) > 0) {
+                slips.addAll(s.getSales(year));
             }
         }
+        return slips;
+    }
+
+    // EFFECTS: Returns the totals of the sells of every security in the given year, read from the totals each
+    //          security keeps up to date without looking at any sells
+    public YearlyGains getGains(int year) {
+        YearlyGains total = YearlyGains.none(year);
+
+        for (Security s : holdings) {
+            total = total.plus(s.getGains(year));
+        }
+        return total;
+    }
 
-        return transactions;
+    // EFFECTS: Returns the totals of the sells of every security in each year that has any, by year in ascending
+    //          order
+    public SortedMap<Integer, YearlyGains> getYearlyGains() {
+        SortedMap<Integer, YearlyGains> totals = new TreeMap<>();
+
+        for (Security s : holdings) {
+            for (YearlyGains gains : s.getYearlyGains()) {
+                totals.merge(gains.getYear(), gains, YearlyGains::plus);
+            }
+        }
+        return totals;
     }
 
-    // REQUIRES: A ticker already contained in the holdings
-    // EFFECTS: Finds the correct insertion point to maintain alphabetical order of tickers
-    private int findInsertionIndex(String ticker) {
-        int index = 0;
+    // EFFECTS: Returns the totals of the sells in all of the portfolios in each year that has any, by year in
+    //          ascending order
+    public static SortedMap<Integer, YearlyGains> getYearlyGains(Collection<? extends Portfolio> portfolios) {
+        SortedMap<Integer, YearlyGains> totals = new TreeMap<>();
+
+        for (Portfolio p : portfolios) {
+            for (YearlyGains gains : p.getYearlyGains().values()) {
+                totals.merge(gains.getYear(), gains, YearlyGains::plus);
+            }
+        }
+        return totals;
+    }
+
+    // EFFECTS: Generates a list of all of the tax information for a given year, transactions that had a capital gain
+    public List<String> getTaxTransactions(int year) {
+        List<String> transactions = new ArrayList<>();
 
-        // Search for the proper index
-        ticker = ticker.toLowerCase(Locale.ROOT);
-        for (Security orderedSecurity : holdings) {
-            String ticker2 = orderedSecurity.getTicker().toLowerCase(Locale.ROOT);
+        for (Transaction t : getTaxSlips(year)) {
+            transactions.add(t.toString());
+        }
+        return transactions;
+    }
 
-            if (ticker.compareTo(ticker2) >= 0) {
-                index++;
+    // EFFECTS: Finds the correct insertion point to maintain alphabetical order of tickers, ignoring case.
+    //          Returns the index after any holdings that compare equal so that ties keep their insertion order
+    private int findInsertionIndex(String ticker) {
+        int low = 0;
+        int high = holdings.size();
+
+        // Binary search for the first holding that sorts strictly after the ticker
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (TICKER_ORDER.compare(ticker, holdings.get(mid).getTicker()) >= 0) {
+                low = mid + 1;
             } else {
-                break;
+                high = mid;
             }
         }
-        return index;
+        return low;
     }
 
     @Override
     public JSONObject toJson() {
         JSONObject json = new JSONObject();
         json.put("name", name);
+        json.put(COST_BASIS_KEY, method.name());
         json.put("holdings", holdingsToJson());
         json.put("transactions", transactionsToJson());
         return json;
@@ -189,10 +370,42 @@ public class Portfolio implements Writable {
         JSONArray jsonArray = new JSONArray();
 
         for (Security s : holdings) {
-            for (Transaction t : s.getHistory()) {
+            for (Transaction t : s.copyHistory()) {
                 jsonArray.put(t.toJson());
             }
         }
         return jsonArray;
     }
+
+    // Passes each change to the portfolio or its securities on to all of the observers
+    private class Dispatcher implements PortfolioObserver {
+
+        @Override
+        public void securityAdded(String ticker) {
+            for (PortfolioObserver observer : observers) {
+                observer.securityAdded(ticker);
+            }
+        }
+
+        @Override
+        public void securityRemoved(String ticker) {
+            for (PortfolioObserver observer : observers) {
+                observer.securityRemoved(ticker);
+            }
+        }
+
+        @Override
+        public void transactionAdded(Transaction t) {
+            for (PortfolioObserver observer : observers) {
+                observer.transactionAdded(t);
+            }
+        }
+
+        @Override
+        public void transactionRemoved(String ticker, int index) {
+            for (PortfolioObserver observer : observers) {
+                observer.transactionRemoved(ticker, index);
+            }
+        }
+    }
 }
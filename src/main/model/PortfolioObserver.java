@@ -0,0 +1,20 @@
+package model;
+
+// Something that is told about every change made to a portfolio and its securities, in the order they are made.
+// A portfolio that is changed on several threads may tell its observers about changes to different securities at
+// the same time.  A security is locked for writing while it tells its observers about a change, so an observer must
+// not read that security from inside the call
+public interface PortfolioObserver {
+
+    // EFFECTS: Called after a new security with the given ticker is added to the portfolio
+    void securityAdded(String ticker);
+
+    // EFFECTS: Called after the security with the given ticker is removed from the portfolio
+    void securityRemoved(String ticker);
+
+    // EFFECTS: Called after the transaction is added to the history of its security
+    void transactionAdded(Transaction t);
+
+    // EFFECTS: Called after the transaction at the given index of the history of a security is removed
+    void transactionRemoved(String ticker, int index);
+}
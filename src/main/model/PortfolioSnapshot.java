@@ -0,0 +1,63 @@
+package model;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+// An unchanging copy of a portfolio as it was at one moment, made by Portfolio.snapshot.  It can be read on any
+// thread without a lock while the portfolio goes on changing
+public final class PortfolioSnapshot {
+    private final String name;
+    private final List<SecuritySnapshot> holdings;  // in the alphabetical order of the portfolio
+
+    // EFFECTS: Makes a snapshot of a portfolio with the given name and holdings, holdings is not copied
+    PortfolioSnapshot(String name, List<SecuritySnapshot> holdings) {
+        this.name = name;
+        this.holdings = Collections.unmodifiableList(holdings);
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    // EFFECTS: Returns an unmodifiable list of the security holdings in alphabetical order
+    public List<SecuritySnapshot> getHoldings() {
+        return holdings;
+    }
+
+    public int getNumHoldings() {
+        return holdings.size();
+    }
+
+    // EFFECTS: returns a list of the names of all of the tickers held in alphabetical order
+    public List<String> getTickers() {
+        List<String> tickers = new ArrayList<>(holdings.size());
+
+        for (SecuritySnapshot s : holdings) {
+            tickers.add(s.getTicker());
+        }
+        return tickers;
+    }
+
+    // EFFECTS: returns a list of strings containing a full summary of all the holdings in alphabetical order, in
+    //          the same form as Portfolio.getSummary
+    public List<String> getSummary() {
+        List<String> summary = new ArrayList<>(holdings.size());
+
+        for (SecuritySnapshot s : holdings) {
+            summary.add(s.getSummaryLine(Portfolio.SUMMARY_FORMAT));
+        }
+        return summary;
+    }
+
+    // EFFECTS: Returns the position held in each security at the end of the given date, in alphabetical order
+    public List<Position> positionsAsOf(LocalDate date) {
+        List<Position> positions = new ArrayList<>(holdings.size());
+
+        for (SecuritySnapshot s : holdings) {
+            positions.add(s.positionAsOf(date));
+        }
+        return positions;
+    }
+}
@@ -0,0 +1,31 @@
+package model;
+
+// The shares and adjusted cost base held for a security at the end of a particular day
+public class Position {
+
+    private final String ticker;    // Name of Security
+    private final int shares;       // The number of shares held
+    private final long acb;         // The adjusted cost base of the shares held *always in CAD*, in micro-cents
+
+    public Position(String ticker, int shares, long acb) {
+        this.ticker = ticker;
+        this.shares = shares;
+        this.acb = acb;
+    }
+
+    public String getTicker() {
+        return ticker;
+    }
+
+    public int getShares() {
+        return shares;
+    }
+
+    public double getAcb() {
+        return Money.toDouble(acb);
+    }
+
+    long getAcbMicros() {
+        return acb;
+    }
+}
@@ -0,0 +1,63 @@
+package model;
+
+// The shares and acb held after each transaction in the history of a security, copied out of it in chronological
+// order.  The holding on a day is the one after the last step dated on or before it
+final class PositionSteps {
+    static final PositionSteps EMPTY = new PositionSteps(new int[0], new int[0], new long[0]);
+
+    private final int[] days;       // epoch days in ascending order
+    private final int[] shares;
+    private final long[] acbs;      // CAD micro-cents
+
+    // REQUIRES: the arrays are all the same length and days is in ascending order
+    PositionSteps(int[] days, int[] shares, long[] acbs) {
+        this.days = days;
+        this.shares = shares;
+        this.acbs = acbs;
+    }
+
+    int size() {
+        return days.length;
+    }
+
+    int getDay(int step) {
+        return days[step];
+    }
+
+    int getShares(int step) {
+        return shares[step];
+    }
+
+    long getAcb(int step) {
+        return acbs[step];
+    }
+
+    // EFFECTS: Returns the index of the first step dated after the given epoch day
+    int firstAfter(int epochDay) {
+        int low = 0;
+        int high = days.length;
+
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (epochDay >= days[mid]) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+
+    // EFFECTS: Returns the index of the first step that differs between this and other, which is the size of the
+    //          shorter of the two if it is the start of the longer
+    int firstDifference(PositionSteps other) {
+        int common = Math.min(size(), other.size());
+        for (int step = 0; step < common; step++) {
+            if (days[step] != other.days[step] || shares[step] != other.shares[step]
+                    || acbs[step] != other.acbs[step]) {
+                return step;
+            }
+        }
+        return common;
+    }
+}
@@ -0,0 +1,24 @@
+package model;
+
+import java.time.LocalDate;
+
+// A source of the daily closing prices of securities in CAD, looked up by ticker
+public interface PriceSource {
+
+    // EFFECTS: Returns true if there is a closing price for the ticker on the given date
+    boolean hasPrice(String ticker, LocalDate date);
+
+    // EFFECTS: Returns the closing price of the ticker on the given date, throws IllegalArgumentException if there
+    //          is none
+    double getPrice(String ticker, LocalDate date);
+
+    // MODIFIES: closes
+    // EFFECTS: Fills closes with the closing price of the ticker in micro-cents on each day from the given date on,
+    //          one day for each element, with 0 for a day without a price
+    default void fillPrices(String ticker, LocalDate first, long[] closes) {
+        for (int day = 0; day < closes.length; day++) {
+            LocalDate date = first.plusDays(day);
+            closes[day] = hasPrice(ticker, date) ? Money.of(getPrice(ticker, date)) : 0;
+        }
+    }
+}
@@ -3,125 +3,429 @@ package model;
 import org.json.JSONObject;
 import persistence.Writable;
 
+import java.time.LocalDate;
+import java.util.AbstractList;
 import java.util.ArrayList;
-import java.util.Collections;
+import java.util.Collection;
+import java.util.Comparator;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.StampedLock;
+import java.util.function.Consumer;
 
-import static ui.console.JCapTrack.DOLLAR_FORMAT;
-
-// Model of a security that is traded on a stock exchange
+// Model of a security that is traded on a stock exchange.  Each security guards its own history with a lock so that
+// it can be read while other securities are being changed, and the current shares and acb are read optimistically
+// without taking the lock at all
 public class Security implements Writable {
+    // Chronological ordering of transactions
+    private static final Comparator<Transaction> DATE_ORDER = Comparator.comparingInt(Transaction::getEpochDay);
 
     private final String ticker;     // Security ticker symbol
     private int shares;        // Current number of shares held
-    private double acb;        // Current adjusted cost base for the shares
-    private final List<Transaction> history;  // A trading history for the security ordered by date
+    private long acb;          // Current adjusted cost base for the shares, in micro-cents
+    private final TransactionStore history;  // A trading history for the security ordered by date
+    private final List<Transaction> historyView;  // An unmodifiable list view of the history
+    private PersistentVector<Transaction> published;  // Detached copies of the history as of the last snapshot
+    private int dirtyFrom;     // The first row of the history that may differ from its published copy
+    private final StampedLock lock;  // Guards all of the above except the ticker
+    private volatile SecuritySnapshot snapshot;  // The snapshot of this as it is now, null once this has changed
+    private final PortfolioObserver observer;  // Told about changes to the history, null if there is none
+    private final Map<String, String> summaryLines;  // Summary lines of this by format, emptied when this changes
 
     public Security(String ticker) {
+        this(ticker, false);
+    }
+
+    // EFFECTS: Makes a new security.  A compact security keeps only the columns of its trading history and not the
+    //          Transaction objects added to it, transactions read back from it are detached copies
+    public Security(String ticker, boolean compact) {
+        this(ticker, compact, CostBasisMethod.AVERAGE_COST);
+    }
+
+    // EFFECTS: Makes a new security like Security(ticker, compact) that works out the cost of the shares given up in
+    //          each sale by the given method
+    public Security(String ticker, boolean compact, CostBasisMethod method) {
+        this(ticker, compact, method, null);
+    }
+
+    // EFFECTS: Makes a new security like Security(ticker, compact, method) that tells the observer about every change
+    //          to its history, or tells no one if observer is null
+    Security(String ticker, boolean compact, CostBasisMethod method, PortfolioObserver observer) {
         this.ticker = ticker;
+        this.observer = observer;
         this.shares = 0;
         this.acb = 0;
-        this.history = new ArrayList<>();
-
+        this.history = new TransactionStore(!compact, method);
+        this.historyView = new HistoryView();
+        this.published = PersistentVector.empty();
+        this.dirtyFrom = 0;
+        this.lock = new StampedLock();
+        this.summaryLines = new ConcurrentHashMap<>();
     }
 
     // REQUIRES: A transaction matching the security ticker
     // MODIFIES: this, transAdd
     // EFFECTS: Adds a new transaction to this and completes the transaction details for transAdd
-    //          Updates the trading history and the the holding details of this
+    //          Updates the trading history and the the holding details of this.  A transaction dated the same day
+    //          as others in the history is placed after them
     public void addTransaction(Transaction transAdd) {
-        // Start at the beginning of the history
-        int index = 0;
-        // Find the correct index to insert based on chronological order
-        while (index < history.size() && transAdd.getDate().compareTo(history.get(index).getDate()) > 0) {
-            index++;
+        long stamp = lock.writeLock();
+        try {
+            // Find the correct index to insert based on chronological order
+            int index = history.findInsertionIndex(transAdd.getEpochDay());
+            history.insert(index, transAdd);
+            // Update the security information
+            updateSecurity(index);
+            if (observer != null) {
+                observer.transactionAdded(transAdd);
+            }
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+    }
+
+    // REQUIRES: Transactions that all match the security ticker
+    // MODIFIES: this, transactions
+    // EFFECTS: Adds all of the transactions to this in chronological order and completes their details,
+    //          transactions sharing a date keep the order they were given in and follow any already in the history.
+    //          The transactions are sorted once and the history is only replayed once, from the earliest insertion
+    public void addAll(Collection<Transaction> transactions) {
+        if (transactions.isEmpty()) {
+            return;
+        }
+        List<Transaction> added = new ArrayList<>(transactions);
+        added.sort(DATE_ORDER);
+
+        long stamp = lock.writeLock();
+        try {
+            int index = history.findInsertionIndex(added.get(0).getEpochDay());
+            history.merge(index, added);
+            // Update the security information
+            updateSecurity(index);
+            notifyAdded(added);
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+    }
+
+    // EFFECTS: Tells the observer about each of the added transactions in the order they were placed in the history
+    private void notifyAdded(List<Transaction> added) {
+        if (observer != null) {
+            for (Transaction t : added) {
+                observer.transactionAdded(t);
+            }
         }
-        history.add(index, transAdd);
-        // Update the security information
-        updateSecurity(index);
     }
 
     // REQUIRES: the index of the transaction to remove
     // MODIFIES: this
     // EFFECTS: Removes a transaction and updates the trading history and security information
     public void removeTransaction(int index) {
-        history.remove(index);
-        // Update the security information
-        updateSecurity(index);
+        long stamp = lock.writeLock();
+        try {
+            history.remove(index);
+            // Update the security information
+            updateSecurity(index);
+            if (observer != null) {
+                observer.transactionRemoved(ticker, index);
+            }
+        } finally {
+            lock.unlockWrite(stamp);
+        }
     }
 
-
-    // REQUIRES: A valid index that is within the history list size 0 <= index <= history size
+    // REQUIRES: A valid index that is within the history list size 0 <= index <= history size, the write lock
     // MODIFIES: this
-    // EFFECTS: Updates history details and the new shares and acb balance for this starting at given index
+    // EFFECTS: Updates history details, the yearly gains and the new shares and acb balance for this starting at
+    //          given index.  The rows replayed are marked as changed since the last snapshot
     private void updateSecurity(int index) {
-        if (history.isEmpty()) {
-            this.shares = 0;
-            this.acb = 0;
-        } else {
-            updateSecurityHistory(index);
-            Transaction last = history.get(history.size() - 1);
-            this.shares = last.getNewTotalShares();
-            this.acb = last.getNewTotalACB();
-        }
+        dirtyFrom = Math.min(dirtyFrom, history.replay(index));
+        int last = history.size() - 1;
+        this.shares = last < 0 ? 0 : history.getTotalShares(last);
+        this.acb = last < 0 ? 0 : history.getTotalAcb(last);
+        snapshot = null;
+        summaryLines.clear();
+    }
 
+    // EFFECTS: Returns an unchanging copy of this as it is now that can be read on any thread without a lock.  The
+    //          same snapshot is returned until this changes.  A new one shares its history with the last one up to
+    //          the first changed row, so after adding a transaction near the end of the history only O(log n) work
+    //          is done for each row that changed.  A FIFO or highest cost first history also republishes the rows
+    //          back to the checkpoint its replay resumed from, about as many as there are lots held
+    public SecuritySnapshot snapshot() {
+        SecuritySnapshot current = snapshot;
+        if (current != null) {
+            return current;
+        }
+        long stamp = lock.writeLock();
+        try {
+            if (snapshot == null) {
+                publish();
+                snapshot = new SecuritySnapshot(ticker, shares, acb, published);
+            }
+            return snapshot;
+        } finally {
+            lock.unlockWrite(stamp);
+        }
     }
 
-    // REQUIRES: A valid index that is within the history list size 0 <= index <= history size
+    // REQUIRES: the write lock
     // MODIFIES: this
-    // EFFECTS: Updates history details starting at the given index
-    private void updateSecurityHistory(int index) {
-        if (index == 0) {
-            history.get(index).updateTransaction(0, 0);
-            index++;
+    // EFFECTS: Brings the published copy of the history up to date, replacing only the rows from dirtyFrom onward
+    private void publish() {
+        PersistentVector<Transaction> rows = published.truncate(Math.min(dirtyFrom, published.size()));
+
+        for (int row = rows.size(); row < history.size(); row++) {
+            rows = rows.append(history.detach(ticker, row));
+        }
+        published = rows;
+        dirtyFrom = history.size();
+    }
+
+    // EFFECTS: Returns the shares and acb held now, read together so they always match each other
+    public Position getPosition() {
+        long stamp = lock.tryOptimisticRead();
+        int currentShares = shares;
+        long currentAcb = acb;
+
+        if (!lock.validate(stamp)) {
+            stamp = lock.readLock();
+            try {
+                currentShares = shares;
+                currentAcb = acb;
+            } finally {
+                lock.unlockRead(stamp);
+            }
         }
-        while (index < history.size()) {
-            Transaction prev = history.get(index - 1);
-            history.get(index).updateTransaction(prev.getNewTotalShares(), prev.getNewTotalACB());
-            index++;
+        return new Position(ticker, currentShares, currentAcb);
+    }
+
+    // EFFECTS: Returns the shares and acb held at the end of the given date, found with a binary search of the
+    //          history.  Before the first transaction nothing is held
+    public Position positionAsOf(LocalDate date) {
+        long stamp = lock.readLock();
+        try {
+            int row = history.findInsertionIndex((int) date.toEpochDay()) - 1;
+
+            if (row < 0) {
+                return new Position(ticker, 0, 0);
+            }
+            return new Position(ticker, history.getTotalShares(row), history.getTotalAcb(row));
+        } finally {
+            lock.unlockRead(stamp);
+        }
+    }
+
+    // EFFECTS: Returns the shares and acb held after each transaction in the history, in chronological order
+    PositionSteps positionSteps() {
+        long stamp = lock.readLock();
+        try {
+            return history.steps();
+        } finally {
+            lock.unlockRead(stamp);
+        }
+    }
+
+    // REQUIRES: Sells that all match the security ticker
+    // EFFECTS: Returns what each sale would come to if it alone were added to this now, as completed copies in the
+    //          order given, with the gains, superficial loss, shares and acb after it.  Neither this nor the sales
+    //          are changed and nothing is replayed, each sale is worked out from the totals around its date in
+    //          O(log n), plus time in the lots held for a FIFO or highest cost first history.  Only the sale itself
+    //          is worked out, not its effect on any later transactions
+    public List<Transaction> simulateSales(List<Transaction> sales) {
+        List<Transaction> outcomes = new ArrayList<>(sales.size());
+        long stamp = lock.readLock();
+        try {
+            for (Transaction sale : sales) {
+                outcomes.add(history.simulateSale(ticker, sale));
+            }
+            return outcomes;
+        } finally {
+            lock.unlockRead(stamp);
+        }
+    }
+
+    // EFFECTS: Returns the number of sells in the history dated in the given year
+    public int getNumSales(int year) {
+        long stamp = lock.readLock();
+        try {
+            return history.getRollup().getNumSales(year);
+        } finally {
+            lock.unlockRead(stamp);
         }
     }
 
+    // EFFECTS: Returns the totals of the sells dated in the given year.  These are kept up to date as the history
+    //          changes, so no sells are looked at
+    public YearlyGains getGains(int year) {
+        long stamp = lock.readLock();
+        try {
+            return history.getRollup().get(year);
+        } finally {
+            lock.unlockRead(stamp);
+        }
+    }
+
+    // EFFECTS: Returns the totals of the sells in each year that has any, in ascending order of year
+    public List<YearlyGains> getYearlyGains() {
+        long stamp = lock.readLock();
+        try {
+            return history.getRollup().getAll();
+        } finally {
+            lock.unlockRead(stamp);
+        }
+    }
+
+    // EFFECTS: Returns the sells dated in the given year in chronological order.  Only the rows in that year are
+    //          looked at, found with a binary search of the history, and none at all if the year has no sells
+    public List<Transaction> getSales(int year) {
+        long stamp = lock.readLock();
+        try {
+            int numSales = history.getRollup().getNumSales(year);
+            List<Transaction> sales = new ArrayList<>(numSales);
+            if (numSales == 0) {
+                return sales;
+            }
+            int end = history.firstRowOnOrAfter((int) LocalDate.of(year + 1, 1, 1).toEpochDay());
+
+            for (int row = history.firstRowOnOrAfter((int) LocalDate.of(year, 1, 1).toEpochDay()); row < end; row++) {
+                if (history.isSell(row)) {
+                    sales.add(history.get(ticker, row));
+                }
+            }
+            return sales;
+        } finally {
+            lock.unlockRead(stamp);
+        }
+    }
+
+    // EFFECTS: Returns a summary line for this made from the format, which is given the ticker, shares, acb in dollars
+    //          and number of transactions in that order.  The line is only formatted again once this has changed
+    public String getSummaryLine(String format) {
+        long stamp = lock.readLock();
+        try {
+            // Formatting under the read lock keeps a line from an older history from being cached after a change
+            return summaryLines.computeIfAbsent(format,
+                f -> formatSummary(f, ticker, shares, acb, history.size()));
+        } finally {
+            lock.unlockRead(stamp);
+        }
+    }
+
+    // EFFECTS: Returns a summary line for a holding with the given details and acb in micro-cents, see getSummaryLine
+    static String formatSummary(String format, String ticker, int shares, long acb, int transactions) {
+        return String.format(format, ticker, shares, DollarFormat.format(acb), transactions);
+    }
+
     // EFFECTS: Returns a record of all the transactions for a security in String form organised by Date
     protected List<String> getTransactionRecord() {
         List<String> output = new ArrayList<>();
 
-        for (Transaction t : history) {
+        for (Transaction t : copyHistory()) {
             output.add(t.toString());
         }
         return output;
     }
 
+    // EFFECTS: Returns a copy of the trading history as it is now, in chronological order.  Unlike the list views
+    //          this will not change or fail part way through if another thread changes the security
+    public List<Transaction> copyHistory() {
+        long stamp = lock.readLock();
+        try {
+            List<Transaction> copy = new ArrayList<>(history.size());
+            for (int row = 0; row < history.size(); row++) {
+                copy.add(history.get(ticker, row));
+            }
+            return copy;
+        } finally {
+            lock.unlockRead(stamp);
+        }
+    }
+
+    // EFFECTS: Passes each transaction of the history to action in chronological order, holding the read lock
+    //          throughout so the history can not change part way through.  Unlike copyHistory no list of the whole
+    //          history is made, a compact history makes each transaction only as it is passed on
+    public void forEachTransaction(Consumer<? super Transaction> action) {
+        long stamp = lock.readLock();
+        try {
+            for (int row = 0; row < history.size(); row++) {
+                action.accept(history.get(ticker, row));
+            }
+        } finally {
+            lock.unlockRead(stamp);
+        }
+    }
+
+    // EFFECTS: Returns an unmodifiable view of the history.  Each call on the view is safe on its own, but looping
+    //          over it while another thread changes this can fail, see copyHistory.  A compact security makes a new
+    //          detached transaction on every get, so a loop over a long history should use forEachTransaction
     public List<Transaction> getTransactionList() {
-        return Collections.unmodifiableList(history);
+        return historyView;
     }
 
     protected List<Transaction> getHistory() {
-        return history;
+        return historyView;
     }
 
     public String getTicker() {
         return ticker;
     }
 
+    // EFFECTS: Returns true if the security trades in USD, taken from the currency of its most recent trade or return
+    //          of capital.  A security with none is taken to trade in CAD
+    public boolean tradesInUsd() {
+        long stamp = lock.readLock();
+        try {
+            return history.lastIsUsd();
+        } finally {
+            lock.unlockRead(stamp);
+        }
+    }
+
     public double getAcb() {
-        return acb;
+        return getPosition().getAcb();
     }
 
     public int getShares() {
-        return shares;
+        long stamp = lock.tryOptimisticRead();
+        int currentShares = shares;
+
+        if (!lock.validate(stamp)) {
+            stamp = lock.readLock();
+            try {
+                currentShares = shares;
+            } finally {
+                lock.unlockRead(stamp);
+            }
+        }
+        return currentShares;
     }
 
     public int getNumTransactions() {
-        return history.size();
+        return historyView.size();
+    }
+
+    public CostBasisMethod getCostBasisMethod() {
+        return history.getCostBasisMethod();
+    }
+
+    // EFFECTS: returns true if this keeps only the columns of its history and not the Transaction objects
+    public boolean isCompact() {
+        return !history.isRetainingObjects();
     }
 
 
     // EFFECTS: returns a string with the basic details of this, name, shares, acb, and number of transactions
     @Override
     public String toString() {
-        return ("Name: " + ticker + " Shares: " + shares + " ACB: "
-                + DOLLAR_FORMAT.format(acb) + " Transactions: " + history.size());
+        long stamp = lock.readLock();
+        try {
+            return ("Name: " + ticker + " Shares: " + shares + " ACB: "
+                    + DollarFormat.format(acb) + " Transactions: " + history.size());
+        } finally {
+            lock.unlockRead(stamp);
+        }
     }
 
     @Override
@@ -131,5 +435,31 @@ public class Security implements Writable {
         return json;
     }
 
-}
+    // An unmodifiable list of the transactions in the history, in chronological order
+    private class HistoryView extends AbstractList<Transaction> {
+
+        @Override
+        public Transaction get(int index) {
+            long stamp = lock.readLock();
+            try {
+                if (index < 0 || index >= history.size()) {
+                    throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + history.size());
+                }
+                return history.get(ticker, index);
+            } finally {
+                lock.unlockRead(stamp);
+            }
+        }
 
+        @Override
+        public int size() {
+            long stamp = lock.readLock();
+            try {
+                return history.size();
+            } finally {
+                lock.unlockRead(stamp);
+            }
+        }
+    }
+
+}
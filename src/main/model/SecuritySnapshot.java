@@ -0,0 +1,108 @@
+package model;
+
+import java.time.LocalDate;
+import java.util.AbstractList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+// An unchanging copy of a security as it was at one moment, made by Security.snapshot.  It can be read on any thread
+// without a lock while the security goes on changing.  The trading history is a persistent vector shared with the
+// snapshots before and after it, and its transactions are detached copies that never change
+public final class SecuritySnapshot {
+    private final String ticker;
+    private final int shares;
+    private final long acb;             // in micro-cents
+    private final PersistentVector<Transaction> history;
+    private final List<Transaction> historyView;
+    private final Map<String, String> summaryLines;  // Summary lines of this by format, made when first asked for
+
+    // EFFECTS: Makes a snapshot of a security with the given details and chronological history
+    SecuritySnapshot(String ticker, int shares, long acb, PersistentVector<Transaction> history) {
+        this.ticker = ticker;
+        this.shares = shares;
+        this.acb = acb;
+        this.history = history;
+        this.historyView = new HistoryView();
+        this.summaryLines = new ConcurrentHashMap<>();
+    }
+
+    public String getTicker() {
+        return ticker;
+    }
+
+    public int getShares() {
+        return shares;
+    }
+
+    public double getAcb() {
+        return Money.toDouble(acb);
+    }
+
+    // EFFECTS: Returns the shares and acb held when the snapshot was made
+    public Position getPosition() {
+        return new Position(ticker, shares, acb);
+    }
+
+    public int getNumTransactions() {
+        return history.size();
+    }
+
+    // EFFECTS: Returns a summary line for this made from the format, see Security.getSummaryLine.  A security hands
+    //          out the same snapshot until it changes, so the line is only formatted again for changed securities
+    public String getSummaryLine(String format) {
+        return summaryLines.computeIfAbsent(format,
+            f -> Security.formatSummary(f, ticker, shares, acb, history.size()));
+    }
+
+    // EFFECTS: Returns an unmodifiable list of the transactions in the history, in chronological order
+    public List<Transaction> getTransactionList() {
+        return historyView;
+    }
+
+    // EFFECTS: Returns the shares and acb held at the end of the given date, found with a binary search of the
+    //          history.  Before the first transaction nothing is held
+    public Position positionAsOf(LocalDate date) {
+        int epochDay = (int) date.toEpochDay();
+        int low = 0;
+        int high = history.size();
+
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (epochDay >= history.get(mid).getEpochDay()) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        if (low == 0) {
+            return new Position(ticker, 0, 0);
+        }
+        Transaction last = history.get(low - 1);
+        return new Position(ticker, last.getNewTotalShares(), last.getNewTotalAcbMicros());
+    }
+
+    // EFFECTS: returns a string with the basic details of this, name, shares, acb, and number of transactions
+    @Override
+    public String toString() {
+        return ("Name: " + ticker + " Shares: " + shares + " ACB: "
+                + DollarFormat.format(acb) + " Transactions: " + history.size());
+    }
+
+    // An unmodifiable list of the transactions in the history, in chronological order
+    private class HistoryView extends AbstractList<Transaction> {
+
+        @Override
+        public Transaction get(int index) {
+            if (index < 0 || index >= history.size()) {
+                throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + history.size());
+            }
+            return history.get(index);
+        }
+
+        @Override
+        public int size() {
+            return history.size();
+        }
+    }
+}
@@ -4,68 +4,98 @@ package model;
 import org.json.JSONObject;
 import persistence.Writable;
 
-import java.util.Calendar;
+import java.time.LocalDate;
+import java.time.format.TextStyle;
+import java.util.Locale;
 
-import static ui.console.JCapTrack.DOLLAR_FORMAT;
-
-// Represents a recorded transaction for a security including all of the relevant information at the time it occurs
+// Represents a recorded transaction for a security including all of the relevant information at the time it occurs.
+// Most are trades, but a transaction can also be a corporate action, see TransactionType
 public class Transaction implements Writable {
 
 
     private final String ticker;        // Name of Security
-    private final Calendar date;        // Date of transaction
+    private final int date;             // Date of transaction as a count of days since 1970-01-01
+    private final TransactionType type;
     private final boolean isSell;       // true for Sell
 
-    private final double value;         // Trade value in CAD or USD
+    private final long value;           // Trade value in CAD or USD, in micro-cents
     private final boolean isUSD;        // true for USD
 
-    private final double fxRate;        // The USD to CAD exchange rate on the date of transaction
-    private final int shares;           // The number of shares exchanged
-    private final double commission;    // The commission charged by brokerage
-    private double gains;         // Any capital gains or losses incurred *Always in CAD*
+    private final long fxRate;          // The USD to CAD exchange rate on the date of transaction, in millionths
+    private final int shares;           // The number of shares exchanged, or after a split for every splitFrom
+    private final int splitFrom;        // The number of shares before a split for every shares after, 0 otherwise
+    private final long commission;      // The commission charged by brokerage, in micro-cents
+    private long gains;           // Any capital gains or losses incurred *Always in CAD*, in micro-cents
     private int newTotalShares;   // The new total for shares of the security after this transaction
-    private double newTotalACB;      // The new ACB for the security after this transaction *always in CAD*
+    private long newTotalACB;     // The new ACB for the security after this transaction *always in CAD*, in micro-cents
+    private long superficialLoss; // Any loss denied as superficial and added to the ACB *Always in CAD*, in micro-cents
 
     // REQUIRES: - type matches an index from the TYPE_OF_TRANSACTION array
     //           - date is today or earlier
     //           - val >= 0
     //           - shares > 0
     //           - commission >= 0
-    // EFFECTS: Makes a new transaction
-    public Transaction(String ticker, Calendar date, boolean type, double val,
+    // EFFECTS: Makes a new transaction, dollar amounts are rounded to the nearest micro-cent
+    public Transaction(String ticker, LocalDate date, boolean type, double val,
                        boolean fx, double rate, int shares, double commission) {
+        this(ticker, (int) date.toEpochDay(), type, Money.of(val),
+                fx, Money.rateOf(rate), shares, Money.of(commission));
+    }
+
+    // EFFECTS: Makes a new transaction dated by a count of days since 1970-01-01 from fixed point amounts
+    Transaction(String ticker, int epochDay, boolean type, long val,
+                boolean fx, long rate, int shares, long commission) {
+        this(ticker, epochDay, type ? TransactionType.SELL : TransactionType.BUY, val, fx, rate, shares, 0,
+                commission);
+    }
+
+    // EFFECTS: Makes a new transaction of any type dated by a count of days since 1970-01-01 from fixed point
+    //          amounts
+    Transaction(String ticker, int epochDay, TransactionType type, long val,
+                boolean fx, long rate, int shares, int splitFrom, long commission) {
         this.ticker = ticker;
-        this.date = date;
-        isSell = type;
+        this.date = epochDay;
+        this.type = type;
+        isSell = type == TransactionType.SELL;
         value = val;
         isUSD = fx;
         fxRate = rate;
         this.shares = shares;
+        this.splitFrom = splitFrom;
         this.commission = commission;
     }
 
-    // REQUIRES: acb values are always in CAD
+    // REQUIRES: sharesAfter > 0, sharesBefore > 0
+    // EFFECTS: Makes a split of every sharesBefore shares held into sharesAfter shares, a consolidation if there
+    //          are fewer after than before.  Any fraction of a share left over is dropped
+    public static Transaction split(String ticker, LocalDate date, int sharesAfter, int sharesBefore) {
+        return new Transaction(ticker, (int) date.toEpochDay(), TransactionType.SPLIT, 0, false, 0, sharesAfter,
+                sharesBefore, 0);
+    }
+
+    // REQUIRES: amount > 0
+    // EFFECTS: Makes a return of capital paying the given amount in total for all of the shares held
+    public static Transaction returnOfCapital(String ticker, LocalDate date, double amount, boolean fx, double rate) {
+        return new Transaction(ticker, (int) date.toEpochDay(), TransactionType.RETURN_OF_CAPITAL, Money.of(amount),
+                fx, Money.rateOf(rate), 0, 0, 0);
+    }
+
+    // EFFECTS: Returns the number of shares that held shares become in a split of every splitFrom shares into
+    //          shares, rounded down to whole shares
+    static int splitShares(int held, int shares, int splitFrom) {
+        return (int) ((long) held * shares / splitFrom);
+    }
+
     // MODIFIES: this
-    // EFFECTS:  Updates the capital gains and total shares/acb fields based on past transaction history
-    protected void updateTransaction(int prevShares, double prevACB) {
-        double val = value;
-        double com = commission;
-        if (isUSD) {
-            val *= fxRate;  // CAD conversion
-            com *= fxRate;  // CAD conversion
-        }
-        if (isSell) {
-            gains = val - com - (prevACB / prevShares) * this.shares;  // CAD
-            newTotalShares = prevShares - this.shares;
-            newTotalACB = (prevACB * (prevShares - shares)) / prevShares; // CAD
-        } else {
-            gains = 0; // This is essentially null, there are no gains for a buy trade
-            newTotalShares = prevShares + this.shares;
-            newTotalACB = prevACB + val + com;  // The adjusted cost base has the cost of shares and commission added
-        }
+    // EFFECTS:  Sets the capital gains, total shares/acb and superficial loss fields to values worked out by the
+    //           security history
+    void complete(long gains, int newTotalShares, long newTotalACB, long superficialLoss) {
+        this.gains = gains;
+        this.newTotalShares = newTotalShares;
+        this.newTotalACB = newTotalACB;
+        this.superficialLoss = superficialLoss;
     }
 
-    //TODO Add a superficial loss/gain rule if possible
     //A superficial loss can occur when you dispose of capital property for a loss and both of the following conditions
     // are met: ... You, or a person affiliated with you, still owns, or has a right to buy,
     // the substituted property 30 calendar days after the sale
@@ -86,20 +116,38 @@ public class Transaction implements Writable {
     // and he still owned the investments 30 days after the sale,
     // Kyle has a superficial loss of $3,000 ($7,000 – $10,000).
     // The $3,000 capital loss is then added to the ACB of the newly acquired units.
+    //
+    // The security history applies this rule when it is replayed, see TransactionStore.  Only the part of a loss
+    // covered by the least of the shares sold, the shares bought in the 61 day period and the shares held at the end
+    // of it is denied.  The denied loss joins the ACB right after the sale
 
-    public Calendar getDate() {
+    public LocalDate getDate() {
+        return LocalDate.ofEpochDay(date);
+    }
+
+    // EFFECTS: Returns the date of this as a count of days since 1970-01-01, for cheap ordering comparisons
+    public int getEpochDay() {
         return date;
     }
 
+    // EFFECTS: Returns true for a sell, false for a buy or a corporate action
     public boolean getBuyOrSell() {
         return isSell;
     }
 
+    public TransactionType getType() {
+        return type;
+    }
+
     public String getSecurity() {
         return ticker;
     }
 
     public double getValue() {
+        return Money.toDouble(value);
+    }
+
+    long getValueMicros() {
         return value;
     }
 
@@ -108,6 +156,10 @@ public class Transaction implements Writable {
     }
 
     public double getFxRate() {
+        return Money.rateToDouble(fxRate);
+    }
+
+    long getFxRateMicros() {
         return fxRate;
     }
 
@@ -115,19 +167,41 @@ public class Transaction implements Writable {
         return shares;
     }
 
+    // EFFECTS: Returns the number of shares before a split for every getShares() after it, 0 if this is not a split
+    public int getSplitFrom() {
+        return splitFrom;
+    }
+
     public double getCommission() {
+        return Money.toDouble(commission);
+    }
+
+    long getCommissionMicros() {
         return commission;
     }
 
     public double getGains() {
+        return Money.toDouble(gains);
+    }
+
+    long getGainsMicros() {
         return gains;
     }
 
+    // EFFECTS: Returns the part of the loss on a sale that was denied as superficial, zero if there was none
+    public double getSuperficialLoss() {
+        return Money.toDouble(superficialLoss);
+    }
+
     public int getNewTotalShares() {
         return newTotalShares;
     }
 
     public double getNewTotalACB() {
+        return Money.toDouble(newTotalACB);
+    }
+
+    long getNewTotalAcbMicros() {
         return newTotalACB;
     }
 
@@ -138,21 +212,41 @@ public class Transaction implements Writable {
     //          -Value
     //          -Commission
     public String toString() {
-        String currency = "CAD";
-        String type = "Buy";
-        if (isUSD) {
-            currency = "USD";
+        String currency = isUSD ? " USD" : " CAD";
+        StringBuilder out = new StringBuilder(160);
+
+        appendDate(out.append("Date: "));
+        appendDetails(out.append('\n'));
+        DollarFormat.append(out.append("\nValue: "), value).append(currency);
+        DollarFormat.append(out.append("\nCommission: "), commission).append(currency);
+        DollarFormat.append(out.append("\nGains: "), gains);
+        if (superficialLoss != 0) {
+            DollarFormat.append(out.append("\nSuperficial Loss: "), superficialLoss);
         }
-        if (isSell) {
-            type = "Sell";
+        out.append("\nTotalShares: ").append(newTotalShares);
+        DollarFormat.append(out.append("\nACB: "), newTotalACB).append(" CAD");
+        return out.toString();
+    }
+
+    // MODIFIES: out
+    // EFFECTS: Appends what this did to out, such as Buy 10 shares of BNS or Split 2 for 1 of BNS
+    private void appendDetails(StringBuilder out) {
+        if (type == TransactionType.SPLIT) {
+            out.append("Split ").append(shares).append(" for ").append(splitFrom).append(" of ").append(ticker);
+        } else if (type == TransactionType.RETURN_OF_CAPITAL) {
+            out.append("Return of capital on ").append(ticker);
+        } else {
+            out.append(type).append(' ').append(shares).append(" shares of ").append(ticker);
         }
-        return String.format("Date: %1$tY-%1$tB-%1$td\n"
-                + type + " " + shares + " shares of " + ticker + "\n"
-                + "Value: " + DOLLAR_FORMAT.format(value) + " " + currency + "\n"
-                + "Commission: " + DOLLAR_FORMAT.format(commission) + " " + currency
-                + "\nGains: " + DOLLAR_FORMAT.format(gains)
-                + "\nTotalShares: " + newTotalShares
-                + "\nACB: " + DOLLAR_FORMAT.format(getNewTotalACB()) + " CAD", date);
+    }
+
+    // MODIFIES: out
+    // EFFECTS: Appends the date of this to out as year-month name-day, such as 2020-June-05
+    private void appendDate(StringBuilder out) {
+        LocalDate day = getDate();
+        out.append(day.getYear()).append('-');
+        out.append(day.getMonth().getDisplayName(TextStyle.FULL, Locale.getDefault(Locale.Category.FORMAT)));
+        out.append(day.getDayOfMonth() < 10 ? "-0" : "-").append(day.getDayOfMonth());
     }
 
     public JSONObject toJson() {
@@ -160,19 +254,26 @@ public class Transaction implements Writable {
         json.put("ticker", ticker);
         toJsonDate(json);
         json.put("isSell", isSell);
-        json.put("value", value);
+        json.put("value", getValue());
         json.put("isUSD", isUSD);
-        json.put("fxRate", fxRate);
+        json.put("fxRate", getFxRate());
         json.put("shares", shares);
-        json.put("commission", commission);
+        json.put("commission", getCommission());
+        if (type.isCorporateAction()) {
+            // Trades are told apart by isSell alone, as they were before corporate actions
+            json.put("type", type.name());
+            json.put("splitFrom", splitFrom);
+        }
 
         return json;
     }
 
+    // EFFECTS: Adds the date to json as year, month and day fields, months are saved from 0-11
     private void toJsonDate(JSONObject json) {
-        int year = date.get(Calendar.YEAR);
-        int month = date.get(Calendar.MONTH);
-        int day = date.get(Calendar.DAY_OF_MONTH);
+        LocalDate localDate = getDate();
+        int year = localDate.getYear();
+        int month = localDate.getMonthValue() - 1;
+        int day = localDate.getDayOfMonth();
 
         json.put("year", year);
         json.put("month", month);
@@ -0,0 +1,710 @@
+package model;
+
+import java.time.LocalDate;
+import java.util.Arrays;
+import java.util.List;
+
+// The trading history of a single security held as columns of primitive arrays, one row per transaction in
+// chronological order.  Replaying the share and ACB totals runs straight down the arrays instead of following a
+// pointer to every transaction.  Superficial losses are found in the same replay with a sliding window over the
+// rows within 30 days either side of each losing sale, see replayAcbs.  Dollar amounts are fixed point micro-cents,
+// see Money.  The cost of the shares given up in each sale is worked out by a CostBasis, which is the average cost
+// unless another is chosen.  Splits and returns of capital are rows like any other, told apart by their flags, so the
+// replay handles them in the same pass.  The gains of each year are rolled up at the end of each replay, see
+// GainsRollup.  The store can optionally keep the Transaction objects it was given so that their details stay up to
+// date, otherwise rows are handed out as detached views
+class TransactionStore {
+    private static final int INITIAL_CAPACITY = 8;
+    private static final byte SELL = 1;       // flag bit set for a sell
+    private static final byte USD = 1 << 1;   // flag bit set for a USD trade
+    private static final byte SPLIT = 1 << 2; // flag bit set for a split or consolidation
+    private static final byte RETURN_OF_CAPITAL = 1 << 3;  // flag bit set for a return of capital
+    private static final byte NOT_BUY = SELL | SPLIT | RETURN_OF_CAPITAL;  // a buy has none of these bits
+    private static final int SUPERFICIAL_DAYS = 30;  // days either side of a sale for a superficial repurchase
+    private static final int CHECKPOINT_ROWS = 64;   // the fewest rows between checkpoints of the lots held
+    private static final int SHARES_BLOCK = 512;     // the rows of total shares replayed at a time ahead of the ACB
+
+    private final boolean retainObjects;  // true if the Transaction objects added are kept and updated
+    private final CostBasisMethod method;  // the method basis works out costs by
+    private CostBasis basis;              // works out the cost of the shares given up in each sale
+    private final GainsRollup rollup;     // derived, the totals of the sales in each year
+
+    private int size;
+    private int[] dates;               // epoch days
+    private byte[] flags;              // SELL, USD, SPLIT and RETURN_OF_CAPITAL bits
+    private long[] values;             // micro-cents, or for a split the shares before it for every shares after
+    private long[] fxRates;            // millionths
+    private int[] shares;              // for a split the shares after it for every shares before
+    private long[] commissions;        // micro-cents
+    private long[] cadValues;          // the value in CAD micro-cents, converted once when the row is written
+    private long[] cadCommissions;     // the commission in CAD micro-cents, converted once when the row is written
+    private long[] gains;              // derived, CAD micro-cents
+    private int[] totalShares;         // derived
+    private int[] totalBought;         // derived, shares bought in this row and every row before it, counted in the
+                                       // shares of this row so that each split scales the purchases before it
+    private long[] totalAcbs;          // derived, CAD micro-cents
+    private long[] deniedLosses;       // derived, superficial loss of a sale added back to the ACB, CAD micro-cents
+    private Transaction[] objects;     // the added transactions when they are retained, otherwise null
+
+    // The window of rows dated within SUPERFICIAL_DAYS of the sale being replayed, rows windowLow to windowHigh - 1
+    private int windowLow;
+    private int windowHigh;
+    private int windowBought;          // shares bought in the window, in the shares of row windowHigh - 1
+    private int windowSplits;          // splits in the window
+    private int sharesEnd;             // the rows before this one have had their total shares replayed
+
+    // The rows that are splits, ascending, so that a window without one can skip rescaling.  Splits are rare
+    private int[] splitRows = new int[INITIAL_CAPACITY];
+    private int splitCount;
+
+    // Copies of the lots held before some of the rows, when the cost basis holds lots.  The first is always before
+    // row 0.  A checkpoint is only taken once the rows since the last one are at least the lots held, so all of the
+    // copies together hold no more lots than there are rows, and resuming from one replays about as many rows as
+    // there are lots held
+    private int[] checkpointRows;      // the row each checkpoint is before, ascending
+    private CostBasis[] checkpoints;
+    private int checkpointCount;
+
+    // EFFECTS: Makes an empty store that works out costs by the average cost, keeping the Transaction objects added
+    //          to it if retainObjects is true
+    TransactionStore(boolean retainObjects) {
+        this(retainObjects, CostBasisMethod.AVERAGE_COST);
+    }
+
+    // EFFECTS: Makes an empty store that works out costs by the given method, keeping the Transaction objects added
+    //          to it if retainObjects is true
+    TransactionStore(boolean retainObjects, CostBasisMethod method) {
+        this.retainObjects = retainObjects;
+        this.method = method;
+        this.basis = method.newCostBasis();
+        this.rollup = new GainsRollup();
+        checkpointRows = new int[INITIAL_CAPACITY];
+        checkpoints = new CostBasis[INITIAL_CAPACITY];
+        checkpoints[0] = basis.copy();
+        checkpointCount = 1;
+        size = 0;
+        allocate(INITIAL_CAPACITY);
+    }
+
+    int size() {
+        return size;
+    }
+
+    boolean isRetainingObjects() {
+        return retainObjects;
+    }
+
+    CostBasisMethod getCostBasisMethod() {
+        return method;
+    }
+
+    // EFFECTS: Returns the index of the first row dated after the given epoch day
+    int findInsertionIndex(int epochDay) {
+        int low = 0;
+        int high = size;
+
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (epochDay >= dates[mid]) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+
+    // REQUIRES: 0 <= row <= size, and t belongs at row in chronological order
+    // MODIFIES: this
+    // EFFECTS: Inserts the transaction as a new row, shifting the later rows down.  Derived columns are not updated
+    void insert(int row, Transaction t) {
+        ensureCapacity(size + 1);
+        move(row, row + 1, size - row);
+        write(row, t);
+        size++;
+    }
+
+    // REQUIRES: added is in chronological order and none of it is dated before row from
+    // MODIFIES: this
+    // EFFECTS: Merges the added transactions into the rows from the given index onward, working back from the end
+    //          so that no row is moved more than once.  On equal dates the existing rows stay first.
+    //          Derived columns are not updated
+    void merge(int from, List<Transaction> added) {
+        ensureCapacity(size + added.size());
+        int existing = size - 1;
+        int next = added.size() - 1;
+        int write = size + added.size() - 1;
+
+        while (next >= 0) {
+            Transaction t = added.get(next);
+            if (existing >= from && dates[existing] > t.getEpochDay()) {
+                move(existing--, write--, 1);
+            } else {
+                write(write--, t);
+                next--;
+            }
+        }
+        size += added.size();
+    }
+
+    // REQUIRES: 0 <= row < size
+    // MODIFIES: this
+    // EFFECTS: Removes a row, shifting the later rows up.  Derived columns are not updated
+    void remove(int row) {
+        move(row + 1, row, size - row - 1);
+        size--;
+        if (retainObjects) {
+            objects[size] = null;
+        }
+    }
+
+    // REQUIRES: 0 <= from <= size
+    // MODIFIES: this
+    // EFFECTS: Recomputes the gains, total shares and total ACB of every row from the given row onward, in CAD.
+    //          Under the average cost, sales in the 30 days before the row are replayed as well since the row may
+    //          make them superficial.  A cost basis holding lots resumes from the last checkpoint at or before the
+    //          row instead, which is about as many rows back as there are lots held.  Retained transactions are then
+    //          given their updated details and the yearly gains are rolled up again from the first row replayed.
+    //          Returns that row
+    int replay(int from) {
+        int start = from;
+        if (from > 0 && basis.deniesSuperficialLosses()) {
+            start = firstRowOnOrAfter(dates[from - 1] - SUPERFICIAL_DAYS);
+        }
+        start = resume(start);
+        replayCosts(start);
+        updateObjects(start);
+        rollUp(start);
+        return start;
+    }
+
+    // REQUIRES: 0 <= from <= size, and the cost basis is set up for a replay from the row
+    // MODIFIES: this
+    // EFFECTS: Recomputes the total shares, gains and total ACB of every row from the given row onward, denying any
+    //          superficial losses, without updating retained transactions or the yearly gains.  The steps of replay
+    //          are package-private so that AcbReplayBenchmark can time them apart
+    void replayCosts(int from) {
+        sharesEnd = from;
+        splitCount = firstSplitFrom(from);
+        replayAcbs(from);
+    }
+
+    // MODIFIES: this
+    // EFFECTS: Sums the sales and any gains on returns of capital again into the yearly gains for the year of the row
+    //          before the given row and every year after it.  Only rows from the given row on have changed, so
+    //          earlier years are kept as they are
+    void rollUp(int from) {
+        int row = 0;
+        if (from > 0) {
+            int year = LocalDate.ofEpochDay(dates[from - 1]).getYear();
+            rollup.clearFrom(year);
+            row = firstRowOnOrAfter((int) LocalDate.of(year, 1, 1).toEpochDay());
+        } else {
+            rollup.clearFrom(Integer.MIN_VALUE);
+        }
+        int year = 0;
+        int nextYear = Integer.MIN_VALUE;  // the first day of the year after the one the last gain was in
+        for (; row < size; row++) {
+            // Only sales and returns of capital have gains
+            if ((flags[row] & SELL) != 0 || gains[row] != 0) {
+                if (dates[row] >= nextYear) {
+                    year = LocalDate.ofEpochDay(dates[row]).getYear();
+                    nextYear = (int) LocalDate.of(year + 1, 1, 1).toEpochDay();
+                }
+                rollUpRow(row, year);
+            }
+        }
+    }
+
+    // MODIFIES: this
+    // EFFECTS: Adds the sale or return of capital in the row to the yearly gains of the given year
+    private void rollUpRow(int row, int year) {
+        if ((flags[row] & SELL) != 0) {
+            rollup.addSale(year, cadValues[row], cadCommissions[row], deniedLosses[row], gains[row]);
+        } else {
+            rollup.addGain(year, gains[row]);
+        }
+    }
+
+    // EFFECTS: Returns the totals of the sales in each year
+    GainsRollup getRollup() {
+        return rollup;
+    }
+
+    // EFFECTS: Returns the index of the first row dated on or after the given epoch day
+    int firstRowOnOrAfter(int epochDay) {
+        return findInsertionIndex(epochDay - 1);
+    }
+
+    // REQUIRES: sharesEnd <= end <= size
+    // MODIFIES: this
+    // EFFECTS: Recomputes the total shares of the rows from sharesEnd up to the given row.  These are needed ahead of
+    //          the ACB so that a sale can see the shares still held 30 days after it.  Splits are the only rows
+    //          branched on, as they are rare and the mix of buys and sales is not
+    private void replaySharesTo(int end) {
+        int prevShares = sharesEnd == 0 ? 0 : totalShares[sharesEnd - 1];
+        int prevBought = sharesEnd == 0 ? 0 : totalBought[sharesEnd - 1];
+        for (int row = sharesEnd; row < end; row++) {
+            if ((flags[row] & SPLIT) != 0) {
+                prevShares = Transaction.splitShares(prevShares, shares[row], (int) values[row]);
+                prevBought = Transaction.splitShares(prevBought, shares[row], (int) values[row]);
+                addSplitRow(row);
+            } else {
+                int bought = (flags[row] & NOT_BUY) == 0 ? shares[row] : 0;
+                prevShares += (flags[row] & SELL) != 0 ? -shares[row] : bought;
+                prevBought += bought;
+            }
+            totalShares[row] = prevShares;
+            totalBought[row] = prevBought;
+        }
+        sharesEnd = end;
+    }
+
+    // MODIFIES: this
+    // EFFECTS: Recomputes the gains and total ACB of every row from the given row onward in a single pass.  The
+    //          window of rows within 30 days of a sale only ever moves forward, so the pass is linear in the rows.
+    //          The total shares are replayed SHARES_BLOCK rows at a time just ahead of the rows that read them, and
+    //          further ahead when a sale's window needs them, so they are still in the cache when they are read
+    private void replayAcbs(int from) {
+        long prevAcb = from == 0 ? 0 : totalAcbs[from - 1];
+        int prevShares = from == 0 ? 0 : totalShares[from - 1];
+        int windowStart = from == size ? from : firstRowOnOrAfter(dates[from] - SUPERFICIAL_DAYS);
+        windowLow = windowStart;
+        windowHigh = windowStart;
+        windowBought = 0;
+        windowSplits = 0;
+        boolean holdsLots = basis.holdsLots();
+        for (int row = from; row < size; row++) {
+            if (row == sharesEnd) {
+                replaySharesTo(Math.min(size, row + SHARES_BLOCK));
+            }
+            replayRow(row, prevShares, prevAcb);
+            prevShares = totalShares[row];
+            prevAcb = totalAcbs[row];
+            if (holdsLots) {
+                checkpoint(row + 1);
+            }
+        }
+    }
+
+    // MODIFIES: this
+    // EFFECTS: Sets the cost basis up for a replay from the given row and returns the row the replay must start at.
+    //          A cost basis holding lots resumes from a copy of the last checkpoint at or before the row, and the
+    //          checkpoints after it are dropped as the rows they follow may have changed
+    private int resume(int row) {
+        if (!basis.holdsLots()) {
+            return row;
+        }
+        int checkpoint = lastCheckpointAtOrBefore(row);
+        Arrays.fill(checkpoints, checkpoint + 1, checkpointCount, null);
+        checkpointCount = checkpoint + 1;
+        basis = checkpoints[checkpoint].copy();
+        return checkpointRows[checkpoint];
+    }
+
+    // MODIFIES: this
+    // EFFECTS: Keeps a copy of the lots held before the given row if the rows since the last checkpoint are at least
+    //          CHECKPOINT_ROWS and at least the lots held
+    private void checkpoint(int row) {
+        int since = row - checkpointRows[checkpointCount - 1];
+        if (since < CHECKPOINT_ROWS || since < basis.lotCount()) {
+            return;
+        }
+        if (checkpointCount == checkpoints.length) {
+            checkpointRows = Arrays.copyOf(checkpointRows, checkpointCount * 2);
+            checkpoints = Arrays.copyOf(checkpoints, checkpointCount * 2);
+        }
+        checkpointRows[checkpointCount] = row;
+        checkpoints[checkpointCount++] = basis.copy();
+    }
+
+    // EFFECTS: Returns the index of the last checkpoint taken before the given row or an earlier one
+    private int lastCheckpointAtOrBefore(int row) {
+        int low = 0;
+        int high = checkpointCount - 1;
+
+        while (low < high) {
+            int mid = (low + high + 1) >>> 1;
+            if (checkpointRows[mid] <= row) {
+                low = mid;
+            } else {
+                high = mid - 1;
+            }
+        }
+        return low;
+    }
+
+    // MODIFIES: this
+    // EFFECTS: Computes the gains and ACB of a row from the totals of the row before it: a buy adds its cost and
+    //          commission to the ACB, a sale takes off the cost of the shares given up, then any superficial loss on
+    //          a sale is denied
+    private void replayRow(int row, int prevShares, long prevAcb) {
+        long val = cadValues[row];
+        long com = cadCommissions[row];
+        if ((flags[row] & SELL) != 0) {
+            long cost = basis.sell(shares[row], prevShares, prevAcb);
+            deniedLosses[row] = 0;  // Only a sale can have a denied loss, so only a sale is cleared
+            gains[row] = val - com - cost;
+            totalAcbs[row] = prevAcb - cost;
+            if (gains[row] < 0 && basis.deniesSuperficialLosses()) {
+                denySuperficialLoss(row);
+            }
+        } else if ((flags[row] & (SPLIT | RETURN_OF_CAPITAL)) != 0) {
+            replayCorporateAction(row, prevAcb, val);
+        } else {
+            // A buy has no gains, and they were set to 0 when the row was written
+            totalAcbs[row] = prevAcb + val + com;
+            basis.buy(shares[row], val + com);
+        }
+    }
+
+    // REQUIRES: the row is a split or a return of capital
+    // MODIFIES: this
+    // EFFECTS: Computes the gains and ACB of a corporate action from the ACB before it.  A split keeps the ACB, a
+    //          return of capital takes the amount returned off it and any amount beyond it is a capital gain
+    private void replayCorporateAction(int row, long prevAcb, long val) {
+        if ((flags[row] & SPLIT) != 0) {
+            gains[row] = 0;
+            totalAcbs[row] = prevAcb;
+            basis.split(shares[row], (int) values[row]);
+        } else {
+            gains[row] = Math.max(0, val - prevAcb);
+            totalAcbs[row] = prevAcb - (val - gains[row]);
+            basis.reduceCost(val - gains[row], prevAcb);
+        }
+    }
+
+    // REQUIRES: the row is a sale at a loss
+    // MODIFIES: this
+    // EFFECTS: Denies the part of the loss that is superficial and adds it to the ACB of the substituted shares.
+    //          The denied part is the loss in proportion to the least of the shares sold, the shares bought from 30
+    //          days before the sale to 30 days after, and the shares still held 30 days after.  A split in the window
+    //          counts all of them in the shares after it
+    private void denySuperficialLoss(int row) {
+        moveWindow(dates[row]);
+        if (windowHigh > sharesEnd) {
+            replaySharesTo(windowHigh);
+        }
+        int held = totalShares[windowHigh - 1];
+        int sold = windowSplits == 0 ? shares[row] : rescale(shares[row], row + 1, windowHigh);
+        int substituted = Math.min(sold, Math.min(windowBought, held));
+
+        if (substituted > 0) {
+            long denied = Money.mulDiv(-gains[row], substituted, sold);
+            deniedLosses[row] = denied;
+            gains[row] += denied;
+            totalAcbs[row] += denied;
+        }
+    }
+
+    // REQUIRES: epochDay is no earlier than the date the window was last moved to
+    // MODIFIES: this
+    // EFFECTS: Moves the window forward to hold the rows dated within 30 days of the given day, keeping count of the
+    //          shares bought in it.  A split entering the window scales the count, and once one is in the window the
+    //          shares of a purchase leaving it have been scaled too, so the count is made again from the window
+    private void moveWindow(int epochDay) {
+        while (windowHigh < size && dates[windowHigh] <= epochDay + SUPERFICIAL_DAYS) {
+            if ((flags[windowHigh] & NOT_BUY) == 0) {
+                windowBought += shares[windowHigh];
+            } else if ((flags[windowHigh] & SPLIT) != 0) {
+                windowBought = Transaction.splitShares(windowBought, shares[windowHigh], (int) values[windowHigh]);
+                windowSplits++;
+            }
+            windowHigh++;
+        }
+        boolean recount = false;
+        while (dates[windowLow] < epochDay - SUPERFICIAL_DAYS) {
+            if ((flags[windowLow] & NOT_BUY) == 0) {
+                windowBought -= shares[windowLow];
+                recount |= windowSplits > 0;
+            } else if ((flags[windowLow] & SPLIT) != 0) {
+                windowSplits--;
+                recount = true;
+            }
+            windowLow++;
+        }
+        if (recount) {
+            windowBought = boughtIn(windowLow, windowHigh);
+        }
+    }
+
+    // EFFECTS: Returns the shares bought in rows from to to - 1, counted in the shares of row to - 1
+    private int boughtIn(int from, int to) {
+        int bought = 0;
+        for (int row = from; row < to; row++) {
+            if ((flags[row] & NOT_BUY) == 0) {
+                bought += shares[row];
+            } else if ((flags[row] & SPLIT) != 0) {
+                bought = Transaction.splitShares(bought, shares[row], (int) values[row]);
+            }
+        }
+        return bought;
+    }
+
+    // EFFECTS: Returns the given number of shares held before row from as they are after row to - 1, through every
+    //          split in between
+    private int rescale(int held, int from, int to) {
+        for (int row = from; row < to; row++) {
+            if ((flags[row] & SPLIT) != 0) {
+                held = Transaction.splitShares(held, shares[row], (int) values[row]);
+            }
+        }
+        return held;
+    }
+
+    // EFFECTS: Returns the index in splitRows of the first split at or after the given row
+    private int firstSplitFrom(int row) {
+        int i = Arrays.binarySearch(splitRows, 0, splitCount, row);
+        return i < 0 ? -i - 1 : i;
+    }
+
+    // MODIFIES: this
+    // EFFECTS: Adds the row to the end of the split rows
+    private void addSplitRow(int row) {
+        if (splitCount == splitRows.length) {
+            splitRows = Arrays.copyOf(splitRows, splitCount * 2);
+        }
+        splitRows[splitCount++] = row;
+    }
+
+    // REQUIRES: sale is a sell
+    // EFFECTS: Returns a detached copy of the sale completed as if it had been added after the rows dated on or
+    //          before it, without changing this.  The totals before the sale and the shares bought and held around
+    //          it are found with binary searches, so under the average cost each sale takes O(log n).  A cost basis
+    //          holding lots also takes time in the lots held, see costOfSale.  The gains and totals of the rows
+    //          after the sale are not worked out again, so a later sale that would have changed is not reflected
+    Transaction simulateSale(String ticker, Transaction sale) {
+        int day = sale.getEpochDay();
+        int before = findInsertionIndex(day) - 1;
+        int prevShares = before < 0 ? 0 : totalShares[before];
+        long prevAcb = before < 0 ? 0 : totalAcbs[before];
+        long val = Money.toCad(sale.getValueMicros(), sale.getCurrency(), sale.getFxRateMicros());
+        long com = Money.toCad(sale.getCommissionMicros(), sale.getCurrency(), sale.getFxRateMicros());
+        long cost = costOfSale(before, sale.getShares(), prevShares, prevAcb);
+        long gain = val - com - cost;
+        long denied = gain < 0 && basis.deniesSuperficialLosses() ? superficialLoss(day, sale.getShares(), -gain) : 0;
+
+        Transaction outcome = new Transaction(ticker, day, true, sale.getValueMicros(), sale.getCurrency(),
+                sale.getFxRateMicros(), sale.getShares(), sale.getCommissionMicros());
+        outcome.complete(gain + denied, prevShares - sale.getShares(), prevAcb - cost + denied, denied);
+        return outcome;
+    }
+
+    // EFFECTS: Returns the cost of the shares given up by a sale following the given row, from the totals held after
+    //          it.  A cost basis holding lots is copied from the last checkpoint at or before the sale and given the
+    //          purchases and sales from there up to the row, so that this is not changed.  That takes time in the
+    //          lots held rather than O(log n), about as many rows are fed as there are lots held
+    private long costOfSale(int before, int sold, int held, long heldCost) {
+        if (!basis.holdsLots()) {
+            return Money.costOfShares(heldCost, sold, held);
+        }
+        int checkpoint = lastCheckpointAtOrBefore(before + 1);
+        CostBasis lots = checkpoints[checkpoint].copy();
+        for (int row = checkpointRows[checkpoint]; row <= before; row++) {
+            feed(lots, row);
+        }
+        return lots.sell(sold, held, heldCost);
+    }
+
+    // MODIFIES: lots
+    // EFFECTS: Tells the cost basis about the row the same way as replayRow, from the totals already worked out
+    private void feed(CostBasis lots, int row) {
+        int prevShares = row == 0 ? 0 : totalShares[row - 1];
+        long prevAcb = row == 0 ? 0 : totalAcbs[row - 1];
+
+        if ((flags[row] & SELL) != 0) {
+            lots.sell(shares[row], prevShares, prevAcb);
+        } else if ((flags[row] & SPLIT) != 0) {
+            lots.split(shares[row], (int) values[row]);
+        } else if ((flags[row] & RETURN_OF_CAPITAL) != 0) {
+            lots.reduceCost(prevAcb - totalAcbs[row], prevAcb);
+        } else {
+            lots.buy(shares[row], cadValues[row] + cadCommissions[row]);
+        }
+    }
+
+    // EFFECTS: Returns the part of a loss on a sale of the given shares on the given day that would be superficial,
+    //          by the same rule as denySuperficialLoss.  Without a split in the window the shares bought are found from
+    //          the running totals, otherwise the window is walked and everything is counted in the shares after it
+    private long superficialLoss(int day, int sold, long loss) {
+        int windowStart = firstRowOnOrAfter(day - SUPERFICIAL_DAYS);
+        int windowEnd = findInsertionIndex(day + SUPERFICIAL_DAYS) - 1;
+        int bought = boughtThrough(windowEnd) - boughtThrough(windowStart - 1);
+        int split = firstSplitFrom(windowStart);
+        if (split < splitCount && splitRows[split] <= windowEnd) {
+            bought = boughtIn(windowStart, windowEnd + 1);
+            sold = rescale(sold, findInsertionIndex(day), windowEnd + 1);
+        }
+        int held = (windowEnd < 0 ? 0 : totalShares[windowEnd]) - sold;
+        int substituted = Math.min(sold, Math.min(bought, held));
+
+        return substituted > 0 ? Money.mulDiv(loss, substituted, sold) : 0;
+    }
+
+    // EFFECTS: Returns the shares bought in the given row and every row before it, 0 if the row is before the first
+    private int boughtThrough(int row) {
+        return row < 0 ? 0 : totalBought[row];
+    }
+
+    // MODIFIES: retained transactions
+    // EFFECTS: Copies the derived columns into the retained transactions from the given row onward
+    private void updateObjects(int from) {
+        if (retainObjects) {
+            for (int row = from; row < size; row++) {
+                objects[row].complete(gains[row], totalShares[row], totalAcbs[row], deniedLosses[row]);
+            }
+        }
+    }
+
+    // REQUIRES: 0 <= row < size
+    // EFFECTS: Returns the transaction at the given row.  This is the retained object if there is one, otherwise a
+    //          new detached view of the row that will not change when the store does
+    Transaction get(String ticker, int row) {
+        if (retainObjects) {
+            return objects[row];
+        }
+        return detach(ticker, row);
+    }
+
+    // REQUIRES: 0 <= row < size
+    // EFFECTS: Returns a new detached view of the row that will not change when the store does
+    Transaction detach(String ticker, int row) {
+        boolean isSplit = (flags[row] & SPLIT) != 0;
+        Transaction view = new Transaction(ticker, dates[row], typeOf(row), isSplit ? 0 : values[row],
+                (flags[row] & USD) != 0, fxRates[row], shares[row], isSplit ? (int) values[row] : 0,
+                commissions[row]);
+        view.complete(gains[row], totalShares[row], totalAcbs[row], deniedLosses[row]);
+        return view;
+    }
+
+    // EFFECTS: Returns a copy of the date, total shares and total ACB of every row
+    PositionSteps steps() {
+        return new PositionSteps(Arrays.copyOf(dates, size), Arrays.copyOf(totalShares, size),
+                Arrays.copyOf(totalAcbs, size));
+    }
+
+    int getDate(int row) {
+        return dates[row];
+    }
+
+    boolean isSell(int row) {
+        return (flags[row] & SELL) != 0;
+    }
+
+    // EFFECTS: Returns the type of transaction in the row, from its flags
+    private TransactionType typeOf(int row) {
+        if ((flags[row] & SELL) != 0) {
+            return TransactionType.SELL;
+        } else if ((flags[row] & SPLIT) != 0) {
+            return TransactionType.SPLIT;
+        } else if ((flags[row] & RETURN_OF_CAPITAL) != 0) {
+            return TransactionType.RETURN_OF_CAPITAL;
+        }
+        return TransactionType.BUY;
+    }
+
+    // EFFECTS: Returns the flag bits for the type of the transaction
+    private static byte typeFlags(Transaction t) {
+        switch (t.getType()) {
+            case SELL:
+                return SELL;
+            case SPLIT:
+                return SPLIT;
+            case RETURN_OF_CAPITAL:
+                return RETURN_OF_CAPITAL;
+            default:
+                return 0;
+        }
+    }
+
+    // EFFECTS: Returns true if the last row that is not a split is in USD, false if there is none.  Splits have no
+    //          amount and so no currency
+    boolean lastIsUsd() {
+        for (int row = size - 1; row >= 0; row--) {
+            if ((flags[row] & SPLIT) == 0) {
+                return (flags[row] & USD) != 0;
+            }
+        }
+        return false;
+    }
+
+    int getTotalShares(int row) {
+        return totalShares[row];
+    }
+
+    long getTotalAcb(int row) {
+        return totalAcbs[row];
+    }
+
+    long getDeniedLoss(int row) {
+        return deniedLosses[row];
+    }
+
+    // MODIFIES: this
+    // EFFECTS: Writes the input details of the transaction into the given row
+    private void write(int row, Transaction t) {
+        dates[row] = t.getEpochDay();
+        flags[row] = (byte) (typeFlags(t) | (t.getCurrency() ? USD : 0));
+        values[row] = t.getType() == TransactionType.SPLIT ? t.getSplitFrom() : t.getValueMicros();
+        fxRates[row] = t.getFxRateMicros();
+        shares[row] = t.getShares();
+        commissions[row] = t.getCommissionMicros();
+        cadValues[row] = Money.toCad(values[row], t.getCurrency(), fxRates[row]);
+        cadCommissions[row] = Money.toCad(commissions[row], t.getCurrency(), fxRates[row]);
+        gains[row] = 0;
+        deniedLosses[row] = 0;
+        if (retainObjects) {
+            objects[row] = t;
+        }
+    }
+
+    // MODIFIES: this
+    // EFFECTS: Copies length rows starting at from into the rows starting at to, in every column
+    private void move(int from, int to, int length) {
+        System.arraycopy(dates, from, dates, to, length);
+        System.arraycopy(flags, from, flags, to, length);
+        System.arraycopy(values, from, values, to, length);
+        System.arraycopy(fxRates, from, fxRates, to, length);
+        System.arraycopy(shares, from, shares, to, length);
+        System.arraycopy(commissions, from, commissions, to, length);
+        System.arraycopy(cadValues, from, cadValues, to, length);
+        System.arraycopy(cadCommissions, from, cadCommissions, to, length);
+        System.arraycopy(gains, from, gains, to, length);
+        System.arraycopy(totalShares, from, totalShares, to, length);
+        System.arraycopy(totalBought, from, totalBought, to, length);
+        System.arraycopy(totalAcbs, from, totalAcbs, to, length);
+        System.arraycopy(deniedLosses, from, deniedLosses, to, length);
+        if (retainObjects) {
+            System.arraycopy(objects, from, objects, to, length);
+        }
+    }
+
+    // MODIFIES: this
+    // EFFECTS: Grows every column geometrically until it can hold at least the given number of rows
+    private void ensureCapacity(int rows) {
+        if (rows > dates.length) {
+            allocate(Math.max(rows, dates.length + (dates.length >> 1)));
+        }
+    }
+
+    // MODIFIES: this
+    // EFFECTS: Resizes every column to the given capacity, keeping the existing rows
+    private void allocate(int capacity) {
+        dates = dates == null ? new int[capacity] : Arrays.copyOf(dates, capacity);
+        flags = flags == null ? new byte[capacity] : Arrays.copyOf(flags, capacity);
+        values = values == null ? new long[capacity] : Arrays.copyOf(values, capacity);
+        fxRates = fxRates == null ? new long[capacity] : Arrays.copyOf(fxRates, capacity);
+        shares = shares == null ? new int[capacity] : Arrays.copyOf(shares, capacity);
+        commissions = commissions == null ? new long[capacity] : Arrays.copyOf(commissions, capacity);
+        cadValues = cadValues == null ? new long[capacity] : Arrays.copyOf(cadValues, capacity);
+        cadCommissions = cadCommissions == null ? new long[capacity] : Arrays.copyOf(cadCommissions, capacity);
+        gains = gains == null ? new long[capacity] : Arrays.copyOf(gains, capacity);
+        totalShares = totalShares == null ? new int[capacity] : Arrays.copyOf(totalShares, capacity);
+        totalBought = totalBought == null ? new int[capacity] : Arrays.copyOf(totalBought, capacity);
+        totalAcbs = totalAcbs == null ? new long[capacity] : Arrays.copyOf(totalAcbs, capacity);
+        deniedLosses = deniedLosses == null ? new long[capacity] : Arrays.copyOf(deniedLosses, capacity);
+        if (retainObjects) {
+            objects = objects == null ? new Transaction[capacity] : Arrays.copyOf(objects, capacity);
+        }
+    }
+}
@@ -0,0 +1,28 @@
+package model;
+
+// The kinds of transaction in the history of a security.  Besides trades there are corporate actions: a split or
+// consolidation changes the number of shares held without changing their cost, and a return of capital pays money
+// back that comes off the cost of the shares held, with any amount beyond the cost being a capital gain
+public enum TransactionType {
+    BUY("Buy"),
+    SELL("Sell"),
+    SPLIT("Split"),
+    RETURN_OF_CAPITAL("Return of capital");
+
+    private final String label;
+
+    TransactionType(String label) {
+        this.label = label;
+    }
+
+    // EFFECTS: Returns true for a split, consolidation or return of capital rather than a trade
+    public boolean isCorporateAction() {
+        return this == SPLIT || this == RETURN_OF_CAPITAL;
+    }
+
+    // EFFECTS: Returns the name of the type for display, such as Return of capital
+    @Override
+    public String toString() {
+        return label;
+    }
+}
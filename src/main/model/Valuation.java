@@ -0,0 +1,58 @@
+package model;
+
+// The market value of a holding at the close of a particular day, and the gain or loss on it that has not yet been
+// realized by selling.  Every amount is in CAD
+public final class Valuation {
+    private final String ticker;
+    private final int shares;       // shares held at the close
+    private final long acb;         // adjusted cost base of the shares held, in micro-cents
+    private final long price;       // closing price of one share in CAD micro-cents, 0 if there is none
+
+    Valuation(Position position, long price) {
+        this.ticker = position.getTicker();
+        this.shares = position.getShares();
+        this.acb = position.getAcbMicros();
+        this.price = price;
+    }
+
+    public String getTicker() {
+        return ticker;
+    }
+
+    public int getShares() {
+        return shares;
+    }
+
+    public double getAcb() {
+        return Money.toDouble(acb);
+    }
+
+    // EFFECTS: Returns true if there was a closing price to value the shares at, or there are no shares to value
+    public boolean isPriced() {
+        return price != 0 || shares == 0;
+    }
+
+    public double getPrice() {
+        return Money.toDouble(price);
+    }
+
+    // EFFECTS: Returns the shares held at the closing price, 0 if there is no price
+    public double getMarketValue() {
+        return Money.toDouble(price * shares);
+    }
+
+    // EFFECTS: Returns the market value less the adjusted cost base, 0 if there is no price
+    public double getUnrealizedGain() {
+        return isPriced() ? Money.toDouble(price * shares - acb) : 0;
+    }
+
+    // EFFECTS: returns a string with the ticker, shares, market value and unrealized gain of this
+    @Override
+    public String toString() {
+        if (!isPriced()) {
+            return ticker + ": " + shares + " shares, no price";
+        }
+        return ticker + ": " + shares + " shares worth " + DollarFormat.format(price * shares) + ", unrealized gain "
+                + DollarFormat.format(price * shares - acb);
+    }
+}
@@ -0,0 +1,228 @@
+package model;
+
+import exceptions.NoTickerException;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+// The market value and book value of a portfolio at the close of every day in a range of dates, for charts and
+// performance figures.  The values are held in two columns with a slot for each day.  Each security is swept once
+// in date order, walking its prices for the range alongside the shares and acb after each of its transactions, and
+// its values are added into the columns.  The series watches the portfolio, and once a security has changed only the
+// days from its first changed transaction on are worked out again: the old values of that security are taken out of
+// those days and the new ones put in.  The prices of a security trading in USD are converted to CAD at the rate of
+// each day.  Days without a price for a holding, or without a rate for a USD holding, leave it out of the market value.
+// Changes are applied the next time the series is read, so it can be read from any thread
+public final class ValuationSeries implements PortfolioObserver {
+    private final Portfolio portfolio;
+    private final PriceSource prices;
+    private final FxRates rates;
+    private final int firstDay;             // the first day of the range as a count of days since 1970-01-01
+    private final long[] marketValues;      // for each day, CAD micro-cents
+    private final long[] bookValues;        // for each day, CAD micro-cents
+    private final Map<String, PositionSteps> steps;  // the holdings the values were worked out from, by ticker
+    private final Set<String> changed;      // the tickers that have changed since the values were worked out
+    private final Set<String> inUsd;        // the tickers whose values were worked out from USD prices
+
+    // REQUIRES: first is not after last
+    // MODIFIES: portfolio
+    // EFFECTS: Makes the series of values of the portfolio like ValuationSeries(portfolio, prices, rates, first,
+    //          last) but with no exchange rates, so securities trading in USD are left out of the market value
+    public ValuationSeries(Portfolio portfolio, PriceSource prices, LocalDate first, LocalDate last) {
+        this(portfolio, prices, FxRateTable.EMPTY, first, last);
+    }
+
+    // REQUIRES: first is not after last
+    // MODIFIES: portfolio
+    // EFFECTS: Makes the series of values of the portfolio at the prices from the source for every day from first
+    //          to last, converting the prices of securities trading in USD at the given rates, and watches the
+    //          portfolio for changes until closed
+    public ValuationSeries(Portfolio portfolio, PriceSource prices, FxRates rates, LocalDate first, LocalDate last) {
+        this.portfolio = portfolio;
+        this.prices = prices;
+        this.rates = rates;
+        this.firstDay = (int) first.toEpochDay();
+        int numDays = (int) (last.toEpochDay() - first.toEpochDay()) + 1;
+        this.marketValues = new long[numDays];
+        this.bookValues = new long[numDays];
+        this.steps = new HashMap<>();
+        this.changed = ConcurrentHashMap.newKeySet();
+        this.inUsd = new HashSet<>();
+        portfolio.addObserver(this);
+        changed.addAll(portfolio.getTickers());
+        refresh();
+    }
+
+    // MODIFIES: portfolio
+    // EFFECTS: Stops watching the portfolio, the values stay as they are now
+    public void close() {
+        portfolio.removeObserver(this);
+    }
+
+    public LocalDate getFirstDate() {
+        return LocalDate.ofEpochDay(firstDay);
+    }
+
+    public int getNumDays() {
+        return marketValues.length;
+    }
+
+    // EFFECTS: Returns the market value of the holdings at the close of the given date, throws
+    //          IllegalArgumentException if the date is outside the range
+    public synchronized double getMarketValue(LocalDate date) {
+        refresh();
+        return Money.toDouble(marketValues[indexOf(date)]);
+    }
+
+    // EFFECTS: Returns the acb of the holdings at the close of the given date, throws IllegalArgumentException if
+    //          the date is outside the range
+    public synchronized double getBookValue(LocalDate date) {
+        refresh();
+        return Money.toDouble(bookValues[indexOf(date)]);
+    }
+
+    // EFFECTS: Returns the market value at the close of each day of the range, in order
+    public synchronized double[] getMarketValues() {
+        refresh();
+        return toDoubles(marketValues);
+    }
+
+    // EFFECTS: Returns the acb at the close of each day of the range, in order
+    public synchronized double[] getBookValues() {
+        refresh();
+        return toDoubles(bookValues);
+    }
+
+    // EFFECTS: Returns the index of the given date in the columns, throws IllegalArgumentException if it is outside
+    //          the range
+    private int indexOf(LocalDate date) {
+        long index = date.toEpochDay() - firstDay;
+        if (index < 0 || index >= marketValues.length) {
+            throw new IllegalArgumentException(date + " is outside the valuation series");
+        }
+        return (int) index;
+    }
+
+    // EFFECTS: Returns the micro-cents amounts in dollars
+    private static double[] toDoubles(long[] amounts) {
+        double[] dollars = new double[amounts.length];
+        for (int day = 0; day < amounts.length; day++) {
+            dollars[day] = Money.toDouble(amounts[day]);
+        }
+        return dollars;
+    }
+
+    // MODIFIES: this
+    // EFFECTS: Works out the values again for the securities that have changed, from their first changed day on
+    private synchronized void refresh() {
+        List<String> tickers = new ArrayList<>(changed);
+        changed.removeAll(tickers);
+
+        for (String ticker : tickers) {
+            PositionSteps now = PositionSteps.EMPTY;
+            boolean isUSD = false;
+            try {
+                Security security = portfolio.matchString(ticker);
+                now = security.positionSteps();
+                isUSD = security.tradesInUsd();
+            } catch (NoTickerException e) {
+                // The security has been removed, so nothing is held
+            }
+            PositionSteps before = steps.getOrDefault(ticker, PositionSteps.EMPTY);
+            update(ticker, before, now, isUSD);
+            if (now.size() == 0) {
+                steps.remove(ticker);
+            } else {
+                steps.put(ticker, now);
+            }
+        }
+    }
+
+    // MODIFIES: this
+    // EFFECTS: Replaces the values of the security held as before with its values held as now, on every day from the
+    //          first transaction that differs between them on.  If the security has changed currency every day is
+    //          worked out again, the old values at the prices in the old currency
+    private void update(String ticker, PositionSteps before, PositionSteps now, boolean isUSD) {
+        boolean wasUSD = inUsd.contains(ticker);
+        int step = before.firstDifference(now);
+        int changeDay = Math.min(step < before.size() ? before.getDay(step) : Integer.MAX_VALUE,
+                step < now.size() ? now.getDay(step) : Integer.MAX_VALUE);
+        int from = wasUSD == isUSD ? (int) Math.max(0, (long) changeDay - firstDay) : 0;
+
+        if (from < marketValues.length) {
+            long[] closes = new long[marketValues.length - from];
+            prices.fillPrices(ticker, LocalDate.ofEpochDay(firstDay + from), closes);
+            sweep(before, inCad(closes, from, wasUSD), from, -1);
+            sweep(now, inCad(closes, from, isUSD), from, 1);
+        }
+        if (isUSD) {
+            inUsd.add(ticker);
+        } else {
+            inUsd.remove(ticker);
+        }
+    }
+
+    // EFFECTS: Returns the closes of each day from the given index on in CAD.  CAD closes are returned as they are,
+    //          USD closes are converted at the rate of each day into a new array, 0 on a day without a rate
+    private long[] inCad(long[] closes, int from, boolean isUSD) {
+        if (!isUSD) {
+            return closes;
+        }
+        long[] converted = new long[closes.length];
+        for (int i = 0; i < closes.length; i++) {
+            LocalDate date = LocalDate.ofEpochDay(firstDay + from + i);
+            if (closes[i] != 0 && rates.hasRate(date)) {
+                converted[i] = Money.toCad(closes[i], true, Money.rateOf(rates.getRate(date)));
+            }
+        }
+        return converted;
+    }
+
+    // MODIFIES: this
+    // EFFECTS: Adds the values of a security held as steps, times sign, to every day from the given index on.  The
+    //          closes hold its price on each of those days
+    private void sweep(PositionSteps steps, long[] closes, int from, int sign) {
+        if (steps.size() == 0) {
+            return;
+        }
+        int day = firstDay + from;
+        int next = steps.firstAfter(day);
+        int shares = next == 0 ? 0 : steps.getShares(next - 1);
+        long acb = next == 0 ? 0 : steps.getAcb(next - 1);
+
+        for (int i = 0; i < closes.length; i++, day++) {
+            while (next < steps.size() && steps.getDay(next) <= day) {
+                shares = steps.getShares(next);
+                acb = steps.getAcb(next++);
+            }
+            marketValues[from + i] += sign * closes[i] * shares;
+            bookValues[from + i] += sign * acb;
+        }
+    }
+
+    @Override
+    public void securityAdded(String ticker) {
+        changed.add(ticker);
+    }
+
+    @Override
+    public void securityRemoved(String ticker) {
+        changed.add(ticker);
+    }
+
+    @Override
+    public void transactionAdded(Transaction t) {
+        changed.add(t.getSecurity());
+    }
+
+    @Override
+    public void transactionRemoved(String ticker, int index) {
+        changed.add(ticker);
+    }
+}
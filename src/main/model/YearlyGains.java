@@ -0,0 +1,74 @@
+package model;
+
+// The capital gains and losses realized by the sales in one year, in CAD, as they would go on a tax return.  The
+// gains are the proceeds less the commissions and the cost of the shares given up, plus any superficial loss that
+// was denied and added back to the ACB instead
+public final class YearlyGains {
+    private final int year;
+    private final int sales;              // the number of sales in the year
+    private final long proceeds;          // in micro-cents
+    private final long cost;              // adjusted cost base of the shares sold, in micro-cents
+    private final long commissions;       // in micro-cents
+    private final long superficialLosses; // losses denied as superficial, in micro-cents
+    private final long gains;             // in micro-cents
+
+    YearlyGains(int year, int sales, long proceeds, long cost, long commissions, long superficialLosses, long gains) {
+        this.year = year;
+        this.sales = sales;
+        this.proceeds = proceeds;
+        this.cost = cost;
+        this.commissions = commissions;
+        this.superficialLosses = superficialLosses;
+        this.gains = gains;
+    }
+
+    // EFFECTS: Returns the gains of a year without any sales
+    public static YearlyGains none(int year) {
+        return new YearlyGains(year, 0, 0, 0, 0, 0, 0);
+    }
+
+    // REQUIRES: other.getYear() == getYear()
+    // EFFECTS: Returns the gains of this and other together, such as for two securities in the same year
+    public YearlyGains plus(YearlyGains other) {
+        return new YearlyGains(year, sales + other.sales, proceeds + other.proceeds, cost + other.cost,
+                commissions + other.commissions, superficialLosses + other.superficialLosses, gains + other.gains);
+    }
+
+    public int getYear() {
+        return year;
+    }
+
+    public int getNumSales() {
+        return sales;
+    }
+
+    public double getProceeds() {
+        return Money.toDouble(proceeds);
+    }
+
+    public double getCost() {
+        return Money.toDouble(cost);
+    }
+
+    public double getCommissions() {
+        return Money.toDouble(commissions);
+    }
+
+    public double getSuperficialLosses() {
+        return Money.toDouble(superficialLosses);
+    }
+
+    public double getGains() {
+        return Money.toDouble(gains);
+    }
+
+    long getGainsMicros() {
+        return gains;
+    }
+
+    // EFFECTS: returns a string with the year, the number of sales and the gains of this
+    @Override
+    public String toString() {
+        return year + ": " + sales + " sales, gains of " + DollarFormat.format(gains);
+    }
+}
@@ -0,0 +1,109 @@
+package persistence;
+
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.PosixFileAttributeView;
+
+// Replaces a save file with a new copy written beside it in a single rename, so that whenever the program ends the
+// file on disk is either the old copy or the new one and never a part written mix of both.  The file being replaced
+// can be kept as a numbered backup, name.bak1 being the newest, and the older backups are moved along one number.
+// The new copy takes the permissions of the file it replaces, and the rename itself is forced to disk with the
+// directory where the platform allows it
+final class AtomicFiles {
+    static final String TEMP_SUFFIX = ".tmp";
+    static final String BACKUP_SUFFIX = ".bak";
+
+    private AtomicFiles() {
+    }
+
+    // EFFECTS: returns a new empty file in the same directory as target to write its next copy to, so that the
+    //          rename that replaces target never crosses file systems.  It can only be read by its owner until it
+    //          replaces target, see replace
+    static Path createTemp(Path target) throws IOException {
+        Path absolute = target.toAbsolutePath();
+        return Files.createTempFile(absolute.getParent(), absolute.getFileName().toString(), TEMP_SUFFIX);
+    }
+
+    // REQUIRES: temp is in the same directory as target and its contents have been forced to disk, backups >= 0
+    // MODIFIES: data
+    // EFFECTS: keeps the given number of backups of target and gives temp the permissions of target, then renames
+    //          temp over target in one step, or with a plain replacing move where the file system can not rename
+    //          atomically.  The directory is then forced to disk so that the rename is not lost if the system stops
+    static void replace(Path temp, Path target, int backups) throws IOException {
+        if (Files.exists(target)) {
+            copyPermissions(target, temp);
+            if (backups > 0) {
+                rotateBackups(target, backups);
+            }
+        }
+        try {
+            Files.move(temp, target, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        } catch (AtomicMoveNotSupportedException e) {
+            Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING);
+        }
+        forceDirectory(target.toAbsolutePath().getParent());
+    }
+
+    // MODIFIES: data
+    // EFFECTS: sets the POSIX permissions of the file to to those of the file from, where the file system has them.
+    //          Elsewhere a temporary file is not made private to begin with, so there is nothing to copy
+    private static void copyPermissions(Path from, Path to) throws IOException {
+        if (Files.getFileAttributeView(from, PosixFileAttributeView.class) != null) {
+            Files.setPosixFilePermissions(to, Files.getPosixFilePermissions(from));
+        }
+    }
+
+    // EFFECTS: forces the entries of the directory to disk where the platform lets a directory be opened and forced,
+    //          and does nothing where it does not, such as on Windows
+    private static void forceDirectory(Path directory) {
+        try (FileChannel channel = FileChannel.open(directory, StandardOpenOption.READ)) {
+            channel.force(true);
+        } catch (IOException e) {
+            // The directory can not be opened or forced here, the rename is left for the system to write out
+        }
+    }
+
+    // MODIFIES: data
+    // EFFECTS: deletes the backups of target numbered 1 to the given number that exist, so that a later file saved
+    //          as target does not carry them along as its own.  Returns true if every one is gone
+    static boolean deleteBackups(Path target, int backups) {
+        boolean deleted = true;
+        for (int number = 1; number <= backups; number++) {
+            try {
+                Files.deleteIfExists(backupPath(target, number));
+            } catch (IOException e) {
+                deleted = false;
+            }
+        }
+        return deleted;
+    }
+
+    // EFFECTS: returns the path of the given backup of target, 1 being the newest
+    static Path backupPath(Path target, int number) {
+        return target.resolveSibling(target.getFileName() + BACKUP_SUFFIX + number);
+    }
+
+    // MODIFIES: data
+    // EFFECTS: drops the oldest of the backups of target, moves each of the others along one number and makes
+    //          target the newest.  The newest is a hard link where the file system has them so that target is never
+    //          copied, and target itself stays in place until it is replaced
+    private static void rotateBackups(Path target, int backups) throws IOException {
+        Files.deleteIfExists(backupPath(target, backups));
+        for (int number = backups - 1; number >= 1; number--) {
+            Path backup = backupPath(target, number);
+            if (Files.exists(backup)) {
+                Files.move(backup, backupPath(target, number + 1));
+            }
+        }
+        try {
+            Files.createLink(backupPath(target, 1), target);
+        } catch (UnsupportedOperationException | IOException e) {
+            Files.copy(target, backupPath(target, 1), StandardCopyOption.REPLACE_EXISTING);
+        }
+    }
+}
@@ -0,0 +1,330 @@
+package persistence;
+
+import model.FxRateTable;
+import model.Money;
+import model.PriceSource;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.nio.file.attribute.FileTime;
+import java.time.LocalDate;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.TreeMap;
+
+// Closing prices read from a csv file with a ticker, date and closing price on each line, such as BNS,2021-03-19,78.31,
+// in any order.  A price is in the currency the security trades in, see Portfolio.valuation.  Lines that do not
+// parse, such as a header, are skipped.  The first lookup reads through the file once to index where the lines of
+// each ticker are, without parsing any prices.  The prices of a ticker are then read from just those lines the first
+// time they are asked for and kept in a cache of the tickers used most recently, so a file of any size holds at most
+// the cache's tickers in memory.  The file is indexed again when it is modified.
+// A day without a price takes the price before it for FxRateTable.MAX_STALE_DAYS, to cover weekends and holidays.
+// Lookups are safe from any number of threads, and the file is only read outside the lock
+public class CsvPriceSource implements PriceSource {
+    public static final String PRICE_FILE = "./data/prices/prices.csv";
+    public static final int DEFAULT_CAPACITY = 256;
+    private static final int TICKER_BYTES = 64;       // the longest ticker indexed, in UTF-8
+    private static final int CHUNK_BYTES = 1 << 16;   // the bytes read at a time while indexing
+
+    private final Path source;
+    private final int capacity;
+    private volatile Index index;  // where each ticker is in the file as last modified, null until first looked up
+    private int indexes;           // the number of times the file has been indexed, guarded by this
+    private int reads;             // the number of times the prices of a ticker have been read, guarded by this
+
+    // EFFECTS: constructs a source of the prices in the csv file at source, caching DEFAULT_CAPACITY tickers
+    public CsvPriceSource(String source) {
+        this(source, DEFAULT_CAPACITY);
+    }
+
+    // REQUIRES: capacity > 0
+    // EFFECTS: constructs a source of the prices in the csv file at source, caching the prices of at most capacity
+    //          tickers and dropping the one used longest ago to make room for another
+    public CsvPriceSource(String source, int capacity) {
+        this.source = Paths.get(source);
+        this.capacity = capacity;
+    }
+
+    @Override
+    public boolean hasPrice(String ticker, LocalDate date) {
+        return closes(ticker).priceOn((int) date.toEpochDay()) != 0;
+    }
+
+    @Override
+    public double getPrice(String ticker, LocalDate date) {
+        long price = closes(ticker).priceOn((int) date.toEpochDay());
+        if (price == 0) {
+            throw new IllegalArgumentException("No price of " + ticker + " for " + date);
+        }
+        return Money.toDouble(price);
+    }
+
+    // MODIFIES: closes
+    // EFFECTS: fills closes with the price of the ticker on each day from the given date on, looking the prices up
+    //          once and then walking forward through them
+    @Override
+    public void fillPrices(String ticker, LocalDate first, long[] closes) {
+        closes(ticker).fill((int) first.toEpochDay(), closes);
+    }
+
+    // EFFECTS: returns the number of times the file has been indexed
+    public synchronized int getNumIndexes() {
+        return indexes;
+    }
+
+    // EFFECTS: returns the number of times the prices of a ticker have been read from the file, which is once for
+    //          each lookup of a ticker in the file that is not cached
+    public synchronized int getNumReads() {
+        return reads;
+    }
+
+    // MODIFIES: this
+    // EFFECTS: returns the prices of the ticker from the cache, reading them from its lines in the file if they are
+    //          not there.  Threads missing the cache for the same ticker at the same time may each read it
+    private Closes closes(String ticker) {
+        Index current = currentIndex();
+        Lines lines = current.lines.get(ticker);
+        if (lines == null) {
+            return Closes.NONE;
+        }
+        synchronized (this) {
+            Closes cached = current.cache.get(ticker);
+            if (cached != null) {
+                return cached;
+            }
+        }
+        Closes closes = readCloses(ticker, lines);
+        synchronized (this) {
+            reads++;
+            current.cache.put(ticker, closes);
+        }
+        return closes;
+    }
+
+    // MODIFIES: this
+    // EFFECTS: returns the index of the file, indexing it again first if it has been modified since it was indexed.
+    //          The file is indexed without holding a lock, and of threads indexing the same file at the same time
+    //          the index of the first to finish is kept
+    private Index currentIndex() {
+        FileTime modified = lastModified();
+        Index current = index;
+        if (current == null || !current.isOf(modified)) {
+            Index fresh = readIndex(modified);
+            synchronized (this) {
+                indexes++;
+                if (index == null || !index.isOf(modified)) {
+                    index = fresh;
+                }
+                current = index;
+            }
+        }
+        return current;
+    }
+
+    // EFFECTS: returns when the file was last modified, or null if there is no file
+    private FileTime lastModified() {
+        try {
+            return Files.readAttributes(source, BasicFileAttributes.class).lastModifiedTime();
+        } catch (IOException e) {
+            return null;
+        }
+    }
+
+    // EFFECTS: reads through the file once, recording the lines of each ticker without parsing them, and returns
+    //          the index of the file as modified at the given time.  A file that can not be read has no tickers
+    private Index readIndex(FileTime modified) {
+        Map<String, Lines> lines = new HashMap<>();
+        if (modified != null) {
+            try (InputStream in = Files.newInputStream(source)) {
+                indexLines(in, lines);
+            } catch (IOException e) {
+                System.out.println("Unable to read the prices in " + source);
+            }
+        }
+        return new Index(modified, lines, capacity);
+    }
+
+    // MODIFIES: lines
+    // EFFECTS: adds the position of each line of the stream to the lines of the ticker in its first cell.  A line
+    //          without a comma, or with a first cell longer than TICKER_BYTES, has no prices and is skipped
+    private static void indexLines(InputStream in, Map<String, Lines> lines) throws IOException {
+        byte[] chunk = new byte[CHUNK_BYTES];
+        byte[] ticker = new byte[TICKER_BYTES];
+        long position = 0;
+        long lineStart = 0;
+        int tickerLength = -1;  // the bytes before the first comma of the line, -1 until it is found
+        for (int n = in.read(chunk); n != -1; n = in.read(chunk)) {
+            for (int i = 0; i < n; i++, position++) {
+                if (chunk[i] == '\n') {
+                    addLine(ticker, tickerLength, lineStart, position + 1, lines);
+                    lineStart = position + 1;
+                    tickerLength = -1;
+                } else if (tickerLength < 0 && chunk[i] == ',') {
+                    tickerLength = (int) Math.min(position - lineStart, TICKER_BYTES + 1);
+                } else if (tickerLength < 0 && position - lineStart < TICKER_BYTES) {
+                    ticker[(int) (position - lineStart)] = chunk[i];
+                }
+            }
+        }
+        addLine(ticker, tickerLength, lineStart, position, lines);
+    }
+
+    // MODIFIES: lines
+    // EFFECTS: adds the line from start to end to the lines of the ticker, if the line has a ticker that fits
+    private static void addLine(byte[] ticker, int tickerLength, long start, long end, Map<String, Lines> lines) {
+        if (tickerLength >= 0 && tickerLength <= ticker.length) {
+            String cell = FxRateReader.splitCells(new String(ticker, 0, tickerLength, StandardCharsets.UTF_8))[0];
+            lines.computeIfAbsent(cell, t -> new Lines()).add(start, end);
+        }
+    }
+
+    // EFFECTS: reads the prices on the given lines of the ticker.  Lines that are no longer the ticker's, as when
+    //          the file changes after it is indexed, are skipped, and a file that can not be read has no prices
+    private Closes readCloses(String ticker, Lines lines) {
+        Map<Integer, Long> byDay = new TreeMap<>();
+        try (FileChannel channel = FileChannel.open(source, StandardOpenOption.READ)) {
+            for (int i = 0; i < lines.count; i++) {
+                String text = readRange(channel, lines.starts[i], lines.ends[i]);
+                for (String line : text.split("\n")) {
+                    String[] cells = FxRateReader.splitCells(line);
+                    if (cells.length >= 3 && cells[0].equals(ticker)) {
+                        parsePrice(cells[1], cells[2], byDay);
+                    }
+                }
+            }
+        } catch (IOException e) {
+            System.out.println("Unable to read the prices in " + source);
+        }
+        return new Closes(byDay);
+    }
+
+    // REQUIRES: end - start <= Integer.MAX_VALUE
+    // EFFECTS: returns the text of the file from start up to end, or as much of it as the file still has
+    private static String readRange(FileChannel channel, long start, long end) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate((int) (end - start));
+        while (buffer.hasRemaining() && channel.read(buffer, start + buffer.position()) > 0) {
+            // Keep reading until the range is read or the file ends
+        }
+        return new String(buffer.array(), 0, buffer.position(), StandardCharsets.UTF_8);
+    }
+
+    // MODIFIES: byDay
+    // EFFECTS: adds the price on the date to byDay, or nothing if either does not parse or the price is not > 0.
+    //          A later line for the same date replaces an earlier one
+    private static void parsePrice(String date, String price, Map<Integer, Long> byDay) {
+        try {
+            long parsed = Money.of(Double.parseDouble(price));
+            if (parsed > 0) {
+                int day = (int) LocalDate.parse(date).toEpochDay();
+                byDay.put(day, parsed);
+            }
+        } catch (RuntimeException e) {
+            // Not a price, such as the header
+        }
+    }
+
+    // Where the lines of each ticker are in the file as it was when last modified at a given time, and the cache of
+    // the prices of the tickers used most recently
+    private static final class Index {
+        private final FileTime modified;          // null if there was no file
+        private final Map<String, Lines> lines;
+        private final Map<String, Closes> cache;  // guarded by the CsvPriceSource
+
+        Index(FileTime modified, Map<String, Lines> lines, int capacity) {
+            this.modified = modified;
+            this.lines = lines;
+            this.cache = new LinkedHashMap<String, Closes>(16, 0.75f, true) {
+                @Override
+                protected boolean removeEldestEntry(Map.Entry<String, Closes> eldest) {
+                    return size() > capacity;
+                }
+            };
+        }
+
+        // EFFECTS: returns true if this indexes the file as last modified at the given time
+        boolean isOf(FileTime lastModified) {
+            return modified == null ? lastModified == null : modified.equals(lastModified);
+        }
+    }
+
+    // The ranges of bytes in the file holding the lines of one ticker.  Lines next to each other make one range, so
+    // a file sorted by ticker has a single range for each
+    private static final class Lines {
+        private long[] starts = new long[1];
+        private long[] ends = new long[1];
+        private int count;
+
+        // MODIFIES: this
+        // EFFECTS: adds the line from start up to end, joining it to the last range if it follows straight on
+        void add(long start, long end) {
+            if (count > 0 && ends[count - 1] == start) {
+                ends[count - 1] = end;
+                return;
+            }
+            if (count == starts.length) {
+                starts = Arrays.copyOf(starts, count * 2);
+                ends = Arrays.copyOf(ends, count * 2);
+            }
+            starts[count] = start;
+            ends[count++] = end;
+        }
+    }
+
+    // The closing prices of one ticker, held as a sorted column of dates and a column of prices
+    private static final class Closes {
+        static final Closes NONE = new Closes(new TreeMap<>());  // the prices of a ticker not in the file
+
+        private final int[] days;       // counts of days since 1970-01-01 in ascending order
+        private final long[] prices;    // micro-cents
+
+        Closes(Map<Integer, Long> byDay) {
+            days = new int[byDay.size()];
+            prices = new long[byDay.size()];
+            int i = 0;
+            for (Map.Entry<Integer, Long> entry : byDay.entrySet()) {
+                days[i] = entry.getKey();
+                prices[i++] = entry.getValue();
+            }
+        }
+
+        // EFFECTS: returns the price on the given day or the latest one before it that is at most
+        //          FxRateTable.MAX_STALE_DAYS old, 0 if there is none
+        long priceOn(int epochDay) {
+            return priceAt(firstAfter(epochDay) - 1, epochDay);
+        }
+
+        // MODIFIES: closes
+        // EFFECTS: fills closes with the price on each day from firstDay on, as priceOn would give it
+        void fill(int firstDay, long[] closes) {
+            int i = firstAfter(firstDay) - 1;
+            for (int day = 0; day < closes.length; day++) {
+                while (i + 1 < days.length && days[i + 1] <= firstDay + day) {
+                    i++;
+                }
+                closes[day] = priceAt(i, firstDay + day);
+            }
+        }
+
+        // EFFECTS: returns the index of the first price dated after the given day
+        private int firstAfter(int epochDay) {
+            int i = Arrays.binarySearch(days, epochDay);
+            return i < 0 ? -i - 1 : i + 1;
+        }
+
+        // EFFECTS: returns the price at index i if it is no more than FxRateTable.MAX_STALE_DAYS before the given
+        //          day, 0 if it is older or i is -1
+        private long priceAt(int i, int epochDay) {
+            return i >= 0 && epochDay - days[i] <= FxRateTable.MAX_STALE_DAYS ? prices[i] : 0;
+        }
+    }
+}
@@ -2,12 +2,14 @@ package persistence;
 
 
 import exceptions.FileCorruptException;
+import model.FxRateTable;
+import model.FxRates;
 import model.Transaction;
 
 import java.io.File;
 import java.io.FileNotFoundException;
+import java.time.LocalDate;
 import java.util.ArrayList;
-import java.util.Calendar;
 import java.util.List;
 import java.util.Scanner;
 import java.util.regex.Matcher;
@@ -36,15 +38,29 @@ public class CsvReader {
     }
 
     private File importFile;
+    private final FxRates rates;  // Rates for USD transactions that were exported without one
 
     // EFFECTS: constructs reader to read from source csv file
     public CsvReader(String source) {
-        importFile = new File(source);
+        this(new File(source), FxRateTable.EMPTY);
     }
 
     // EFFECTS: constructs reader to read from source csv file
     public CsvReader(File filename) {
+        this(filename, FxRateTable.EMPTY);
+    }
+
+    // EFFECTS: constructs reader to read from source csv file that looks up the exchange rate of any USD
+    //          transaction without one in rates
+    public CsvReader(String source, FxRates rates) {
+        this(new File(source), rates);
+    }
+
+    // EFFECTS: constructs reader to read from source csv file that looks up the exchange rate of any USD
+    //          transaction without one in rates
+    public CsvReader(File filename, FxRates rates) {
         this.importFile = filename;
+        this.rates = rates;
     }
 
     // EFFECTS: returns a package of data which is a list of security names and a list of transactions
@@ -140,13 +156,13 @@ public class CsvReader {
     //EFFECTS: Parses the primitive values from a string and compiles them into a structured transaction
     private Transaction buildTransaction(List<String> values) throws FileCorruptException {
         String ticker = values.get(0);
-        Calendar date = makeDate(values.get(1));
+        LocalDate date = makeDate(values.get(1));
         boolean isSell = (values.get(2).equals("Sell"));
         double value = Double.parseDouble(values.get(3));
         boolean fx = (values.size() > 14);
         double fxRate = 0;
         if (fx) {
-            fxRate = Double.parseDouble(values.get(14));
+            fxRate = parseFxRate(values.get(14), date);
             value = Double.parseDouble(values.get(15));
         }
 
@@ -161,21 +177,32 @@ public class CsvReader {
         return new Transaction(ticker, date, isSell, value, fx, fxRate, shares, commission);
     }
 
-    // EFFECTS: makes a new Calendar date from a parsed string
-    private Calendar makeDate(String s) throws FileCorruptException {
+    // EFFECTS: Parses an exchange rate, or looks up the rate on the date in rates if it was left blank.  throws
+    //          FileCorruptException if it was left blank and rates has none for that date
+    private double parseFxRate(String rate, LocalDate date) throws FileCorruptException {
+        if (!rate.isEmpty()) {
+            return Double.parseDouble(rate);
+        } else if (rates.hasRate(date)) {
+            return rates.getRate(date);
+        }
+        throw new FileCorruptException("No exchange rate for " + date);
+    }
+
+    // EFFECTS: makes a new date from a parsed string
+    private LocalDate makeDate(String s) throws FileCorruptException {
         int year;
         int month;
         int day;
-        Calendar date = Calendar.getInstance();
+        LocalDate date;
 
         try {
 
             year = Integer.parseInt(s.substring(YEAR_START_INDEX, YEAR_END_INDEX));
             MonthTypeEnum monthType = MonthTypeEnum.valueOf(s.substring(MONTH_START_INDEX, MONTH_END_INDEX));
-            // Turn the parsed enumeration into an integer
-            month = monthType.ordinal();
+            // Turn the parsed enumeration into a month number 1-12
+            month = monthType.ordinal() + 1;
             day = Integer.parseInt(s.substring(DAY_START_INDEX, DAY_END_INDEX));
-            date.set(year, month, day);
+            date = LocalDate.of(year, month, day);
 
         } catch (Exception e) {
             throw new FileCorruptException("Unable to properly parse date");
@@ -30,8 +30,8 @@ public class FileFinder {
             throw new DirectoryNotFoundException(directory);
         } else {
             names = new ArrayList<>(Arrays.asList(dir.list()));
-            // Select only json files
-            names.removeIf(s -> !s.contains(extension));
+            // Select only json files, not the backups and temporary files saved beside them such as name.json.bak1
+            names.removeIf(s -> !s.endsWith(extension));
         }
 
         names = removeFileExtension(names);
@@ -64,7 +64,7 @@ public class FileFinder {
     public static boolean writePortfolioSaveFile(Portfolio p, String filepath) {
 
         try {
-            JsonWriter writer = new JsonWriter(filepath);
+            JsonWriter writer = new JsonWriter(filepath, false, JsonWriter.SAVE_BACKUPS);
             writer.open();
             writer.write(p);
             writer.close();
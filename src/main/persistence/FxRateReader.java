@@ -0,0 +1,111 @@
+package persistence;
+
+import exceptions.FileCorruptException;
+import model.FxRateTable;
+import model.FxRates;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Paths;
+import java.time.LocalDate;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+// Represents a reader that reads daily USD to CAD exchange rates from a csv file in the form the Bank of Canada
+// publishes them in, where after a few header sections an observations section starts with a "date","FXUSDCAD" line
+// and each line after it holds a date and the rate for that date.  A plain two column date,rate file also works
+public class FxRateReader {
+    public static final String FX_RATE_FILE = "./data/fx/FXUSDCAD.csv";
+    private static final String DATE_COLUMN = "date";
+    private static final String RATE_COLUMN = "FXUSDCAD";
+
+    private final String source;
+
+    // EFFECTS: constructs reader to read from source csv file
+    public FxRateReader(String source) {
+        this.source = source;
+    }
+
+    // EFFECTS: returns the rates kept in the series file at SeriesFile.DEFAULT_FILE, or if there is none the rates in
+    //          FX_RATE_FILE.  Returns no rates at all if neither file exists or can be read
+    public static FxRates readDefault() {
+        if (Files.exists(Paths.get(SeriesFile.DEFAULT_FILE))) {
+            try {
+                return SeriesFile.open(SeriesFile.DEFAULT_FILE).getFxRates();
+            } catch (IOException | FileCorruptException e) {
+                System.out.println("Unable to read the exchange rates in " + SeriesFile.DEFAULT_FILE);
+            }
+        }
+        try {
+            return new FxRateReader(FX_RATE_FILE).read();
+        } catch (NoSuchFileException e) {
+            return FxRateTable.EMPTY;
+        } catch (IOException | FileCorruptException e) {
+            System.out.println("Unable to read the exchange rates in " + FX_RATE_FILE);
+            return FxRateTable.EMPTY;
+        }
+    }
+
+    // EFFECTS: reads the rates from the source file and returns them as a table.  throws IOException if the file
+    //          can not be read and FileCorruptException if a rate or date can not be parsed
+    public FxRateTable read() throws IOException, FileCorruptException {
+        List<String> lines = Files.readAllLines(Paths.get(source), StandardCharsets.UTF_8);
+        Map<LocalDate, Double> rates = new HashMap<>();
+        int rateColumn = -1;
+
+        for (String line : lines) {
+            String[] cells = splitCells(line);
+            if (cells[0].equalsIgnoreCase(DATE_COLUMN)) {
+                // The header of the observations, the rates are in the FXUSDCAD column or else the second
+                rateColumn = Math.max(1, indexOf(cells, RATE_COLUMN));
+            } else if (rateColumn > 0 && cells.length > rateColumn && !cells[rateColumn].isEmpty()) {
+                parseRate(cells[0], cells[rateColumn], rates);
+            }
+        }
+        if (rateColumn < 0) {
+            throw new FileCorruptException("No exchange rates found in " + source);
+        }
+        return new FxRateTable(rates);
+    }
+
+    // MODIFIES: rates
+    // EFFECTS: parses a date and its rate and adds them to rates, throws FileCorruptException if either is invalid
+    private static void parseRate(String date, String rate, Map<LocalDate, Double> rates)
+            throws FileCorruptException {
+        try {
+            double parsed = Double.parseDouble(rate);
+            if (!(parsed > 0)) {
+                throw new NumberFormatException(rate);
+            }
+            rates.put(LocalDate.parse(date), parsed);
+        } catch (RuntimeException e) {
+            throw new FileCorruptException("Unable to parse the exchange rate " + rate + " on " + date);
+        }
+    }
+
+    // EFFECTS: returns the comma separated cells of a csv line with any quotes around them removed
+    static String[] splitCells(String line) {
+        String[] cells = line.split(",", -1);
+        for (int i = 0; i < cells.length; i++) {
+            String cell = cells[i].trim();
+            if (cell.length() >= 2 && cell.startsWith("\"") && cell.endsWith("\"")) {
+                cell = cell.substring(1, cell.length() - 1);
+            }
+            cells[i] = cell;
+        }
+        return cells;
+    }
+
+    // EFFECTS: returns the index of the cell equal to value, or -1 if there is none
+    private static int indexOf(String[] cells, String value) {
+        for (int i = 0; i < cells.length; i++) {
+            if (cells[i].equalsIgnoreCase(value)) {
+                return i;
+            }
+        }
+        return -1;
+    }
+}
@@ -4,7 +4,10 @@ package persistence;
 import model.Portfolio;
 import model.Transaction;
 
+import java.util.HashSet;
 import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ForkJoinPool;
 
 // Represents a package of security names and transactions to be imported into JCapTrackMenu
 public class ImportData {
@@ -28,14 +31,23 @@ public class ImportData {
     // MODIFIES: this, portfolio
     // EFFECTS: prepares and merges the data from this into the portfolio and updates the portfolio
     public void addToPortfolio(Portfolio portfolio) {
+        addToPortfolio(portfolio, null);
+    }
+
+    // MODIFIES: this, portfolio
+    // EFFECTS: prepares and merges the data from this into the portfolio and updates the portfolio, replaying each
+    //          security as its own task on the given pool or serially if pool is null
+    public void addToPortfolio(Portfolio portfolio, ForkJoinPool pool) {
         this.normalize();
 
         for (String s : this.getSecurityNames()) {
             portfolio.addNewSecurity(s);
         }
 
-        for (Transaction t : this.getTransactions()) {
-            portfolio.addTransaction(t);
+        if (pool == null) {
+            portfolio.addTransactions(this.getTransactions());
+        } else {
+            portfolio.addTransactions(this.getTransactions(), pool);
         }
     }
 
@@ -43,8 +55,10 @@ public class ImportData {
     // EFFECTS:  scans the transactions to make sure that they have a matching security name in security names list.
     //           if they don't then create a new ticker name to match the transaction
     private void normalize() {
+        Set<String> names = new HashSet<>(securityNames);
+
         for (Transaction t : transactions) {
-            if (!securityNames.contains(t.getSecurity())) {
+            if (names.add(t.getSecurity())) {
                 securityNames.add(t.getSecurity());
             }
         }
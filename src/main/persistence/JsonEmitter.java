@@ -0,0 +1,175 @@
+package persistence;
+
+import org.json.JSONException;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.util.Arrays;
+
+// A writer of JSON text that writes each token as it is given instead of building a tree of JSONObjects and turning
+// it into one string, the counterpart of JsonTokenizer.  The caller walks the structure it is saving with
+// beginObject, name, value and so on.  The text is indented by the given number of spaces for each level, or written
+// on one line with no spaces at all if the indent is 0
+final class JsonEmitter {
+    private static final char[] HEX = "0123456789abcdef".toCharArray();
+
+    private final Writer out;
+    private final int indent;                   // spaces for each level, 0 for compact text
+    private boolean[] hasMembers = new boolean[8];  // for each open object or array, true once it has a member
+    private int depth;                          // the number of open objects and arrays
+    private boolean afterName;                  // true when the next value belongs to the name just written
+
+    // EFFECTS: makes an emitter writing JSON text to out, indented by the given number of spaces for each level
+    JsonEmitter(Writer out, int indent) {
+        this.out = out;
+        this.indent = indent;
+    }
+
+    // MODIFIES: this
+    // EFFECTS: writes the { that starts an object
+    void beginObject() throws IOException {
+        open('{');
+    }
+
+    // MODIFIES: this
+    // EFFECTS: writes the } that ends an object
+    void endObject() throws IOException {
+        close('}');
+    }
+
+    // MODIFIES: this
+    // EFFECTS: writes the [ that starts an array
+    void beginArray() throws IOException {
+        open('[');
+    }
+
+    // MODIFIES: this
+    // EFFECTS: writes the ] that ends an array
+    void endArray() throws IOException {
+        close(']');
+    }
+
+    // REQUIRES: an object is open
+    // MODIFIES: this
+    // EFFECTS: writes the name of the next member of an object and the colon after it
+    void name(String name) throws IOException {
+        beforeValue();
+        writeString(name);
+        out.write(indent > 0 ? ": " : ":");
+        afterName = true;
+    }
+
+    // MODIFIES: this
+    // EFFECTS: writes a string value
+    void value(String value) throws IOException {
+        beforeValue();
+        writeString(value);
+    }
+
+    // MODIFIES: this
+    // EFFECTS: writes a true or false value
+    void value(boolean value) throws IOException {
+        beforeValue();
+        out.write(value ? "true" : "false");
+    }
+
+    // MODIFIES: this
+    // EFFECTS: writes a whole number value
+    void value(long value) throws IOException {
+        beforeValue();
+        out.write(Long.toString(value));
+    }
+
+    // MODIFIES: this
+    // EFFECTS: writes a number value, without a fraction if it is a whole number as org.json does.  throws
+    //          JSONException if it is not finite
+    void value(double value) throws IOException {
+        if (Double.isNaN(value) || Double.isInfinite(value)) {
+            throw new JSONException("JSON does not allow non-finite numbers");
+        }
+        if (value == (long) value) {
+            value((long) value);
+        } else {
+            beforeValue();
+            out.write(Double.toString(value));
+        }
+    }
+
+    // MODIFIES: this
+    // EFFECTS: writes the character that opens an object or array and starts a level with no members
+    private void open(char c) throws IOException {
+        beforeValue();
+        out.write(c);
+        if (depth == hasMembers.length) {
+            hasMembers = Arrays.copyOf(hasMembers, depth * 2);
+        }
+        hasMembers[depth++] = false;
+    }
+
+    // REQUIRES: an object or array is open
+    // MODIFIES: this
+    // EFFECTS: ends the innermost level, on a line of its own if it had any members, and writes the character that
+    //          closes it
+    private void close(char c) throws IOException {
+        if (hasMembers[--depth]) {
+            newLine();
+        }
+        out.write(c);
+    }
+
+    // MODIFIES: this
+    // EFFECTS: writes the comma and line break that go before a value or name, none if it follows a name
+    private void beforeValue() throws IOException {
+        if (afterName) {
+            afterName = false;
+        } else if (depth > 0) {
+            if (hasMembers[depth - 1]) {
+                out.write(',');
+            }
+            hasMembers[depth - 1] = true;
+            newLine();
+        }
+    }
+
+    // EFFECTS: starts a new line indented to the current level, or does nothing if the text is compact
+    private void newLine() throws IOException {
+        if (indent > 0) {
+            out.write('\n');
+            for (int i = depth * indent; i > 0; i--) {
+                out.write(' ');
+            }
+        }
+    }
+
+    // EFFECTS: writes a quoted string, escaping quotes, backslashes and control characters
+    private void writeString(String value) throws IOException {
+        out.write('"');
+        int start = 0;
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c == '"' || c == '\\' || c < ' ') {
+                out.write(value, start, i - start);
+                writeEscape(c);
+                start = i + 1;
+            }
+        }
+        out.write(value, start, value.length() - start);
+        out.write('"');
+    }
+
+    // EFFECTS: writes the escape that stands for the given character
+    private void writeEscape(char c) throws IOException {
+        if (c == '"' || c == '\\') {
+            out.write('\\');
+            out.write(c);
+        } else if (c == '\n') {
+            out.write("\\n");
+        } else if (c == '\t') {
+            out.write("\\t");
+        } else {
+            out.write("\\u00");
+            out.write(HEX[c >> 4]);
+            out.write(HEX[c & 0xf]);
+        }
+    }
+}
@@ -3,11 +3,15 @@ package persistence;
 import model.*;
 
 import java.io.IOException;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
 import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
 import java.util.ArrayList;
-import java.util.Calendar;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
 import java.util.stream.Stream;
 
 import org.json.*;
@@ -19,10 +23,19 @@ This JSON implementation has  borrowed some code structure and concepts from Jso
 // Represents a reader that reads Portfolio from JSON data stored in file
 public class JsonReader {
     private final String source;
+    private final ForkJoinPool pool;   // Pool that securities are replayed on when loading, null to load serially
+    private int ledgerGeneration;      // The generation of the last portfolio read, see Ledger
 
     // EFFECTS: constructs reader to read from source file
     public JsonReader(String source) {
+        this(source, null);
+    }
+
+    // EFFECTS: constructs reader to read from source file that replays each security of a portfolio as its own task
+    //          on the given pool, or serially if pool is null
+    public JsonReader(String source, ForkJoinPool pool) {
         this.source = source;
+        this.pool = pool;
     }
 
 
@@ -37,68 +50,128 @@ public class JsonReader {
         return contentBuilder.toString();
     }
 
-    // EFFECTS: reads portfolio from file and returns it;
-    // throws IOException if an error occurs reading data from file
+    // EFFECTS: reads portfolio from file and returns it, building its securities and transactions as they are read
+    //          from the file instead of from the whole file as a string and tree of JSON objects first.  The
+    //          transactions are added in one batch, on the pool if this has one;
+    // throws IOException if an error occurs reading data from file, and JSONException if the file is not a portfolio
     public Portfolio readPortfolio() throws IOException {
-        String jsonData = readFile(source);
-        JSONObject jsonObject = new JSONObject(jsonData);
-        return parsePortfolio(jsonObject);
+        try (FileChannel channel = FileChannel.open(Paths.get(source), StandardOpenOption.READ);
+             JsonTokenizer json = new JsonTokenizer(Channels.newReader(channel,
+                     StandardCharsets.UTF_8.newDecoder(), -1))) {
+            return streamPortfolio(json);
+        }
     }
 
-    // EFFECTS: parses Portfolio from JSON object and returns it
-    private Portfolio parsePortfolio(JSONObject jsonObject) {
-        String name = jsonObject.getString("name");
-        Portfolio p = new Portfolio(name);
+    // EFFECTS: returns the generation of the save file the last portfolio was read from, 0 if it has none
+    public int getLedgerGeneration() {
+        return ledgerGeneration;
+    }
 
-        parseSecurities(p, jsonObject);
-        parseTransactions(p, jsonObject);
-        return p;
+    // MODIFIES: this
+    // EFFECTS: reads a portfolio object, whose members may come in any order, and returns the portfolio
+    private Portfolio streamPortfolio(JsonTokenizer json) throws IOException {
+        String name = null;
+        CostBasisMethod method = CostBasisMethod.AVERAGE_COST;
+        List<String> tickers = new ArrayList<>();
+        List<Transaction> transactions = new ArrayList<>();
+        ledgerGeneration = 0;
+
+        json.beginObject();
+        while (json.hasNext()) {
+            switch (json.nextName()) {
+                case "name":
+                    name = json.nextString();
+                    break;
+                case Portfolio.COST_BASIS_KEY:
+                    method = parseCostBasis(json.nextString());
+                    break;
+                case Ledger.GENERATION_KEY:
+                    ledgerGeneration = json.nextInt();
+                    break;
+                case "holdings":
+                    streamSecurities(json, tickers);
+                    break;
+                case "transactions":
+                    streamTransactions(json, transactions);
+                    break;
+                default:
+                    json.skipValue();
+            }
+        }
+        json.endObject();
+        return makePortfolio(name, method, tickers, transactions);
     }
 
+    // EFFECTS: returns the cost basis method with the given name, throws JSONException if there is none
+    private static CostBasisMethod parseCostBasis(String method) {
+        try {
+            return CostBasisMethod.valueOf(method);
+        } catch (IllegalArgumentException e) {
+            throw new JSONException("Unknown cost basis method " + method);
+        }
+    }
 
-    // MODIFIES: p
-    // EFFECTS: parses holdings from JSON object and adds them to Portfolio
-    private void parseSecurities(Portfolio p, JSONObject jsonObject) {
-        JSONArray jsonArray = jsonObject.getJSONArray("holdings");
-        for (Object json : jsonArray) {
-            JSONObject nextSecurity = (JSONObject) json;
-            parseSecurity(p, nextSecurity);
+    // EFFECTS: returns a portfolio holding the securities with the given tickers and the transactions, added in one
+    //          batch on the pool if this has one.  throws JSONException if there is no name
+    private Portfolio makePortfolio(String name, CostBasisMethod method, List<String> tickers,
+                                    List<Transaction> transactions) {
+        if (name == null) {
+            throw new JSONException("Portfolio has no name");
+        }
+        Portfolio p = new Portfolio(name, false, method);
+        for (String ticker : tickers) {
+            p.addNewSecurity(ticker);
         }
+        if (pool == null) {
+            p.addTransactions(transactions);
+        } else {
+            p.addTransactions(transactions, pool);
+        }
+        return p;
     }
 
-    // MODIFIES: p
-    // EFFECTS: parses security from JSON object and adds it to Portfolio
-    private void parseSecurity(Portfolio p, JSONObject jsonObject) {
-        String ticker = jsonObject.getString("ticker");
-        p.addNewSecurity(ticker);
+    // MODIFIES: tickers
+    // EFFECTS: reads the array of holdings and adds the ticker of each to tickers
+    private static void streamSecurities(JsonTokenizer json, List<String> tickers) throws IOException {
+        json.beginArray();
+        while (json.hasNext()) {
+            String ticker = null;
+            json.beginObject();
+            while (json.hasNext()) {
+                if (json.nextName().equals("ticker")) {
+                    ticker = json.nextString();
+                } else {
+                    json.skipValue();
+                }
+            }
+            json.endObject();
+            if (ticker == null) {
+                throw new JSONException("Holding has no ticker");
+            }
+            tickers.add(ticker);
+        }
+        json.endArray();
     }
 
-    // MODIFIES: P
-    // EFFECTS: parses all of the stored transactions from JSON object and adds them to Portfolio
-    private void parseTransactions(Portfolio p, JSONObject jsonObject) {
-        JSONArray jsonArray = jsonObject.getJSONArray("transactions");
-        for (Object json : jsonArray) {
-            JSONObject nextTransaction = (JSONObject) json;
-            parseTransaction(p, nextTransaction);
+    // MODIFIES: transactions
+    // EFFECTS: reads the array of transactions and adds each to transactions as it is read
+    private static void streamTransactions(JsonTokenizer json, List<Transaction> transactions) throws IOException {
+        json.beginArray();
+        while (json.hasNext()) {
+            TransactionFields fields = new TransactionFields();
+            json.beginObject();
+            while (json.hasNext()) {
+                fields.read(json.nextName(), json);
+            }
+            json.endObject();
+            transactions.add(fields.toTransaction());
         }
+        json.endArray();
     }
 
-    // MODIFIES: p
-    // EFFECTS: parses a transaction from a JSONObject and adds it to portfolio p
-    private void parseTransaction(Portfolio p, JSONObject jsonObject) {
-        String ticker = jsonObject.getString("ticker");
-        Calendar date = Calendar.getInstance();
-        date.set(jsonObject.getInt("year"), jsonObject.getInt("month"), jsonObject.getInt("day"));
-        boolean isSell = jsonObject.getBoolean("isSell");
-        double value = jsonObject.getDouble("value");
-        boolean isUSD = jsonObject.getBoolean("isUSD");
-        double fxRate = jsonObject.getDouble("fxRate");
-        int shares = jsonObject.getInt("shares");
-        double commission = jsonObject.getDouble("commission");
-
-        Transaction add = new Transaction(ticker, date, isSell, value,
-                isUSD, fxRate, shares, commission);
-        p.addTransaction(add);
+    // EFFECTS: parses a transaction from a JSONObject and returns it
+    static Transaction parseTransaction(JSONObject jsonObject) {
+        return TransactionFields.of(jsonObject).toTransaction();
     }
 
     // EFFECTS: reads account names from file and returns it;
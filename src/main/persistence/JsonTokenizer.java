@@ -0,0 +1,269 @@
+package persistence;
+
+import org.json.JSONException;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.Reader;
+
+// A pull reader of JSON text that hands out one token at a time, so that a file is read straight into the objects it
+// describes without first becoming a string or a tree of JSONObjects.  The caller walks the structure it expects with
+// beginObject, nextName, nextString and so on, and skips any value it does not know with skipValue.  Characters are
+// read through a buffer of its own, so the reader underneath is read in large blocks.  Malformed text throws
+// JSONException, as org.json does
+final class JsonTokenizer implements Closeable {
+    private static final int BUFFER_CHARS = 8192;
+    private static final String ESCAPES = "bfnrt\"\\/";    // the characters that may follow a backslash
+    private static final String ESCAPED = "\b\f\n\r\t\"\\/";  // the characters they stand for
+
+    private final Reader in;
+    private final char[] buffer = new char[BUFFER_CHARS];
+    private int pos;            // the next character of the buffer to read
+    private int limit;          // the number of characters in the buffer
+    private long offset;        // characters read before the buffer, for error messages
+    private boolean needComma;  // true once a value of the current object or array has been read
+
+    // EFFECTS: makes a tokenizer reading JSON text from in
+    JsonTokenizer(Reader in) {
+        this.in = in;
+    }
+
+    // MODIFIES: this
+    // EFFECTS: reads the { that starts an object
+    void beginObject() throws IOException {
+        expect('{');
+        needComma = false;
+    }
+
+    // MODIFIES: this
+    // EFFECTS: reads the } that ends an object
+    void endObject() throws IOException {
+        expect('}');
+        needComma = true;
+    }
+
+    // MODIFIES: this
+    // EFFECTS: reads the [ that starts an array
+    void beginArray() throws IOException {
+        expect('[');
+        needComma = false;
+    }
+
+    // MODIFIES: this
+    // EFFECTS: reads the ] that ends an array
+    void endArray() throws IOException {
+        expect(']');
+        needComma = true;
+    }
+
+    // MODIFIES: this
+    // EFFECTS: returns true if the current object or array has another member, reading the comma before it
+    boolean hasNext() throws IOException {
+        int c = peek();
+        if (c == '}' || c == ']') {
+            return false;
+        }
+        if (needComma) {
+            expect(',');
+            needComma = false;
+        }
+        return true;
+    }
+
+    // MODIFIES: this
+    // EFFECTS: reads the name of the next member of an object and the colon after it
+    String nextName() throws IOException {
+        String name = readString();
+        expect(':');
+        return name;
+    }
+
+    // MODIFIES: this
+    // EFFECTS: reads a string value
+    String nextString() throws IOException {
+        String value = readString();
+        needComma = true;
+        return value;
+    }
+
+    // MODIFIES: this
+    // EFFECTS: reads a true or false value
+    boolean nextBoolean() throws IOException {
+        String literal = readLiteral();
+        needComma = true;
+        if (literal.equals("true")) {
+            return true;
+        } else if (literal.equals("false")) {
+            return false;
+        }
+        throw syntaxError("Expected a boolean but found " + literal);
+    }
+
+    // MODIFIES: this
+    // EFFECTS: reads a number value
+    double nextDouble() throws IOException {
+        String literal = readLiteral();
+        needComma = true;
+        try {
+            return Double.parseDouble(literal);
+        } catch (NumberFormatException e) {
+            throw syntaxError("Expected a number but found " + literal);
+        }
+    }
+
+    // MODIFIES: this
+    // EFFECTS: reads a number value that is a whole number within the range of an int
+    int nextInt() throws IOException {
+        double value = nextDouble();
+        if (value != (int) value) {
+            throw syntaxError("Expected an int but found " + value);
+        }
+        return (int) value;
+    }
+
+    // MODIFIES: this
+    // EFFECTS: reads the next value whatever it is, along with everything nested in it
+    void skipValue() throws IOException {
+        int c = peek();
+        if (c == '{') {
+            beginObject();
+            while (hasNext()) {
+                nextName();
+                skipValue();
+            }
+            endObject();
+        } else if (c == '[') {
+            beginArray();
+            while (hasNext()) {
+                skipValue();
+            }
+            endArray();
+        } else if (c == '"') {
+            nextString();
+        } else {
+            readLiteral();
+            needComma = true;
+        }
+    }
+
+    // MODIFIES: this
+    // EFFECTS: reads a quoted string and returns it with its escapes replaced
+    private String readString() throws IOException {
+        expect('"');
+        StringBuilder value = new StringBuilder();
+        while (true) {
+            int start = pos;
+            while (pos < limit && buffer[pos] != '"' && buffer[pos] != '\\') {
+                pos++;
+            }
+            value.append(buffer, start, pos - start);
+            if (pos < limit) {
+                if (buffer[pos++] == '"') {
+                    return value.toString();
+                }
+                value.append(readEscape());
+            } else if (!fill()) {
+                throw syntaxError("Unterminated string");
+            }
+        }
+    }
+
+    // MODIFIES: this
+    // EFFECTS: reads the character after a backslash and returns the character it stands for
+    private char readEscape() throws IOException {
+        int c = read();
+        int escape = ESCAPES.indexOf(c);
+        if (c == 'u') {
+            return readUnicodeEscape();
+        } else if (escape < 0) {
+            throw syntaxError("Illegal escape");
+        }
+        return ESCAPED.charAt(escape);
+    }
+
+    // MODIFIES: this
+    // EFFECTS: reads the four hex digits of a \\u escape and returns the character they give
+    private char readUnicodeEscape() throws IOException {
+        int code = 0;
+        for (int i = 0; i < 4; i++) {
+            int digit = Character.digit(read(), 16);
+            if (digit < 0) {
+                throw syntaxError("Illegal unicode escape");
+            }
+            code = (code << 4) | digit;
+        }
+        return (char) code;
+    }
+
+    // MODIFIES: this
+    // EFFECTS: reads an unquoted number, true, false or null and returns its text
+    private String readLiteral() throws IOException {
+        peek();
+        StringBuilder literal = new StringBuilder();
+        while ((pos < limit || fill()) && isLiteralChar(buffer[pos])) {
+            literal.append(buffer[pos++]);
+        }
+        if (literal.length() == 0) {
+            throw syntaxError("Expected a value");
+        }
+        return literal.toString();
+    }
+
+    // EFFECTS: returns true if c can be part of a number or a true, false or null literal
+    private static boolean isLiteralChar(char c) {
+        return (c >= '0' && c <= '9') || (c >= 'a' && c <= 'z') || c == '-' || c == '+' || c == '.' || c == 'E';
+    }
+
+    // MODIFIES: this
+    // EFFECTS: skips whitespace and reads the given character, throws JSONException if another is there instead
+    private void expect(char expected) throws IOException {
+        if (peek() != expected) {
+            throw syntaxError("Expected " + expected);
+        }
+        pos++;
+    }
+
+    // MODIFIES: this
+    // EFFECTS: skips whitespace and returns the next character without reading it, throws JSONException if the text
+    //          ends first
+    private int peek() throws IOException {
+        while (pos < limit || fill()) {
+            char c = buffer[pos];
+            if (c != ' ' && c != '\n' && c != '\r' && c != '\t') {
+                return c;
+            }
+            pos++;
+        }
+        throw syntaxError("Unexpected end of input");
+    }
+
+    // MODIFIES: this
+    // EFFECTS: reads and returns the next character, throws JSONException if the text ends first
+    private int read() throws IOException {
+        if (pos == limit && !fill()) {
+            throw syntaxError("Unexpected end of input");
+        }
+        return buffer[pos++];
+    }
+
+    // MODIFIES: this
+    // EFFECTS: refills the buffer from the reader once it has all been read, returns false if there is no more text
+    private boolean fill() throws IOException {
+        offset += limit;
+        pos = 0;
+        limit = 0;
+        limit = Math.max(0, in.read(buffer, 0, buffer.length));
+        return limit > 0;
+    }
+
+    // EFFECTS: returns a JSONException with the given message and the position it was found at
+    private JSONException syntaxError(String message) {
+        return new JSONException(message + " at character " + (offset + pos));
+    }
+
+    // EFFECTS: closes the reader underneath
+    @Override
+    public void close() throws IOException {
+        in.close();
+    }
+}
@@ -1,46 +1,192 @@
 package persistence;
 
 import model.Portfolio;
+import model.Security;
+import model.Transaction;
 import org.json.JSONArray;
 import org.json.JSONObject;
 
 import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.InvalidPathException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.LocalDate;
 import java.util.List;
 
 /*
 This JSON implementation has  borrowed some code structure and concepts from JsonSerializationDemo UBC CPSC 210
  */
 
-// Represents a writer that writes JSON representation of workroom to file
+// Represents a writer that writes JSON representation of workroom to file.  A portfolio is written a token at a time
+// through a buffer as its holdings and transactions are read, so only one transaction is held in memory at a time
+// however many there are.  The text is indented to be read by people, or compact on a single line.
+// Nothing is written to the destination itself: the text goes to a temporary file beside it, which close forces to
+// disk and renames over the destination in one step, so a save cut short leaves the last complete save in place
 public class JsonWriter {
+    public static final int SAVE_BACKUPS = 1;  // the earlier saves kept of a portfolio
     private static final int TAB = 4;
+    private static final int BUFFER_CHARS = 1 << 16;
+    private final boolean compact;
+    private final int backups;         // the number of earlier saves kept beside the destination
     private PrintWriter writer;
+    private FileOutputStream file;     // the temporary file under writer
+    private Path temp;
     private String destination;
 
-    // EFFECTS: constructs writer to write to destination file
+    // EFFECTS: constructs writer to write indented text to destination file
     public JsonWriter(String destination) {
+        this(destination, false, 0);
+    }
+
+    // EFFECTS: constructs writer to write to destination file, with no indenting or line breaks if compact
+    public JsonWriter(String destination, boolean compact) {
+        this(destination, compact, 0);
+    }
+
+    // REQUIRES: backups >= 0
+    // EFFECTS: constructs writer to write to destination file, with no indenting or line breaks if compact, that
+    //          keeps the given number of earlier saves as destination.bak1, destination.bak2 and so on, newest first
+    public JsonWriter(String destination, boolean compact, int backups) {
         this.destination = destination;
+        this.compact = compact;
+        this.backups = backups;
+    }
+
+    // MODIFIES: data
+    // EFFECTS: deletes the SAVE_BACKUPS backups kept of the save file at the given path, for when the portfolio saved
+    //          there is deleted.  Returns true if none are left
+    public static boolean deleteBackups(String destination) {
+        return AtomicFiles.deleteBackups(Paths.get(destination), SAVE_BACKUPS);
     }
 
     // MODIFIES: this
-    // EFFECTS: opens writer; throws FileNotFoundException if destination file cannot
-    // be opened for writing
-    public void open() throws FileNotFoundException {
-        writer = new PrintWriter(destination);
+    // EFFECTS: opens writer on a new temporary file beside the destination; throws IOException if that file cannot
+    // be made or opened for writing
+    public void open() throws IOException {
+        try {
+            temp = AtomicFiles.createTemp(Paths.get(destination));
+        } catch (InvalidPathException e) {
+            throw new FileNotFoundException(destination + " is not a valid path");
+        }
+        file = new FileOutputStream(temp.toFile());
+        writer = new PrintWriter(new BufferedWriter(new OutputStreamWriter(file, StandardCharsets.UTF_8),
+                BUFFER_CHARS));
     }
 
     // MODIFIES: this
     // EFFECTS: writes JSON representation of portfolio to file
     public void write(Portfolio p) {
-        JSONObject json = p.toJson();
-        saveToFile(json.toString(TAB));
+        stream(p, null);
+    }
+
+    // MODIFIES: this
+    // EFFECTS: writes JSON representation of portfolio to file, marked with the generation of its ledger
+    public void write(Portfolio p, int ledgerGeneration) {
+        stream(p, ledgerGeneration);
+    }
+
+    // MODIFIES: this
+    // EFFECTS: writes the portfolio to file one token at a time, with its ledger generation unless that is null.
+    //          The securities are taken once so the holdings and transactions written always match, and each
+    //          security is locked only while its own transactions are written
+    private void stream(Portfolio p, Integer ledgerGeneration) {
+        JsonEmitter json = new JsonEmitter(writer, compact ? 0 : TAB);
+        List<Security> holdings = p.getHoldings();
+        try {
+            json.beginObject();
+            json.name("name");
+            json.value(p.getName());
+            json.name(Portfolio.COST_BASIS_KEY);
+            json.value(p.getCostBasisMethod().name());
+            if (ledgerGeneration != null) {
+                json.name(Ledger.GENERATION_KEY);
+                json.value(ledgerGeneration);
+            }
+            streamHoldings(json, holdings);
+            streamTransactions(json, holdings);
+            json.endObject();
+        } catch (IOException e) {
+            // A PrintWriter never throws, it records the error for checkError instead
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    // MODIFIES: this
+    // EFFECTS: writes the holdings member, an object with the ticker of each security
+    private static void streamHoldings(JsonEmitter json, List<Security> holdings) throws IOException {
+        json.name("holdings");
+        json.beginArray();
+        for (Security s : holdings) {
+            json.beginObject();
+            json.name("ticker");
+            json.value(s.getTicker());
+            json.endObject();
+        }
+        json.endArray();
+    }
+
+    // MODIFIES: this
+    // EFFECTS: writes the transactions member, every transaction of each security in turn
+    private static void streamTransactions(JsonEmitter json, List<Security> holdings) throws IOException {
+        json.name("transactions");
+        json.beginArray();
+        for (Security s : holdings) {
+            s.forEachTransaction(t -> streamTransaction(json, t));
+        }
+        json.endArray();
+    }
+
+    // MODIFIES: this
+    // EFFECTS: writes a transaction with the same members as Transaction.toJson, months are saved from 0-11
+    private static void streamTransaction(JsonEmitter json, Transaction t) {
+        LocalDate date = t.getDate();
+        try {
+            json.beginObject();
+            json.name("ticker");
+            json.value(t.getSecurity());
+            json.name("year");
+            json.value(date.getYear());
+            json.name("month");
+            json.value(date.getMonthValue() - 1);
+            json.name("day");
+            json.value(date.getDayOfMonth());
+            streamAmounts(json, t);
+            json.endObject();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    // MODIFIES: this
+    // EFFECTS: writes the kind, amounts and shares of a transaction, and its type only if it is a corporate action
+    private static void streamAmounts(JsonEmitter json, Transaction t) throws IOException {
+        json.name("isSell");
+        json.value(t.getBuyOrSell());
+        json.name("value");
+        json.value(t.getValue());
+        json.name("isUSD");
+        json.value(t.getCurrency());
+        json.name("fxRate");
+        json.value(t.getFxRate());
+        json.name("shares");
+        json.value(t.getShares());
+        json.name("commission");
+        json.value(t.getCommission());
+        if (t.getType().isCorporateAction()) {
+            json.name("type");
+            json.value(t.getType().name());
+            json.name("splitFrom");
+            json.value(t.getSplitFrom());
+        }
     }
 
     // MODIFIES: this
     // EFFECTS: writes JSON representation of a list of account names
     public void write(List<String> list) {
         JSONObject json = listOfStringToJson(list);
-        saveToFile(json.toString(TAB));
+        saveToFile(compact ? json.toString() : json.toString(TAB));
     }
 
     // EFFECTS: Coverts a list of account names into a single JSONObject and returns it
@@ -58,10 +204,34 @@ public class JsonWriter {
     }
 
 
-    // MODIFIES: this
-    // EFFECTS: closes writer
-    public void close() {
-        writer.close();
+    // EFFECTS: returns true if there was an error writing to the file
+    public boolean checkError() {
+        return writer.checkError();
+    }
+
+    // MODIFIES: this, data
+    // EFFECTS: closes writer and, if everything was written, forces the temporary file to disk and renames it over
+    //          the destination, keeping the file it replaces as a backup if this keeps any.  throws IOException and
+    //          deletes the temporary file if anything could not be written, leaving the destination as it was
+    public void close() throws IOException {
+        boolean written = false;
+        try {
+            // checkError flushes the buffer into the file first
+            if (!writer.checkError()) {
+                file.getChannel().force(false);
+                written = true;
+            }
+        } finally {
+            writer.close();
+            written &= !writer.checkError();
+            if (!written) {
+                Files.deleteIfExists(temp);
+            }
+        }
+        if (!written) {
+            throw new IOException("Unable to write " + destination);
+        }
+        AtomicFiles.replace(temp, Paths.get(destination), backups);
     }
 
     // MODIFIES: this
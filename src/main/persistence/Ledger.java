@@ -0,0 +1,272 @@
+package persistence;
+
+import model.Portfolio;
+import model.PortfolioObserver;
+import model.Transaction;
+import org.json.JSONException;
+import org.json.JSONObject;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+
+// An append-only log of the changes made to a portfolio since its save file was last written in full.  It is kept
+// in a file beside the save file with one JSON event per line, and each change to the portfolio is appended as it is
+// made so that it survives the program ending unexpectedly.  Saving appends a small save marker, and only once the
+// ledger has grown long is the save file rewritten and the ledger emptied.  Opening a portfolio replays its ledger.
+// The first line of a ledger holds the generation of the save file it follows on from.  Each rewrite of the save file
+// moves it to the next generation, so a ledger left behind by a rewrite that was interrupted is never replayed twice
+public class Ledger implements PortfolioObserver {
+    public static final String LEDGER_FILE_EXTENSION = ".ledger";
+    public static final String GENERATION_KEY = "ledgerGeneration";
+    private static final int COMPACT_THRESHOLD = 500;  // events in the ledger before a save rewrites the save file
+    private static final String EVENT_KEY = "event";
+
+    private final Portfolio portfolio;
+    private final String portfolioPath;
+    private final FileChannel channel;
+    private int generation;     // the generation of the save file
+    private long length;        // bytes of the ledger
+    private long savedLength;   // bytes of the ledger up to and including the last save marker
+    private int events;         // events in the ledger
+    private int savedEvents;    // events in the ledger up to the last save marker
+
+    // EFFECTS: makes a ledger for the portfolio saved at the given path, opening or creating the ledger file
+    private Ledger(Portfolio portfolio, String portfolioPath, int generation) throws IOException {
+        this.portfolio = portfolio;
+        this.portfolioPath = portfolioPath;
+        this.generation = generation;
+        channel = FileChannel.open(ledgerPath(portfolioPath), StandardOpenOption.CREATE,
+                StandardOpenOption.READ, StandardOpenOption.WRITE);
+    }
+
+    // EFFECTS: reads the portfolio saved at the given path and replays the changes in its ledger, then returns a
+    //          ledger that records every further change to the portfolio.  The saved transactions are replayed on
+    //          the pool, or serially if pool is null.  throws IOException if an error occurs reading either file
+    public static Ledger open(String portfolioPath, ForkJoinPool pool) throws IOException {
+        JsonReader reader = new JsonReader(portfolioPath, pool);
+        Portfolio p = reader.readPortfolio();
+        Ledger ledger = new Ledger(p, portfolioPath, reader.getLedgerGeneration());
+        try {
+            ledger.replay();
+        } catch (IOException | RuntimeException e) {
+            ledger.channel.close();
+            throw e;
+        }
+        p.addObserver(ledger);
+        return ledger;
+    }
+
+    // EFFECTS: deletes the ledger kept beside the given save file if there is one, returns true if it was deleted
+    public static boolean delete(String portfolioPath) {
+        try {
+            return Files.deleteIfExists(ledgerPath(portfolioPath));
+        } catch (IOException e) {
+            return false;
+        }
+    }
+
+    // EFFECTS: returns the path of the ledger kept beside the given save file
+    private static Path ledgerPath(String portfolioPath) {
+        int extension = portfolioPath.lastIndexOf('.');
+        String base = extension < 0 ? portfolioPath : portfolioPath.substring(0, extension);
+        return Paths.get(base + LEDGER_FILE_EXTENSION);
+    }
+
+    public Portfolio getPortfolio() {
+        return portfolio;
+    }
+
+    // REQUIRES: nothing else is changing the portfolio
+    // MODIFIES: this, data
+    // EFFECTS: saves any changes made since the last save.  This appends a save marker to the ledger, unless the
+    //          ledger has grown long enough that the portfolio is written to the save file in full and the ledger is
+    //          emptied instead.  throws IOException if the changes could not be saved
+    public synchronized void save() throws IOException {
+        if (length == savedLength) {
+            return;
+        } else if (events >= COMPACT_THRESHOLD) {
+            compact();
+        } else {
+            JSONObject marker = new JSONObject();
+            marker.put(EVENT_KEY, "save");
+            write(marker);
+            channel.force(false);
+            savedLength = length;
+            savedEvents = events;
+        }
+    }
+
+    // MODIFIES: this, data
+    // EFFECTS: throws away the changes recorded since the last save, they will not be replayed when the portfolio
+    //          is next opened.  The portfolio in memory is not changed
+    public synchronized void discard() throws IOException {
+        channel.truncate(savedLength);
+        channel.force(false);
+        length = savedLength;
+        events = savedEvents;
+    }
+
+    // MODIFIES: this
+    // EFFECTS: stops recording changes to the portfolio and closes the ledger file
+    public synchronized void close() throws IOException {
+        portfolio.removeObserver(this);
+        channel.close();
+    }
+
+    // MODIFIES: this, data
+    // EFFECTS: writes the portfolio to its save file in full as the next generation, then empties the ledger.  The
+    //          save file is written compactly as it is rewritten often and only read by the program.  It is replaced
+    //          in one step once written, so the ledger is only emptied after the new save file is safely in place
+    private void compact() throws IOException {
+        JsonWriter writer = new JsonWriter(portfolioPath, true, JsonWriter.SAVE_BACKUPS);
+        writer.open();
+        writer.write(portfolio, generation + 1);
+        writer.close();
+        generation++;
+        channel.truncate(0);
+        channel.force(false);
+        length = 0;
+        savedLength = 0;
+        events = 0;
+        savedEvents = 0;
+    }
+
+    // MODIFIES: this, portfolio
+    // EFFECTS: replays the events in the ledger into the portfolio.  A ledger from an older generation of the save
+    //          file is thrown away, as is a last line that was only partly written.  A run of added transactions is
+    //          added as one batch, so each security is replayed once for the run instead of once per transaction
+    private void replay() throws IOException {
+        byte[] data = Files.readAllBytes(ledgerPath(portfolioPath));
+        List<Transaction> pending = new ArrayList<>();
+        int start = 0;
+
+        for (int end = indexOfNewline(data, start); end >= 0; end = indexOfNewline(data, start)) {
+            JSONObject event = parseEvent(new String(data, start, end - start, StandardCharsets.UTF_8));
+            if (event == null || (start == 0 && event.optInt(GENERATION_KEY, -1) != generation)) {
+                break;
+            }
+            start = end + 1;
+            length = start;
+            if (apply(event, pending)) {
+                savedLength = length;
+                savedEvents = events;
+            }
+        }
+        flush(pending);
+        channel.truncate(length);
+    }
+
+    // EFFECTS: returns the index of the next newline in data from the given index, or -1 if there is none
+    private static int indexOfNewline(byte[] data, int from) {
+        for (int i = from; i < data.length; i++) {
+            if (data[i] == '\n') {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    // EFFECTS: returns the event on a line of the ledger, or null if the line is not an event
+    private static JSONObject parseEvent(String line) {
+        try {
+            return new JSONObject(line);
+        } catch (JSONException e) {
+            return null;
+        }
+    }
+
+    // MODIFIES: this, portfolio, pending
+    // EFFECTS: makes the change recorded by the event to the portfolio, returns true if the event was a save marker.
+    //          An added transaction is held in pending until an event of another kind needs the portfolio up to date
+    private boolean apply(JSONObject event, List<Transaction> pending) {
+        String type = event.getString(EVENT_KEY);
+
+        if (type.equals("addTransaction")) {
+            pending.add(JsonReader.parseTransaction(event));
+            events++;
+            return false;
+        } else if (type.equals("save") || type.equals("generation")) {
+            // The generation line and save markers change nothing
+            return type.equals("save");
+        }
+        flush(pending);
+        if (type.equals("addSecurity")) {
+            portfolio.addNewSecurity(event.getString("ticker"));
+        } else if (type.equals("removeSecurity")) {
+            portfolio.removeSecurity(event.getString("ticker"));
+        } else if (type.equals("removeTransaction")) {
+            portfolio.matchString(event.getString("ticker")).removeTransaction(event.getInt("index"));
+        } else {
+            return false;
+        }
+        events++;
+        return false;
+    }
+
+    // MODIFIES: portfolio, pending
+    // EFFECTS: adds the pending transactions to the portfolio in one batch and empties pending
+    private void flush(List<Transaction> pending) {
+        if (!pending.isEmpty()) {
+            portfolio.addTransactions(pending);
+            pending.clear();
+        }
+    }
+
+    @Override
+    public void securityAdded(String ticker) {
+        append("addSecurity", new JSONObject().put("ticker", ticker));
+    }
+
+    @Override
+    public void securityRemoved(String ticker) {
+        append("removeSecurity", new JSONObject().put("ticker", ticker));
+    }
+
+    @Override
+    public void transactionAdded(Transaction t) {
+        append("addTransaction", t.toJson());
+    }
+
+    @Override
+    public void transactionRemoved(String ticker, int index) {
+        append("removeTransaction", new JSONObject().put("ticker", ticker).put("index", index));
+    }
+
+    // MODIFIES: this, data
+    // EFFECTS: appends a change to the end of the ledger, starting the ledger with its generation if it is empty.
+    //          throws UncheckedIOException if the ledger could not be written
+    private synchronized void append(String type, JSONObject event) {
+        try {
+            if (length == 0) {
+                JSONObject header = new JSONObject();
+                header.put(EVENT_KEY, "generation");
+                header.put(GENERATION_KEY, generation);
+                write(header);
+            }
+            event.put(EVENT_KEY, type);
+            write(event);
+            events++;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    // MODIFIES: this, data
+    // EFFECTS: writes the event as a line at the end of the ledger
+    private void write(JSONObject event) throws IOException {
+        ByteBuffer line = ByteBuffer.wrap((event.toString() + "\n").getBytes(StandardCharsets.UTF_8));
+        while (line.hasRemaining()) {
+            length += channel.write(line, length);
+        }
+    }
+}
@@ -0,0 +1,273 @@
+package persistence;
+
+import exceptions.FileCorruptException;
+import model.FxRateTable;
+import model.FxRates;
+import model.Money;
+import model.PriceSource;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+// A file of daily time series, such as exchange rates and closing prices, kept in a compact binary form that is
+// memory-mapped instead of read.  Opening one only reads its header and series names, the values are paged in by the
+// operating system as they are looked up, so decades of values for thousands of series never become Java objects.
+// Every day has a record of the same width holding one value for each series, so a value is found by arithmetic.
+// The layout, in big-endian order:
+//   header: magic number, version, first day as a count of days since 1970-01-01, number of days, number of series
+//   names:  the name of each series in UTF-8, padded with zeros to NAME_BYTES
+//   values: a record for each day in turn holding one long per series, the value scaled by Money.SCALE or 0 where
+//           the series has none.  A day without a value takes the value before it for FxRateTable.MAX_STALE_DAYS
+public final class SeriesFile {
+    public static final String DEFAULT_FILE = "./data/fx/daily.series";
+    public static final String FX_SERIES = "FXUSDCAD";
+    public static final int NAME_BYTES = 16;
+    private static final int MAGIC = 0x4A435453;     // "JCTS"
+    private static final int VERSION = 1;
+    private static final int HEADER_BYTES = 20;
+    private static final long CHUNK_BYTES = 1L << 30;  // the most bytes mapped by one buffer
+
+    private final List<String> names;
+    private final Map<String, Integer> seriesIndex;
+    private final int firstDay;
+    private final int numDays;
+    private final int recordBytes;
+    private final int daysPerChunk;
+    private final MappedByteBuffer[] chunks;
+
+    private SeriesFile(List<String> names, int firstDay, int numDays, MappedByteBuffer[] chunks, int daysPerChunk) {
+        this.names = Collections.unmodifiableList(names);
+        this.seriesIndex = new HashMap<>();
+        for (int i = 0; i < names.size(); i++) {
+            seriesIndex.put(names.get(i), i);
+        }
+        this.firstDay = firstDay;
+        this.numDays = numDays;
+        this.recordBytes = names.size() * Long.BYTES;
+        this.chunks = chunks;
+        this.daysPerChunk = daysPerChunk;
+    }
+
+    // EFFECTS: maps the series file at the given path into memory.  throws IOException if it can not be read and
+    //          FileCorruptException if it is not a series file or is shorter than its header says
+    public static SeriesFile open(String path) throws IOException, FileCorruptException {
+        try (FileChannel channel = FileChannel.open(Paths.get(path), StandardOpenOption.READ)) {
+            ByteBuffer header = readFully(channel, 0, HEADER_BYTES);
+            if (header.getInt() != MAGIC || header.getInt() != VERSION) {
+                throw new FileCorruptException(path + " is not a series file");
+            }
+            int firstDay = header.getInt();
+            int numDays = header.getInt();
+            int numSeries = header.getInt();
+            long valuesStart = HEADER_BYTES + (long) numSeries * NAME_BYTES;
+            long recordBytes = (long) numSeries * Long.BYTES;
+            if (numDays < 0 || numSeries < 0 || channel.size() < valuesStart + numDays * recordBytes) {
+                throw new FileCorruptException(path + " is shorter than its header says");
+            }
+            int daysPerChunk = (int) Math.max(1, CHUNK_BYTES / Math.max(1, recordBytes));
+            // The mappings stay valid once the channel is closed
+            return new SeriesFile(readNames(channel, numSeries), firstDay, numDays,
+                    mapValues(channel, valuesStart, numDays, recordBytes, daysPerChunk), daysPerChunk);
+        }
+    }
+
+    // EFFECTS: maps the records of the file into memory in chunks of daysPerChunk days
+    private static MappedByteBuffer[] mapValues(FileChannel channel, long valuesStart, int numDays, long recordBytes,
+                                                int daysPerChunk) throws IOException {
+        MappedByteBuffer[] chunks = new MappedByteBuffer[(numDays + daysPerChunk - 1) / daysPerChunk];
+
+        for (int c = 0; c < chunks.length; c++) {
+            long days = Math.min(daysPerChunk, numDays - (long) c * daysPerChunk);
+            chunks[c] = channel.map(FileChannel.MapMode.READ_ONLY,
+                    valuesStart + (long) c * daysPerChunk * recordBytes, days * recordBytes);
+        }
+        return chunks;
+    }
+
+    // EFFECTS: reads the given number of bytes from the channel at position, throws FileCorruptException if the
+    //          channel ends first
+    private static ByteBuffer readFully(FileChannel channel, long position, int bytes)
+            throws IOException, FileCorruptException {
+        ByteBuffer buffer = ByteBuffer.allocate(bytes);
+        while (buffer.hasRemaining()) {
+            if (channel.read(buffer, position + buffer.position()) < 0) {
+                throw new FileCorruptException("Series file ends in its header");
+            }
+        }
+        buffer.flip();
+        return buffer;
+    }
+
+    // EFFECTS: reads the names of the series that follow the header
+    private static List<String> readNames(FileChannel channel, int numSeries)
+            throws IOException, FileCorruptException {
+        ByteBuffer table = readFully(channel, HEADER_BYTES, numSeries * NAME_BYTES);
+        List<String> names = new ArrayList<>(numSeries);
+        byte[] name = new byte[NAME_BYTES];
+
+        for (int i = 0; i < numSeries; i++) {
+            table.get(name);
+            int length = 0;
+            while (length < NAME_BYTES && name[length] != 0) {
+                length++;
+            }
+            names.add(new String(name, 0, length, StandardCharsets.UTF_8));
+        }
+        return names;
+    }
+
+    // REQUIRES: every value > 0
+    // MODIFIES: data
+    // EFFECTS: writes the values of each named series by date to a series file at the given path, covering every
+    //          day from the earliest date in any series to the latest.  throws IllegalArgumentException if a name is
+    //          longer than NAME_BYTES, and IOException if the file can not be written
+    public static void write(String path, Map<String, Map<LocalDate, Double>> series) throws IOException {
+        List<String> names = new ArrayList<>(series.keySet());
+        Collections.sort(names);
+        int first = Integer.MAX_VALUE;
+        int last = Integer.MIN_VALUE;
+        for (Map<LocalDate, Double> values : series.values()) {
+            for (LocalDate date : values.keySet()) {
+                first = Math.min(first, (int) date.toEpochDay());
+                last = Math.max(last, (int) date.toEpochDay());
+            }
+        }
+        if (first > last) {
+            // No values at all, so no days
+            first = 0;
+            last = -1;
+        }
+
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(
+                Paths.get(path))))) {
+            out.writeInt(MAGIC);
+            out.writeInt(VERSION);
+            out.writeInt(first);
+            out.writeInt(last - first + 1);
+            writeNames(out, names);
+            writeValues(out, names, series, first, last);
+        }
+    }
+
+    // EFFECTS: writes the number of names and then each name padded with zeros to NAME_BYTES, throws
+    //          IllegalArgumentException if one is too long
+    private static void writeNames(DataOutputStream out, List<String> names) throws IOException {
+        out.writeInt(names.size());
+        for (String name : names) {
+            byte[] bytes = name.getBytes(StandardCharsets.UTF_8);
+            if (bytes.length > NAME_BYTES) {
+                throw new IllegalArgumentException("Series name " + name + " is longer than " + NAME_BYTES + " bytes");
+            }
+            out.write(bytes);
+            out.write(new byte[NAME_BYTES - bytes.length]);
+        }
+    }
+
+    // EFFECTS: writes the record for each day from first to last, carrying a value forward over days without one
+    //          for up to FxRateTable.MAX_STALE_DAYS
+    private static void writeValues(DataOutputStream out, List<String> names,
+                                    Map<String, Map<LocalDate, Double>> series, int first, int last)
+            throws IOException {
+        long[] carried = new long[names.size()];
+        int[] carriedFor = new int[names.size()];
+
+        for (int day = first; day <= last; day++) {
+            LocalDate date = LocalDate.ofEpochDay(day);
+            for (int i = 0; i < names.size(); i++) {
+                Double value = series.get(names.get(i)).get(date);
+                if (value != null) {
+                    carried[i] = Money.of(value);
+                    carriedFor[i] = 0;
+                } else if (++carriedFor[i] > FxRateTable.MAX_STALE_DAYS) {
+                    carried[i] = 0;
+                }
+                out.writeLong(carried[i]);
+            }
+        }
+    }
+
+    // EFFECTS: returns the names of the series in the file in alphabetical order
+    public List<String> getSeriesNames() {
+        return names;
+    }
+
+    // EFFECTS: returns true if the file has a value for the named series on the given date
+    public boolean hasValue(String name, LocalDate date) {
+        Integer series = seriesIndex.get(name);
+        return series != null && valueOn(series, (int) date.toEpochDay()) != 0;
+    }
+
+    // EFFECTS: returns the value of the named series on the given date, throws IllegalArgumentException if there
+    //          is none
+    public double getValue(String name, LocalDate date) {
+        Integer series = seriesIndex.get(name);
+        long value = series == null ? 0 : valueOn(series, (int) date.toEpochDay());
+        if (value == 0) {
+            throw new IllegalArgumentException("No value of " + name + " for " + date);
+        }
+        return Money.toDouble(value);
+    }
+
+    // EFFECTS: returns the value of a series on the date given as a count of days since 1970-01-01, scaled by
+    //          Money.SCALE, or 0 if there is none
+    private long valueOn(int series, int epochDay) {
+        int index = epochDay - firstDay;
+        if (index < 0 || index >= numDays) {
+            return 0;
+        }
+        return chunks[index / daysPerChunk].getLong((index % daysPerChunk) * recordBytes + series * Long.BYTES);
+    }
+
+    // EFFECTS: returns the USD to CAD exchange rates in the FX_SERIES series of the file, with no rates at all if
+    //          the file does not have that series
+    public FxRates getFxRates() {
+        return new FxSeries();
+    }
+
+    // EFFECTS: returns the closing prices kept in the file, each in the series named by its ticker
+    public PriceSource getPrices() {
+        return new Prices();
+    }
+
+    // The exchange rates in the FX_SERIES series, read straight from the mapped file
+    private class FxSeries implements FxRates {
+
+        @Override
+        public boolean hasRate(LocalDate date) {
+            return hasValue(FX_SERIES, date);
+        }
+
+        @Override
+        public double getRate(LocalDate date) {
+            return getValue(FX_SERIES, date);
+        }
+    }
+
+    // The closing prices of each ticker in the series of the same name, read straight from the mapped file
+    private class Prices implements PriceSource {
+
+        @Override
+        public boolean hasPrice(String ticker, LocalDate date) {
+            return hasValue(ticker, date);
+        }
+
+        @Override
+        public double getPrice(String ticker, LocalDate date) {
+            return getValue(ticker, date);
+        }
+    }
+}
@@ -0,0 +1,144 @@
+package persistence;
+
+import model.Transaction;
+import model.TransactionType;
+import org.json.JSONException;
+import org.json.JSONObject;
+
+import java.io.IOException;
+import java.time.LocalDate;
+import java.util.Arrays;
+import java.util.List;
+
+// The members of a saved transaction, gathered one at a time in whatever order they are read and then made into a
+// Transaction.  Both the streaming portfolio reader and the JSONObject events of a ledger go through it, so a saved
+// transaction means the same thing whichever way it is read
+final class TransactionFields {
+    private static final List<String> REQUIRED = Arrays.asList("ticker", "year", "month", "day", "isSell", "value",
+            "isUSD", "fxRate", "shares", "commission");
+    private static final int ALL_REQUIRED = (1 << REQUIRED.size()) - 1;
+
+    private int seen;           // a bit for each of the REQUIRED members that has been read
+    private String ticker;
+    private int year;
+    private int month;          // months are saved from 0-11
+    private int day;
+    private boolean isSell;
+    private double value;
+    private boolean isUSD;
+    private double fxRate;
+    private int shares;
+    private double commission;
+    private TransactionType type;   // null unless a corporate action
+    private int splitFrom;
+
+    // EFFECTS: returns the members of the transaction saved in the JSONObject, throws JSONException if one is
+    //          missing or of the wrong type
+    static TransactionFields of(JSONObject jsonObject) {
+        TransactionFields fields = new TransactionFields();
+        fields.ticker = jsonObject.getString("ticker");
+        fields.year = jsonObject.getInt("year");
+        fields.month = jsonObject.getInt("month");
+        fields.day = jsonObject.getInt("day");
+        fields.isSell = jsonObject.getBoolean("isSell");
+        fields.value = jsonObject.getDouble("value");
+        fields.isUSD = jsonObject.getBoolean("isUSD");
+        fields.fxRate = jsonObject.getDouble("fxRate");
+        fields.shares = jsonObject.getInt("shares");
+        fields.commission = jsonObject.getDouble("commission");
+        fields.seen = ALL_REQUIRED;
+        if (jsonObject.has("type")) {
+            fields.type = jsonObject.getEnum(TransactionType.class, "type");
+            fields.splitFrom = fields.type == TransactionType.SPLIT ? jsonObject.getInt("splitFrom") : 0;
+        }
+        return fields;
+    }
+
+    // MODIFIES: this
+    // EFFECTS: reads the value of the member with the given name, skipping it if it is not a member of a transaction
+    void read(String name, JsonTokenizer json) throws IOException {
+        switch (name) {
+            case "ticker":
+                ticker = json.nextString();
+                break;
+            case "year":
+                year = json.nextInt();
+                break;
+            case "month":
+                month = json.nextInt();
+                break;
+            case "day":
+                day = json.nextInt();
+                break;
+            case "shares":
+                shares = json.nextInt();
+                break;
+            case "splitFrom":
+                splitFrom = json.nextInt();
+                break;
+            default:
+                readOther(name, json);
+        }
+        int bit = REQUIRED.indexOf(name);
+        if (bit >= 0) {
+            seen |= 1 << bit;
+        }
+    }
+
+    // MODIFIES: this
+    // EFFECTS: reads the value of a member that is not a whole number, skipping it if it is not a member of a
+    //          transaction
+    private void readOther(String name, JsonTokenizer json) throws IOException {
+        switch (name) {
+            case "isSell":
+                isSell = json.nextBoolean();
+                break;
+            case "isUSD":
+                isUSD = json.nextBoolean();
+                break;
+            case "value":
+                value = json.nextDouble();
+                break;
+            case "fxRate":
+                fxRate = json.nextDouble();
+                break;
+            case "commission":
+                commission = json.nextDouble();
+                break;
+            case "type":
+                type = parseType(json.nextString());
+                break;
+            default:
+                json.skipValue();
+        }
+    }
+
+    // EFFECTS: returns the transaction type with the given name, throws JSONException if there is none
+    private static TransactionType parseType(String type) {
+        try {
+            return TransactionType.valueOf(type);
+        } catch (IllegalArgumentException e) {
+            throw new JSONException("Unknown transaction type " + type);
+        }
+    }
+
+    // EFFECTS: returns the transaction these members describe, throws JSONException if a member is missing, a split
+    //          has no shares before it or the type is not a corporate action
+    Transaction toTransaction() {
+        if (seen != ALL_REQUIRED) {
+            throw new JSONException("Transaction has no " + REQUIRED.get(Integer.numberOfTrailingZeros(~seen)));
+        }
+        LocalDate date = LocalDate.of(year, month + 1, day);
+        if (type == null) {
+            return new Transaction(ticker, date, isSell, value, isUSD, fxRate, shares, commission);
+        } else if (type == TransactionType.SPLIT) {
+            if (splitFrom <= 0) {
+                throw new JSONException("Split has no splitFrom");
+            }
+            return Transaction.split(ticker, date, shares, splitFrom);
+        } else if (type == TransactionType.RETURN_OF_CAPITAL) {
+            return Transaction.returnOfCapital(ticker, date, value, isUSD, fxRate);
+        }
+        throw new JSONException(type + " is not a corporate action");
+    }
+}
@@ -1,17 +1,13 @@
 package ui.console;
 
-import model.Portfolio;
+import persistence.Ledger;
 import ui.console.portfolio.PortfolioMenu;
 
 import java.io.IOException;
 import java.nio.file.NoSuchFileException;
-import java.text.NumberFormat;
-import java.util.Locale;
 
 // An application to track capital gains and acb values for stock trades
 public class JCapTrack extends MenuScreen {
-    // Number formatting for currency
-    public static final NumberFormat DOLLAR_FORMAT = NumberFormat.getCurrencyInstance(Locale.CANADA);
     private final PortfolioManager pm;
 
     // EFFECTS: runs JCapTrackMenu by retrieving any saved accounts and opening portfolio selection (main) menu
@@ -61,10 +57,10 @@ public class JCapTrack extends MenuScreen {
     private void openPortfolio(String cmd) {
         try {
             // Load the portfolio
-            Portfolio openPortfolio = pm.loadPortfolioSaveFile(cmd);
+            Ledger ledger = pm.loadPortfolioSaveFile(cmd);
             // Open portfolio
-            new PortfolioMenu(openPortfolio);
-            pm.savePortfolio(openPortfolio);
+            new PortfolioMenu(ledger.getPortfolio());
+            pm.savePortfolio(ledger);
 
         } catch (NoSuchFileException e) {
             System.out.println("Save file is missing for this portfolio");
@@ -3,13 +3,14 @@ package ui.console;
 import exceptions.DirectoryNotFoundException;
 import model.Portfolio;
 import persistence.FileFinder;
-import persistence.JsonReader;
 import persistence.JsonWriter;
+import persistence.Ledger;
 
 import java.io.IOException;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Scanner;
+import java.util.concurrent.ForkJoinPool;
 
 
 // Assists JCapTrackMenu with managing opening, closing, saving, and loading of portfolios
@@ -91,11 +92,13 @@ public class PortfolioManager {
 //        }
 //    }
 
-    // EFFECTS: Saves a portfolio to disk, notifies user if there is an error
-    protected void savePortfolio(Portfolio p) {
+    // EFFECTS: Saves the changes recorded by the ledger of a portfolio to disk and closes the ledger,
+    //          notifies user if there is an error
+    protected void savePortfolio(Ledger ledger) {
         try {
             System.out.println("Writing your portfolio to disk...");
-            writePortfolioSaveFile(p);
+            ledger.save();
+            ledger.close();
         } catch (Exception e) {
             System.out.println("Unable to save your data!");
             e.printStackTrace();
@@ -121,8 +124,10 @@ public class PortfolioManager {
     // notifies user if there is an error
     private void writePortfolioSaveFile(Portfolio p) {
         String location = getLocation(p.getName());
+        Ledger.delete(location);
+        JsonWriter.deleteBackups(location);
         try {
-            JsonWriter writer = new JsonWriter(location);
+            JsonWriter writer = new JsonWriter(location, false, JsonWriter.SAVE_BACKUPS);
             writer.open();
             writer.write(p);
             writer.close();
@@ -138,11 +143,11 @@ public class PortfolioManager {
 
     // REQUIRES: A portfolio name from the portfolio list
     // MODIFIES: this
-    // EFFECTS: Loads a portfolio from a saved file location
-    protected Portfolio loadPortfolioSaveFile(String name) throws IOException {
+    // EFFECTS: Loads a portfolio from a saved file location and replays the changes recorded since, returns the
+    //          ledger that records further changes to it
+    protected Ledger loadPortfolioSaveFile(String name) throws IOException {
         String fileLocation = getLocation(name);
-        JsonReader reader = new JsonReader(fileLocation);
-        return reader.readPortfolio();
+        return Ledger.open(fileLocation, ForkJoinPool.commonPool());
     }
 
     // MODIFIES: this
@@ -3,6 +3,7 @@ package ui.console.portfolio;
 import exceptions.FileCorruptException;
 import model.Portfolio;
 import persistence.CsvReader;
+import persistence.FxRateReader;
 import persistence.ImportData;
 import ui.console.MenuScreen;
 
@@ -86,7 +87,7 @@ public class ImportDataMenu extends MenuScreen {
     // EFFECTS: Imports the data from the selected file in cmd to this portfolio
     private void importUserSelection(String cmd) {
         try {
-            ImportData data = new CsvReader(IMPORT_DIRECTORY + "/" + cmd).parseData();
+            ImportData data = new CsvReader(IMPORT_DIRECTORY + "/" + cmd, FxRateReader.readDefault()).parseData();
             data.addToPortfolio(portfolio);
             System.out.println("Import was successful with " + data.getSecurityNames().size()
                     + " securities added and " + data.getTransactions().size() + " transactions added.");
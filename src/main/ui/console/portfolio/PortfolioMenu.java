@@ -1,11 +1,20 @@
 package ui.console.portfolio;
 
+import model.DollarFormat;
 import model.Portfolio;
+import model.PriceSource;
+import model.Transaction;
+import model.Valuation;
+import persistence.CsvPriceSource;
+import persistence.FxRateReader;
 import ui.console.MenuScreen;
 
+import java.time.LocalDate;
 import java.util.List;
 
 public class PortfolioMenu extends MenuScreen {
+    // Shared by every portfolio opened so that prices already read are not read again
+    private static final PriceSource PRICES = new CsvPriceSource(CsvPriceSource.PRICE_FILE);
 
     public PortfolioMenu(Portfolio user) {
         super(user);
@@ -24,7 +33,8 @@ public class PortfolioMenu extends MenuScreen {
                 + "\n4 - Add a transaction"
                 + "\n5 - Search Transactions"
                 + "\n6 - Generate tax slips"
-                + "\n7 - Import from CSV");
+                + "\n7 - Import from CSV"
+                + "\n8 - Value holdings at today's prices");
     }
 
     @Override
@@ -48,6 +58,8 @@ public class PortfolioMenu extends MenuScreen {
             taxGenerator(TransactionEntryMenu.getYear());
         } else if (cmd.equals("7")) {
             new ImportDataMenu(portfolio);
+        } else if (cmd.equals("8")) {
+            displayValuation(LocalDate.now());
         } else {
             success = false;
         }
@@ -67,24 +79,35 @@ public class PortfolioMenu extends MenuScreen {
 
     // Generates a list of all relevant tax slips for the year
     private void taxGenerator(int year) {
-        List<String> transactions = portfolio.getTaxTransactions(year);
+        List<Transaction> slips = portfolio.getTaxSlips(year);
 
-        System.out.println("There are " + transactions.size() + " tax slips in that year");
-        if (transactions.size() > 0) {
-            for (String s : portfolio.getTaxTransactions(year)) {
-                System.out.println(s + "\n");
-            }
+        System.out.println("There are " + slips.size() + " tax slips in that year");
+        for (Transaction t : slips) {
+            System.out.println(t + "\n");
         }
+        System.out.println("Total capital gains for the year: "
+                + DollarFormat.format(portfolio.getGains(year).getGains()));
         pressEnter();
 
     }
 
 
+    // EFFECTS: Displays the market value and unrealized gain of each holding at the close of the given date, with
+    //          the prices of USD holdings converted at the default exchange rates
+    private void displayValuation(LocalDate date) {
+        System.out.println("Prices are read from " + CsvPriceSource.PRICE_FILE);
+        for (Valuation v : portfolio.valuation(date, PRICES, FxRateReader.readDefault())) {
+            System.out.println(v);
+        }
+        pressEnter();
+    }
+
+
     //EFFECTS: Displays the basic information on the securities held in the portfolio
     protected static void displayHoldings(Portfolio user) {
         System.out.println("You are currently holding the following securities:");
         System.out.println("Name: || Shares: ||     ACB:    ||Transactions: ");
-        for (String s : user.getSummary()) {
+        for (String s : user.snapshot().getSummary()) {
             System.out.format(s);
         }
     }
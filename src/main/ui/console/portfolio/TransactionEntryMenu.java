@@ -5,13 +5,13 @@ import model.Portfolio;
 import model.Transaction;
 import ui.console.MenuScreen;
 
-import java.util.Calendar;
+import java.time.LocalDate;
 import java.util.Scanner;
 
 // A menu that handles the entry of various fields to create a new transaction
 public class TransactionEntryMenu extends MenuScreen {
     private String ticker;
-    private Calendar date;
+    private LocalDate date;
     private boolean type;
     private double val;
     private boolean fx;
@@ -94,11 +94,10 @@ public class TransactionEntryMenu extends MenuScreen {
     // EFFECTS: collects a valid date from the user, the year, month, and day
     private void getUserDate() {
         int year = getYear();
-        int month = getMonth() - 1; //Adjust the user input to calendar index 0-11
+        int month = getMonth() + 1; //Adjust the calendar index 0-11 back to a month number
         int day = getDay();
-        Calendar date = Calendar.getInstance();
-        date.set(year, month, day);
-        this.date = date;
+        // Days past the end of the month roll over into the next month
+        this.date = LocalDate.of(year, month, 1).plusDays(day - 1);
         String readBack = String.format("Date set to %1$tY-%1$tB-%1$td", date);
         System.out.println(readBack);
     }
@@ -1,9 +1,11 @@
 package ui.gui.main;
 
 import exceptions.DirectoryNotFoundException;
+import model.CostBasisMethod;
 import model.Portfolio;
 import persistence.FileFinder;
-import persistence.JsonReader;
+import persistence.JsonWriter;
+import persistence.Ledger;
 import ui.gui.StringSelectionScrollPanel;
 import ui.gui.portfolio.PortfolioNavigatorMenu;
 
@@ -14,6 +16,7 @@ import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
 
 // Implementation of a string selection panel to choose a portfolio to open
 public class PortfolioSelectionPanel extends StringSelectionScrollPanel {
@@ -80,15 +83,25 @@ public class PortfolioSelectionPanel extends StringSelectionScrollPanel {
         return names;
     }
 
+    // EFFECTS: Asks the user how the cost of shares sold should be worked out in a new portfolio, returns null if
+    //          they cancel.  Canadian accounts must use the average cost
+    private CostBasisMethod chooseCostBasis() {
+        return (CostBasisMethod) JOptionPane.showInputDialog(this, "How should the cost of shares sold be worked out?",
+                "Cost Basis", JOptionPane.QUESTION_MESSAGE, null, CostBasisMethod.values(),
+                CostBasisMethod.AVERAGE_COST);
+    }
+
     // MODIFIES: this
     // EFFECTS: Validate the user input and if valid make a new portfolio save file and update the listings
     @Override
     protected void addButtonBehavior() {
         String name = textBox.getText();
 
-        if (checkName(name)) {
+        CostBasisMethod method = checkName(name) ? chooseCostBasis() : null;
+
+        if (method != null) {
 
-            addPortfolio(new Portfolio(name));
+            addPortfolio(new Portfolio(name, false, method));
             namesModel.insertElementAt(name, 0);
 
             //Reset the text field.
@@ -114,10 +127,9 @@ public class PortfolioSelectionPanel extends StringSelectionScrollPanel {
             existing.toFront();
             existing.repaint();
         } else {
-            JsonReader reader = new JsonReader(getFileLocation(name));
             try {
-                PortfolioNavigatorMenu openPortfolio =
-                        new PortfolioNavigatorMenu(reader.readPortfolio(), openPortfolios);
+                Ledger ledger = Ledger.open(getFileLocation(name), ForkJoinPool.commonPool());
+                PortfolioNavigatorMenu openPortfolio = new PortfolioNavigatorMenu(ledger, openPortfolios);
                 openPortfolios.put(name, openPortfolio);
             } catch (IOException ioException) {
                 errorMessagePopup("Unable to open that selected file due to IOException");
@@ -137,6 +149,8 @@ public class PortfolioSelectionPanel extends StringSelectionScrollPanel {
             if (!FileFinder.deleteFile(getFileLocation(name))) {
                 errorMessagePopup("Unable to find or delete stored data location!");
             }
+            Ledger.delete(getFileLocation(name));
+            JsonWriter.deleteBackups(getFileLocation(name));
         }
     }
 
@@ -177,6 +191,8 @@ public class PortfolioSelectionPanel extends StringSelectionScrollPanel {
     // EFFECTS: allocates a new portfolio save location based on the portfolio name
     private void addPortfolio(Portfolio p) {
         String filepath = getFileLocation(p.getName());
+        Ledger.delete(filepath);
+        JsonWriter.deleteBackups(filepath);
         FileFinder.writePortfolioSaveFile(p, filepath);
     }
 
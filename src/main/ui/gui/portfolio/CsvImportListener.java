@@ -3,6 +3,7 @@ package ui.gui.portfolio;
 import exceptions.FileCorruptException;
 import model.Portfolio;
 import persistence.CsvReader;
+import persistence.FxRateReader;
 import persistence.ImportData;
 
 import javax.swing.*;
@@ -53,7 +54,7 @@ public class CsvImportListener implements ActionListener {
     // MODIFIES: this, Portfolio user
     // EFFECTS:  imports the contained data from a selected csv to user portfolio.  Informs the user of import details.
     private void importFromCsv(File selected) throws FileNotFoundException, FileCorruptException {
-        CsvReader reader = new CsvReader(selected);
+        CsvReader reader = new CsvReader(selected, FxRateReader.readDefault());
         ImportData importData = reader.parseData();
 
         importData.addToPortfolio(user);
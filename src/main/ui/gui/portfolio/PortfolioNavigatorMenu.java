@@ -3,35 +3,34 @@ package ui.gui.portfolio;
 import exceptions.NoTickerException;
 import model.Portfolio;
 import model.Security;
-import persistence.FileFinder;
+import persistence.Ledger;
 import ui.gui.securities.SecurityMenu;
 import ui.gui.StringSelectionScrollPanel;
 
 import javax.swing.*;
 import java.awt.*;
+import java.io.IOException;
 import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 
-import static persistence.FileFinder.JSON_FILE_EXTENSION;
-import static persistence.FileFinder.PORTFOLIO_DIRECTORY;
-import static ui.console.JCapTrack.DOLLAR_FORMAT;
-
 // This is a menu that handles viewing securities and requesting imports and tax documents
 public class PortfolioNavigatorMenu extends StringSelectionScrollPanel {
     private static final String LIST_FORMAT = "%6s | %6d  |  %12s | %2d\n";
 
     private final Portfolio user;
+    private final Ledger ledger;   // Records the changes made to user until they are saved or discarded
     protected JPanel additionalButtons;
     private final Map<String, SecurityMenu> openSecurityMenus; // A list of all the open security menus by ticker name
     private final Map<String, PortfolioNavigatorMenu> openPortfolios; // A list of all the currently open portfolios
 
 
-    // EFFECTS: makes a portfolio navigation menu in the default style of JCapTrackMenu
-    public PortfolioNavigatorMenu(Portfolio p, Map<String, PortfolioNavigatorMenu> openPortfolios) {
-        super(p.getName());
-        user = p;
+    // EFFECTS: makes a portfolio navigation menu in the default style of JCapTrackMenu for the portfolio of the ledger
+    public PortfolioNavigatorMenu(Ledger ledger, Map<String, PortfolioNavigatorMenu> openPortfolios) {
+        super(ledger.getPortfolio().getName());
+        user = ledger.getPortfolio();
+        this.ledger = ledger;
         openSecurityMenus = new HashMap<>();
         this.openPortfolios = openPortfolios;
         setup();
@@ -187,10 +186,10 @@ public class PortfolioNavigatorMenu extends StringSelectionScrollPanel {
         return summary;
     }
 
-    // EFFECTS: converts a security into a list line string for viewing
+    // EFFECTS: converts a security into a list line string for viewing, the line is only formatted again once the
+    //          security has changed
     private String makeListItemString(Security s) {
-        return String.format(LIST_FORMAT, s.getTicker(), s.getShares(),
-                DOLLAR_FORMAT.format(s.getAcb()), s.getNumTransactions());
+        return s.getSummaryLine(LIST_FORMAT);
     }
 
     // EFFECTS: focuses existing window to the front of the screen
@@ -199,10 +198,6 @@ public class PortfolioNavigatorMenu extends StringSelectionScrollPanel {
         existing.repaint();
     }
 
-    private String getFilepath() {
-        return PORTFOLIO_DIRECTORY + "/" + user.getName() + JSON_FILE_EXTENSION;
-    }
-
     // MODIFIES: this
     // EFFECTS: refreshes all of the displayed data in the frame
     public void refreshList() {
@@ -228,6 +223,7 @@ public class PortfolioNavigatorMenu extends StringSelectionScrollPanel {
                 cleanUpExit();
                 break;
             case 1: // exit without save
+                discardChanges();
                 cleanUpExit();
                 break;
 
@@ -237,17 +233,28 @@ public class PortfolioNavigatorMenu extends StringSelectionScrollPanel {
     }
 
     // MODIFIES: data
-    // EFFECTS: Saves this portfolio to disk
+    // EFFECTS: Saves the changes to this portfolio to disk
     private void savePortfolio() {
         try {
             System.out.println("Writing your portfolio to disk...");
-            FileFinder.writePortfolioSaveFile(user, getFilepath());
+            ledger.save();
         } catch (Exception e) {
             System.out.println("Unable to save your data!");
             e.printStackTrace();
         }
     }
 
+    // MODIFIES: data
+    // EFFECTS: Throws away the changes to this portfolio made since it was last saved
+    private void discardChanges() {
+        try {
+            ledger.discard();
+        } catch (IOException e) {
+            System.out.println("Unable to discard your changes!");
+            e.printStackTrace();
+        }
+    }
+
     // MODIFIES: data
     // EFFECTS: Makes sure that all of the open security windows close properly and then closes this, removes this
     //          from the list of open portfolios
@@ -256,6 +263,11 @@ public class PortfolioNavigatorMenu extends StringSelectionScrollPanel {
             securityMenu.dispose();
         }
         openPortfolios.remove(user.getName());
+        try {
+            ledger.close();
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
         this.dispose();
     }
 
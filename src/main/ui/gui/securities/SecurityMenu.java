@@ -8,15 +8,12 @@ import javax.swing.*;
 import java.awt.*;
 import java.awt.event.ActionEvent;
 import java.awt.event.ActionListener;
-import java.text.NumberFormat;
-import java.util.Locale;
 import java.util.Map;
 
 import static ui.gui.securities.TransactionHistogram.MAX_VALUES;
 
 // A menu that displays various data about a held security to a portfolio user
 public class SecurityMenu extends MenuFrame {
-    public static final NumberFormat DOLLAR_FORMAT = NumberFormat.getCurrencyInstance(Locale.CANADA);
     protected static final int WIDTH = 900;
     private static final int HEIGHT = 640;
 
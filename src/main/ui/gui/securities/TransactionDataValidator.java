@@ -1,20 +1,23 @@
 package ui.gui.securities;
 
+import model.FxRateTable;
+import model.FxRates;
 import model.Security;
 import model.Transaction;
 
+import java.time.LocalDate;
 import java.util.ArrayList;
-import java.util.Calendar;
 import java.util.List;
 
 // A helper object that determines if entered transaction data is valid and collects error messages if not
 public class TransactionDataValidator {
 
     private final List<String> foundErrors;
+    private final FxRates rates;  // Rates used for USD transactions entered without one
 
     private String ticker;        // Name of Security
 
-    private Calendar date;        // Date of transaction
+    private LocalDate date;       // Date of transaction
     private boolean isSell;       // true for Sell
     private double value;         // Trade value in CAD or USD
 
@@ -25,14 +28,21 @@ public class TransactionDataValidator {
     private double commission;    // The commission charged by brokerage
 
     public TransactionDataValidator() {
+        this(FxRateTable.EMPTY);
+    }
+
+    // EFFECTS: Makes a validator that looks up the exchange rate in rates when a USD transaction is entered without
+    //          one
+    public TransactionDataValidator(FxRates rates) {
         foundErrors = new ArrayList<>();
+        this.rates = rates;
     }
 
     // MODIFIES: this, security
     // EFFECTS: Validates all the user date fields and adds the transaction if valid
     //          Returns true if new transaction was made, otherwise false
 
-    public boolean validateEntries(Security security, Calendar date, boolean isSell, boolean isUSD,
+    public boolean validateEntries(Security security, LocalDate date, boolean isSell, boolean isUSD,
                                    String valDollar, String valCents, String sharesStr, String comDollar,
                                    String comCents, String fxEntry) {
         this.ticker = security.getTicker();
@@ -59,12 +69,12 @@ public class TransactionDataValidator {
 
     // MODIFIES: this
     // EFFECTS: Validates the date information given and adds it to date field.  returns false if null value given
-    private boolean validateDate(Calendar date) {
+    private boolean validateDate(LocalDate date) {
+        this.date = date;
         if (date == null) {
             foundErrors.add("Date selection is invalid");
             return false;
         } else {
-            this.date = date;
             return true;
         }
     }
@@ -114,11 +124,14 @@ public class TransactionDataValidator {
     }
 
     // MODIFIES: this
-    // EFFECTS: Validates the fx information given and parses it if possible, returns false otherwise
+    // EFFECTS: Validates the fx information given and parses it if possible, returns false otherwise.  A blank rate
+    //          is looked up for the date in rates
     private boolean validatefxRate(String fxEntry) {
         if (!isUSD) {
             fxRate = 0;
             return true;
+        } else if (fxEntry.trim().isEmpty()) {
+            return lookUpFxRate();
         } else {
             try {
                 fxRate = Double.parseDouble(fxEntry);
@@ -130,6 +143,20 @@ public class TransactionDataValidator {
         }
     }
 
+    // MODIFIES: this
+    // EFFECTS: Sets the fx rate to the rate on file for the date, returns false if there is none
+    private boolean lookUpFxRate() {
+        if (date == null) {
+            // The date error is already reported and there is nothing to look up
+            return true;
+        } else if (rates.hasRate(date)) {
+            fxRate = rates.getRate(date);
+            return true;
+        }
+        foundErrors.add("No Fx Rate on file for that date, please enter one");
+        return false;
+    }
+
     // EFFECTS: Validates and parses a dollar amount from two strings
     private double parseDollars(String dollar, String cent) {
         int d;
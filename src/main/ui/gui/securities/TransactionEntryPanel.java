@@ -4,6 +4,7 @@ import model.Security;
 import org.jdatepicker.impl.JDatePanelImpl;
 import org.jdatepicker.impl.JDatePickerImpl;
 import org.jdatepicker.impl.UtilCalendarModel;
+import persistence.FxRateReader;
 import ui.gui.MenuFrame;
 
 import javax.swing.*;
@@ -12,6 +13,7 @@ import java.awt.event.ActionEvent;
 import java.awt.event.ActionListener;
 import java.text.ParseException;
 import java.text.SimpleDateFormat;
+import java.time.LocalDate;
 import java.util.Calendar;
 import java.util.List;
 import java.util.Properties;
@@ -23,7 +25,7 @@ public class TransactionEntryPanel extends MenuFrame implements ActionListener {
     private final int width = 720;
 
     private final Security security;
-    TransactionDataValidator tdv = new TransactionDataValidator();
+    TransactionDataValidator tdv = new TransactionDataValidator(FxRateReader.readDefault());
 
     private final JPanel dataPanel = new JPanel();
     private final JPanel buttonPanel = new JPanel();
@@ -111,6 +113,7 @@ public class TransactionEntryPanel extends MenuFrame implements ActionListener {
         JPanel fxPanel = new JPanel();
         fxPanel.add(new JLabel("USD to CAD rate"));
         fxPanel.add(fxDollar);
+        fxDollar.setToolTipText("Leave blank to use the rate on file for the date");
 
         dataPanel.add(fxPanel);
     }
@@ -161,7 +164,7 @@ public class TransactionEntryPanel extends MenuFrame implements ActionListener {
     //          Returns true if a valid transaction was entered, false otherwise
     private void validateData() {
 
-        Calendar date = (Calendar) datePicker.getModel().getValue();
+        LocalDate date = toLocalDate((Calendar) datePicker.getModel().getValue());
         boolean isSell = (buyOrSell.getSelectedItem() == "Sell");
         boolean isUSD = (currency.getSelectedItem() == "USD");
 
@@ -179,6 +182,15 @@ public class TransactionEntryPanel extends MenuFrame implements ActionListener {
         }
     }
 
+    // EFFECTS: Converts the date selected in the date picker to a LocalDate, returns null if nothing is selected
+    private LocalDate toLocalDate(Calendar picked) {
+        if (picked == null) {
+            return null;
+        }
+        return LocalDate.of(picked.get(Calendar.YEAR), picked.get(Calendar.MONTH) + 1,
+                picked.get(Calendar.DAY_OF_MONTH));
+    }
+
     // MODIFIES: this
     // EFFECTS:  Notifies a user of the errors found in data validation
     private void notifyUserErrors(List<String> foundErrors) {
@@ -1,14 +1,15 @@
 package ui.gui.securities;
 
+import model.DollarFormat;
 import model.Security;
 import model.Transaction;
+import model.TransactionType;
 
 import javax.swing.*;
 import java.awt.*;
 import java.util.LinkedList;
 import java.util.List;
 
-import static ui.gui.securities.SecurityMenu.DOLLAR_FORMAT;
 
 public class TransactionHistogram extends JPanel {
 
@@ -37,7 +38,8 @@ public class TransactionHistogram extends JPanel {
     private void getTradeHistory(Security s) {
         for (Transaction t : s.getTransactionList()) {
             double value = t.getValue();
-            if (t.getBuyOrSell()) {
+            // Money coming back from a sale or a return of capital is drawn below the line
+            if (t.getBuyOrSell() || t.getType() == TransactionType.RETURN_OF_CAPITAL) {
                 value = -1 * value;
             }
             addTradeValue(value);
@@ -93,7 +95,7 @@ public class TransactionHistogram extends JPanel {
         g.setColor(new Color(14, 13, 13));
         int x = 0;
         for (double val : tradeValues) {
-            g.drawString(DOLLAR_FORMAT.format(val), (x * width) + 10, getHeight() - 10);
+            g.drawString(DollarFormat.format(val), (x * width) + 10, getHeight() - 10);
             x++;
         }
     }
@@ -1,14 +1,13 @@
 package ui.gui.securities;
 
+import model.DollarFormat;
 import model.Security;
 import model.Transaction;
 
 import javax.swing.*;
 import javax.swing.table.DefaultTableModel;
 import java.awt.*;
-import java.text.SimpleDateFormat;
 
-import static ui.gui.securities.SecurityMenu.DOLLAR_FORMAT;
 
 public class TransactionTable extends JPanel {
 
@@ -23,7 +22,6 @@ public class TransactionTable extends JPanel {
             "Shares Total",
             "ACB Total"
     };
-    private SimpleDateFormat simpleDateFormat = new SimpleDateFormat("yyyy-MM-dd");
     private Security security;
 
     private JTable table;
@@ -84,29 +82,20 @@ public class TransactionTable extends JPanel {
         Object[] data;
         data = new Object[12];
 
-        data[0] = simpleDateFormat.format(t.getDate().getTime());
-        data[1] = getTransType(t.getBuyOrSell());
-        data[2] = DOLLAR_FORMAT.format(t.getValue());
+        data[0] = t.getDate().toString();  // yyyy-MM-dd
+        data[1] = t.getType().toString();
+        data[2] = DollarFormat.format(t.getValue());
         data[3] = getCurrencyType(t.getCurrency());
         data[4] = t.getFxRate();
         data[5] = t.getShares();
-        data[6] = DOLLAR_FORMAT.format(t.getCommission());
-        data[7] = DOLLAR_FORMAT.format(t.getGains());
+        data[6] = DollarFormat.format(t.getCommission());
+        data[7] = DollarFormat.format(t.getGains());
         data[8] = t.getNewTotalShares();
-        data[9] = DOLLAR_FORMAT.format(t.getNewTotalACB());
+        data[9] = DollarFormat.format(t.getNewTotalACB());
 
         return data;
     }
 
-    // EFFECTS: Parses the transaction type from a boolean value.  Returns the matching string
-    private String getTransType(boolean type) {
-        if (type) {
-            return "Sell";
-        } else {
-            return "Buy";
-        }
-    }
-
     // EFFECTS: Parses the currency type from a boolean value.
     private String getCurrencyType(boolean type) {
         if (type) {
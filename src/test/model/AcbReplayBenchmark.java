@@ -0,0 +1,119 @@
+package model;
+
+import java.util.Random;
+
+// A rough benchmark of replaying a long history with the fixed point money engine against the double arithmetic it
+// replaced.  The ACB and gains of each row are timed apart from the superficial loss rule and the yearly rollup,
+// which the double recurrence did not have, so that like is measured against like.  Run the main method directly,
+// it is not part of the test suite
+public class AcbReplayBenchmark {
+    private static final int ROWS = 2_000_000;
+    private static final int ROUNDS = 10;
+
+    private final boolean[] isSell = new boolean[ROWS];
+    private final boolean[] isUSD = new boolean[ROWS];
+    private final double[] values = new double[ROWS];
+    private final double[] fxRates = new double[ROWS];
+    private final int[] shares = new int[ROWS];
+    private final double[] commissions = new double[ROWS];
+    private final double[] gains = new double[ROWS];
+    private final int[] totalShares = new int[ROWS];
+    private final double[] totalAcbs = new double[ROWS];
+    private final TransactionStore store = new TransactionStore(false);      // every sale is at a gain
+    private final TransactionStore lossStore = new TransactionStore(false);  // every sale is at a superficial loss
+
+    public static void main(String[] args) {
+        AcbReplayBenchmark benchmark = new AcbReplayBenchmark();
+        benchmark.fill();
+        for (int round = 0; round < ROUNDS; round++) {
+            benchmark.round(round);
+        }
+    }
+
+    // EFFECTS: Times one replay of the history with doubles, the same replay in fixed point, the fixed point replay
+    //          of the history where every sale is a superficial loss, and the yearly rollup, and throws
+    //          AssertionError if the final ACBs of the double and fixed point replays differ by a cent or more
+    private void round(int round) {
+        long start = System.nanoTime();
+        double doubleAcb = replayDoubles();
+        long doubles = System.nanoTime();
+        store.replayCosts(0);
+        long plain = System.nanoTime();
+        lossStore.replayCosts(0);
+        long denying = System.nanoTime();
+        store.rollUp(0);
+        long rollUp = System.nanoTime();
+        double fixedAcb = Money.toDouble(store.getTotalAcb(ROWS - 1));
+        System.out.printf("round %d: double %5.1f ms, fixed point %5.1f ms, with superficial losses %5.1f ms, "
+                        + "rollup %5.1f ms, final acb %.2f vs %.2f%n", round, (doubles - start) / 1e6,
+                (plain - doubles) / 1e6, (denying - plain) / 1e6, (rollUp - denying) / 1e6, doubleAcb, fixedAcb);
+        if (Math.abs(doubleAcb - fixedAcb) >= .005) {
+            throw new AssertionError("The final ACBs differ by more than a cent");
+        }
+    }
+
+    // MODIFIES: this
+    // EFFECTS: Fills the columns and the store with the same random history of mostly buys.  Every sale is priced
+    //          above the cost of the shares it gives up, so no loss is superficial and the store denies nothing that
+    //          the double recurrence, which has no superficial loss rule, would count.  The loss store has the same
+    //          history with each sale at half the cost of its shares, and as most rows are buys a day apart nearly
+    //          every one of those losses is superficial
+    private void fill() {
+        Random random = new Random(210);
+        int held = 0;
+        double heldCost = 0;
+        for (int row = 0; row < ROWS; row++) {
+            isUSD[row] = random.nextBoolean();
+            fxRates[row] = isUSD[row] ? 1.25 + random.nextInt(2000) / 10000.0 : 0;
+            commissions[row] = random.nextInt(1000) / 100.0;
+            isSell[row] = random.nextInt(4) == 0 && held > 5;
+            shares[row] = 1 + random.nextInt(isSell[row] ? 5 : 20);
+            double rate = isUSD[row] ? fxRates[row] : 1;
+            double lossValue = 0;
+            if (isSell[row]) {
+                double cost = heldCost / held * shares[row] / rate;
+                values[row] = Math.ceil((cost + commissions[row]) * (1.01 + random.nextInt(50) / 100.0) * 100) / 100;
+                lossValue = Math.floor(cost * 50) / 100;
+                heldCost -= cost * rate;
+                held -= shares[row];
+            } else {
+                values[row] = random.nextInt(1000000) / 100.0;
+                heldCost += (values[row] + commissions[row]) * rate;
+                held += shares[row];
+            }
+            store.insert(row, makeTransaction(row, values[row]));
+            lossStore.insert(row, makeTransaction(row, isSell[row] ? lossValue : values[row]));
+        }
+    }
+
+    // EFFECTS: Returns the transaction of the row in the history at the given value
+    private Transaction makeTransaction(int row, double value) {
+        return new Transaction("BENCH", row, isSell[row], Money.of(value), isUSD[row], Money.rateOf(fxRates[row]),
+                shares[row], Money.of(commissions[row]));
+    }
+
+    // MODIFIES: this
+    // EFFECTS: Replays the history with the double recurrence that was used before fixed point money, keeping the
+    //          gains, total shares and total ACB of each row as Transaction.updateTransaction did, returns the final
+    //          ACB
+    private double replayDoubles() {
+        int prevShares = 0;
+        double prevAcb = 0;
+        for (int row = 0; row < ROWS; row++) {
+            double val = isUSD[row] ? values[row] * fxRates[row] : values[row];
+            double com = isUSD[row] ? commissions[row] * fxRates[row] : commissions[row];
+            if (isSell[row]) {
+                gains[row] = val - com - (prevAcb / prevShares) * shares[row];
+                prevAcb = (prevAcb * (prevShares - shares[row])) / prevShares;
+                prevShares -= shares[row];
+            } else {
+                gains[row] = 0;
+                prevAcb += val + com;
+                prevShares += shares[row];
+            }
+            totalShares[row] = prevShares;
+            totalAcbs[row] = prevAcb;
+        }
+        return prevAcb;
+    }
+}
@@ -0,0 +1,110 @@
+package model;
+
+import exceptions.NoTickerException;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDate;
+import java.time.Month;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ConcurrentPortfolioTest {
+    private static final int THREADS = 4;
+    private static final int TRADES = 500;
+
+    ConcurrentPortfolio testPort;
+    LocalDate date1;
+
+    @BeforeEach
+    void setup() {
+        testPort = new ConcurrentPortfolio("Shared");
+        date1 = LocalDate.of(2020, Month.NOVEMBER, 20);
+    }
+
+    @Test
+    void testBehavesLikePortfolio() {
+        assertTrue(testPort.addNewSecurity("BNS"));
+        assertFalse(testPort.addNewSecurity("BNS"));
+        testPort.addTransaction(new Transaction("BNS", date1, false, 1089.18,
+                false, 0, 10, 4.99));
+
+        assertEquals(1, testPort.getNumHoldings());
+        assertEquals(1, testPort.getSummary().size());
+        assertEquals(1, testPort.searchTransactions("BNS").size());
+        assertEquals(10, testPort.positionsAsOf(date1).get(0).getShares());
+        assertEquals(1094.17, testPort.getHoldings().get(0).getAcb(), .005);
+
+        testPort.setName("Renamed");
+        assertEquals("Renamed", testPort.getName());
+        assertEquals("Renamed", testPort.toJson().getString("name"));
+
+        assertTrue(testPort.removeSecurity("BNS"));
+        try {
+            testPort.matchString("BNS");
+            fail();
+        } catch (NoTickerException e) {
+            //Pass
+        }
+    }
+
+    @Test
+    void testGetHoldingsIsACopy() {
+        testPort.addNewSecurity("BNS");
+        List<Security> holdings = testPort.getHoldings();
+        testPort.addNewSecurity("BRK");
+
+        assertEquals(1, holdings.size());
+        assertEquals(2, testPort.getHoldings().size());
+    }
+
+    @Test
+    void testWritersAndReadersAtOnce() throws Exception {
+        for (int i = 0; i < THREADS; i++) {
+            testPort.addNewSecurity("T" + i);
+        }
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS * 2);
+        List<Future<?>> futures = new ArrayList<>();
+        for (int i = 0; i < THREADS; i++) {
+            String ticker = "T" + i;
+            futures.add(executor.submit(() -> writeTrades(ticker)));
+            futures.add(executor.submit(() -> readPositions(ticker)));
+        }
+        for (Future<?> future : futures) {
+            future.get();
+        }
+        executor.shutdown();
+        assertTrue(executor.awaitTermination(10, TimeUnit.SECONDS));
+
+        for (int i = 0; i < THREADS; i++) {
+            Security s = testPort.matchString("T" + i);
+            assertEquals(TRADES, s.getNumTransactions());
+            assertEquals(TRADES * 2, s.getShares());
+            assertEquals(TRADES * 20, s.getAcb(), .005);
+        }
+    }
+
+    // EFFECTS: Buys 2 shares of the ticker for $20 on each of TRADES days, in a scrambled order
+    private void writeTrades(String ticker) {
+        for (int i = 0; i < TRADES; i++) {
+            testPort.addTransaction(new Transaction(ticker, date1.plusDays((i * 7919L) % TRADES), false, 20,
+                    false, 0, 2, 0));
+        }
+    }
+
+    // EFFECTS: Reads the holdings while they are being written, checking the shares and acb always agree
+    private void readPositions(String ticker) {
+        for (int i = 0; i < TRADES; i++) {
+            Position held = testPort.matchString(ticker).getPosition();
+            assertEquals(held.getShares() * 10, held.getAcb(), .005);
+            assertEquals(THREADS, testPort.getSummary().size());
+            testPort.matchString(ticker).copyHistory();
+        }
+    }
+}
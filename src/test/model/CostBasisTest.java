@@ -0,0 +1,92 @@
+package model;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CostBasisTest {
+
+    @Test
+    void testAverageCost() {
+        CostBasis basis = CostBasisMethod.AVERAGE_COST.newCostBasis();
+        basis.buy(10, Money.of(100));
+        assertEquals(Money.of(30), basis.sell(3, 10, Money.of(100)));
+        assertEquals(0, basis.sell(3, 0, 0));
+        assertTrue(basis.deniesSuperficialLosses());
+        assertFalse(basis.holdsLots());
+        assertSame(basis, basis.copy());
+    }
+
+    @Test
+    void testFifoOldestFirst() {
+        CostBasis basis = CostBasisMethod.FIFO.newCostBasis();
+        basis.buy(10, Money.of(100));
+        basis.buy(10, Money.of(300));
+        basis.buy(10, Money.of(200));
+
+        assertEquals(Money.of(50), basis.sell(5, 30, Money.of(600)));
+        assertEquals(Money.of(50 + 150), basis.sell(10, 25, Money.of(550)));
+        assertEquals(Money.of(150 + 200), basis.sell(15, 15, Money.of(350)));
+        // Nothing is left to give up
+        assertEquals(0, basis.sell(1, 0, 0));
+        assertFalse(basis.deniesSuperficialLosses());
+        assertTrue(basis.holdsLots());
+        assertEquals(0, basis.lotCount());
+    }
+
+    @Test
+    void testHighestCostFirst() {
+        CostBasis basis = CostBasisMethod.HIGHEST_COST_FIRST.newCostBasis();
+        basis.buy(10, Money.of(100));
+        basis.buy(10, Money.of(300));
+        basis.buy(5, Money.of(200));
+
+        assertEquals(Money.of(200), basis.sell(5, 25, Money.of(600)));
+        assertEquals(Money.of(300 + 50), basis.sell(15, 20, Money.of(400)));
+        assertEquals(Money.of(50), basis.sell(5, 5, Money.of(50)));
+        assertEquals(0, basis.sell(1, 0, 0));
+        assertTrue(basis.holdsLots());
+    }
+
+    @Test
+    void testManyLotsMatchSlowWay() {
+        CostBasis fifo = CostBasisMethod.FIFO.newCostBasis();
+        CostBasis highest = CostBasisMethod.HIGHEST_COST_FIRST.newCostBasis();
+        // Buy lots costing 1 to 1000 per share in a scrambled order, then sell them one lot at a time
+        for (int i = 0; i < 1000; i++) {
+            int unit = (i * 389) % 1000 + 1;
+            fifo.buy(2, Money.of(2 * unit));
+            highest.buy(2, Money.of(2 * unit));
+            if (i % 3 == 2) {
+                // Selling as we go wraps the queue around
+                assertEquals(Money.of(2 * (((i / 3) * 389) % 1000 + 1)), fifo.sell(2, 0, 0));
+            }
+        }
+        for (int unit = 1000; unit > 0; unit--) {
+            assertEquals(Money.of(2 * unit), highest.sell(2, 0, 0));
+        }
+    }
+
+    @Test
+    void testCopiesKeepTheirLots() {
+        copyKeepsLots(CostBasisMethod.FIFO.newCostBasis());
+        copyKeepsLots(CostBasisMethod.HIGHEST_COST_FIRST.newCostBasis());
+    }
+
+    // EFFECTS: Checks a copy of the basis holds the same lots and that neither changes when the other does
+    void copyKeepsLots(CostBasis basis) {
+        for (int i = 0; i < 20; i++) {
+            basis.buy(1, Money.of(10 + i));
+        }
+        basis.sell(5, 20, 0);
+        CostBasis copy = basis.copy();
+        assertEquals(15, copy.lotCount());
+
+        long cost = basis.sell(7, 15, 0);
+        assertEquals(15, copy.lotCount());
+        copy.buy(1, Money.of(1));
+        assertEquals(cost, copy.sell(7, 16, 0));
+        assertEquals(8, basis.lotCount());
+        assertEquals(9, copy.lotCount());
+    }
+}
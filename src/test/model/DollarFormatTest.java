@@ -0,0 +1,84 @@
+package model;
+
+import org.junit.jupiter.api.Test;
+
+import java.text.NumberFormat;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class DollarFormatTest {
+
+    @Test
+    void testFormat() {
+        assertEquals("$0.00", DollarFormat.format(0));
+        assertEquals("$0.05", DollarFormat.format(Money.of(0.05)));
+        assertEquals("$999.99", DollarFormat.format(Money.of(999.99)));
+        assertEquals("$1,000.00", DollarFormat.format(Money.of(1000)));
+        assertEquals("$1,094.17", DollarFormat.format(1094.17));
+        assertEquals("$12,345,678.90", DollarFormat.format(12345678.9));
+        assertEquals("$1,000,005.00", DollarFormat.format(1000005.0));
+        assertEquals("-$0.25", DollarFormat.format(-0.25));
+        assertEquals("-$1,500.10", DollarFormat.format(-1500.1));
+    }
+
+    @Test
+    void testRoundsHalvesAwayFromZero() {
+        assertEquals("$0.01", DollarFormat.format(Money.SCALE / 200));
+        assertEquals("$0.00", DollarFormat.format(Money.SCALE / 200 - 1));
+        assertEquals("-$0.01", DollarFormat.format(-Money.SCALE / 200));
+        assertEquals("$0.00", DollarFormat.format(-1));
+    }
+
+    @Test
+    void testAppendReusesBuilder() {
+        StringBuilder out = new StringBuilder("ACB: ");
+        assertSame(out, DollarFormat.append(out, Money.of(20.5)));
+        DollarFormat.append(out.append(" and "), Money.of(-3));
+        assertEquals("ACB: $20.50 and -$3.00", out.toString());
+    }
+
+    @Test
+    void testMatchesNumberFormat() {
+        NumberFormat expected = NumberFormat.getCurrencyInstance(Locale.CANADA);
+        Random random = new Random(14);
+        for (int i = 0; i < 10000; i++) {
+            // Whole cents so the two rounding rules never disagree
+            long cents = random.nextLong() % 1_000_000_000_000L;
+            assertEquals(expected.format(cents / 100.0), DollarFormat.format(cents * (Money.SCALE / 100)));
+        }
+    }
+
+    @Test
+    void testSharedBetweenThreads() throws Exception {
+        ExecutorService pool = Executors.newFixedThreadPool(8);
+        try {
+            List<Future<Boolean>> results = new ArrayList<>();
+            for (int t = 0; t < 8; t++) {
+                final long offset = t;
+                results.add(pool.submit(() -> {
+                    for (long cents = offset; cents < 200000; cents += 8) {
+                        String dollars = Long.toString(cents / 100);
+                        String expected = (cents >= 100000 ? "$" + dollars.charAt(0) + "," + dollars.substring(1)
+                                : "$" + dollars) + "." + (cents % 100 < 10 ? "0" : "") + cents % 100;
+                        if (!expected.equals(DollarFormat.format(cents * (Money.SCALE / 100)))) {
+                            return false;
+                        }
+                    }
+                    return true;
+                }));
+            }
+            for (Future<Boolean> result : results) {
+                assertTrue(result.get());
+            }
+        } finally {
+            pool.shutdown();
+        }
+    }
+}
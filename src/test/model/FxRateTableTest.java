@@ -0,0 +1,61 @@
+package model;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDate;
+import java.time.Month;
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class FxRateTableTest {
+    LocalDate friday;
+    FxRateTable table;
+
+    @BeforeEach
+    void setup() {
+        friday = LocalDate.of(2020, Month.JUNE, 5);
+        Map<LocalDate, Double> rates = new HashMap<>();
+        rates.put(friday, 1.3540);
+        rates.put(friday.plusDays(3), 1.3412);
+        rates.put(friday.minusDays(1), 1.3580);
+        table = new FxRateTable(rates);
+    }
+
+    @Test
+    void testRateOnBusinessDays() {
+        assertEquals(1.3580, table.getRate(friday.minusDays(1)));
+        assertEquals(1.3540, table.getRate(friday));
+        assertEquals(1.3412, table.getRate(friday.plusDays(3)));
+        assertEquals(5, table.getNumDays());
+    }
+
+    @Test
+    void testWeekendUsesPreviousBusinessDay() {
+        assertEquals(1.3540, table.getRate(friday.plusDays(1)));
+        assertEquals(1.3540, table.getRate(friday.plusDays(2)));
+    }
+
+    @Test
+    void testOutsideTable() {
+        assertFalse(table.hasRate(friday.minusDays(2)));
+        assertTrue(table.hasRate(friday.plusDays(3 + FxRateTable.MAX_STALE_DAYS)));
+        assertEquals(1.3412, table.getRate(friday.plusDays(3 + FxRateTable.MAX_STALE_DAYS)));
+        assertFalse(table.hasRate(friday.plusDays(4 + FxRateTable.MAX_STALE_DAYS)));
+        try {
+            table.getRate(friday.minusDays(2));
+            fail("No rate before the first one");
+        } catch (IllegalArgumentException e) {
+            // Pass
+        }
+    }
+
+    @Test
+    void testEmpty() {
+        assertFalse(FxRateTable.EMPTY.hasRate(friday));
+        assertFalse(new FxRateTable(new HashMap<>()).hasRate(LocalDate.ofEpochDay(0)));
+        assertEquals(0, FxRateTable.EMPTY.getNumDays());
+    }
+}
@@ -0,0 +1,124 @@
+package model;
+
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.math.RoundingMode;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class MoneyTest {
+
+    @Test
+    void testConversions() {
+        assertEquals(108918000000L, Money.of(1089.18));
+        assertEquals(-499000000L, Money.of(-4.99));
+        assertEquals(1089.18, Money.toDouble(Money.of(1089.18)));
+        assertEquals(1335600L, Money.rateOf(1.3356));
+        assertEquals(1.3356, Money.rateToDouble(Money.rateOf(1.3356)));
+    }
+
+    @Test
+    void testDivideRoundsHalfAwayFromZero() {
+        assertEquals(3, Money.divide(5, 2));
+        assertEquals(-3, Money.divide(-5, 2));
+        assertEquals(-3, Money.divide(5, -2));
+        assertEquals(2, Money.divide(7, 3));
+        assertEquals(-2, Money.divide(-7, 3));
+        assertEquals(3, Money.divide(8, 3));
+    }
+
+    @Test
+    void testToCad() {
+        long value = Money.of(420.20);
+        assertEquals(value, Money.toCad(value, false, Money.rateOf(1.3356)));
+        assertEquals(Money.of(561.21912), Money.toCad(value, true, Money.rateOf(1.3356)));
+    }
+
+    @Test
+    void testToCadMatchesMulDiv() {
+        // The branch-free path must round the same way as mulDiv, including past the amounts where it gives way
+        Random random = new Random(2101);
+        for (int i = 0; i < 100000; i++) {
+            long amount = (random.nextBoolean() ? 1 : -1) * (random.nextLong() >> (random.nextInt(40)));
+            long rate = 1 + (random.nextLong() >>> (38 + random.nextInt(24)));
+            assertEquals(amount, Money.toCad(amount, false, rate));
+            try {
+                assertEquals(Money.mulDiv(amount, rate, Money.RATE_SCALE), Money.toCad(amount, true, rate));
+            } catch (ArithmeticException e) {
+                assertThrows(ArithmeticException.class, () -> Money.toCad(amount, true, rate));
+            }
+        }
+        assertEquals(1, Money.toCad(1, true, Money.RATE_SCALE / 2));
+        assertEquals(-1, Money.toCad(-1, true, Money.RATE_SCALE / 2));
+        assertEquals(0, Money.toCad(1, true, Money.RATE_SCALE / 2 - 1));
+    }
+
+    @Test
+    void testCostOfShares() {
+        assertEquals(0, Money.costOfShares(Money.of(100), 5, 0));
+        assertEquals(Money.of(50), Money.costOfShares(Money.of(100), 5, 10));
+        // One third of a cent rounds to the nearest micro-cent
+        assertEquals(333333, Money.costOfShares(Money.of(.01), 1, 3));
+    }
+
+    @Test
+    void testMulDivMatchesExactArithmetic() {
+        Random random = new Random(210);
+        for (int i = 0; i < 10000; i++) {
+            long a = random.nextLong() >> random.nextInt(40);
+            long b = random.nextLong() >> (24 + random.nextInt(40));
+            long divisor = (random.nextLong() >> random.nextInt(63)) | 1;
+            BigDecimal exact = new BigDecimal(BigInteger.valueOf(a).multiply(BigInteger.valueOf(b)))
+                    .divide(BigDecimal.valueOf(divisor), 0, RoundingMode.HALF_UP);
+            if (exact.toBigInteger().bitLength() < 64) {
+                assertEquals(exact.longValueExact(), Money.mulDiv(a, b, divisor));
+            } else {
+                assertThrows(ArithmeticException.class, () -> Money.mulDiv(a, b, divisor));
+            }
+        }
+    }
+
+    // EFFECTS: Asserts that mulDiv gives a * b / divisor rounded half away from zero, or throws if that is too large
+    private void assertMulDivExact(long a, long b, long divisor) {
+        BigDecimal exact = new BigDecimal(BigInteger.valueOf(a).multiply(BigInteger.valueOf(b)))
+                .divide(BigDecimal.valueOf(divisor), 0, RoundingMode.HALF_UP);
+        if (exact.toBigInteger().bitLength() < 64) {
+            assertEquals(exact.longValueExact(), Money.mulDiv(a, b, divisor), a + " * " + b + " / " + divisor);
+        } else {
+            assertThrows(ArithmeticException.class, () -> Money.mulDiv(a, b, divisor));
+        }
+    }
+
+    @Test
+    void testMulDivWideProducts() {
+        // Products past 64 bits with divisors of every width, the path a large ACB takes on every sale
+        Random random = new Random(2100);
+        for (int i = 0; i < 100000; i++) {
+            long a = random.nextLong() >> random.nextInt(8);
+            long b = random.nextLong() >> random.nextInt(48);
+            long divisor = random.nextLong() >> random.nextInt(64);
+            assertMulDivExact(a, b, divisor == 0 ? 1 : divisor);
+        }
+        long[] edges = {1, -1, 2, 3, 0xFFFFFFFFL, 0x100000000L, 0x100000001L, Long.MAX_VALUE, Long.MIN_VALUE,
+                Long.MAX_VALUE - 1, Long.MIN_VALUE + 1, 1L << 62, (1L << 62) + 1};
+        for (long a : edges) {
+            for (long b : edges) {
+                for (long divisor : edges) {
+                    assertMulDivExact(a, b, divisor);
+                }
+            }
+        }
+    }
+
+    @Test
+    void testMulDivLargeAmounts() {
+        // $90,000,000 of shares converted at 1.3356 does not overflow the intermediate product
+        long value = Money.of(90000000);
+        assertEquals(Money.of(120204000), Money.mulDiv(value, Money.rateOf(1.3356), Money.RATE_SCALE));
+        assertEquals(-Money.of(120204000), Money.mulDiv(-value, Money.rateOf(1.3356), Money.RATE_SCALE));
+        assertThrows(ArithmeticException.class, () -> Money.mulDiv(Long.MAX_VALUE, 3, 2));
+    }
+}
@@ -0,0 +1,72 @@
+package model;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PersistentVectorTest {
+
+    @Test
+    void testEmpty() {
+        PersistentVector<Integer> empty = PersistentVector.empty();
+        assertEquals(0, empty.size());
+        assertSame(empty, empty.append(1).pop());
+    }
+
+    @Test
+    void testAppendAndGetAcrossLevels() {
+        PersistentVector<Integer> vector = PersistentVector.empty();
+        // Enough elements for a root three levels deep
+        for (int i = 0; i < 40000; i++) {
+            vector = vector.append(i);
+            assertEquals(i + 1, vector.size());
+        }
+        for (int i = 0; i < 40000; i++) {
+            assertEquals(i, vector.get(i));
+        }
+    }
+
+    @Test
+    void testPopMatchesList() {
+        PersistentVector<Integer> vector = PersistentVector.empty();
+        List<Integer> expected = new ArrayList<>();
+        for (int i = 0; i < 1100; i++) {
+            vector = vector.append(i);
+            expected.add(i);
+        }
+        while (vector.size() > 0) {
+            vector = vector.pop();
+            expected.remove(expected.size() - 1);
+            assertEquals(expected.size(), vector.size());
+            if (vector.size() % 31 == 0) {
+                for (int i = 0; i < vector.size(); i++) {
+                    assertEquals(expected.get(i), vector.get(i));
+                }
+            }
+        }
+    }
+
+    @Test
+    void testOldVersionsUnchanged() {
+        PersistentVector<Integer> original = PersistentVector.empty();
+        for (int i = 0; i < 2000; i++) {
+            original = original.append(i);
+        }
+        PersistentVector<Integer> changed = original.truncate(1000);
+        for (int i = 0; i < 1500; i++) {
+            changed = changed.append(-i);
+        }
+
+        assertEquals(2000, original.size());
+        assertEquals(2500, changed.size());
+        for (int i = 0; i < 2000; i++) {
+            assertEquals(i, original.get(i));
+        }
+        assertEquals(999, changed.get(999));
+        assertEquals(0, changed.get(1000));
+        assertEquals(-1499, changed.get(2499));
+    }
+}
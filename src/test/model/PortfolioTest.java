@@ -4,28 +4,33 @@ import exceptions.NoTickerException;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 
-import java.util.Calendar;
+import java.time.LocalDate;
+import java.time.Month;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.SortedMap;
+import java.util.concurrent.ForkJoinPool;
 
 import static org.junit.jupiter.api.Assertions.*;
 
 class PortfolioTest {
     Portfolio testPort;
-    Calendar date1;
-    Calendar date2;
-    Calendar date3;
+    LocalDate date1;
+    LocalDate date2;
+    LocalDate date3;
     Transaction buyBNS;
     Transaction buyBRKusd;
 
     @BeforeEach
     void setup() {
         testPort = new Portfolio("Simon");
-        date1 = Calendar.getInstance();
-        date2 = Calendar.getInstance();
-        date3 = Calendar.getInstance();
-        date1.set(2020, Calendar.NOVEMBER, 20);
-        date2.set(2019, Calendar.JUNE, 5);
-        date3.set(2021, Calendar.MARCH, 20);
+        date1 = LocalDate.of(2020, Month.NOVEMBER, 20);
+        date2 = LocalDate.of(2019, Month.JUNE, 5);
+        date3 = LocalDate.of(2021, Month.MARCH, 20);
     }
 
     void setTransactions() {
@@ -71,6 +76,29 @@ class PortfolioTest {
         assertFalse(testPort.hasTicker("BNS"));
     }
 
+    @Test
+    void testRemoveSecurityKeepsOrderAndLookup() {
+        testPort.addNewSecurity("bns");
+        testPort.addNewSecurity("BRK");
+        testPort.addNewSecurity("BNS");
+        testPort.addNewSecurity("AAA");
+
+        assertTrue(testPort.removeSecurity("bns"));
+        assertEquals(3, testPort.getNumHoldings());
+        assertEquals("AAA", testPort.getTickers().get(0));
+        assertEquals("BNS", testPort.getTickers().get(1));
+        assertEquals("BRK", testPort.getTickers().get(2));
+        assertEquals("BNS", testPort.matchString("BNS").getTicker());
+        try {
+            testPort.matchString("bns");
+            fail();
+        } catch (NoTickerException e) {
+            //Pass
+        }
+        assertTrue(testPort.addNewSecurity("bns"));
+        assertEquals("bns", testPort.getTickers().get(2));
+    }
+
     @Test
     void testRemoveSecurityNonExisting() {
         testPort.addNewSecurity("BRK");
@@ -101,6 +129,114 @@ class PortfolioTest {
         }
     }
 
+    @Test
+    void testAddTransactionsGroupsByTicker() {
+        setTransactions();
+        testPort.addNewSecurity("BNS");
+        testPort.addNewSecurity("BRK");
+        Transaction sellBNS = new Transaction("BNS", date3, true, 600,
+                false, 0, 5, 4.99);
+        testPort.addTransactions(Arrays.asList(sellBNS, buyBRKusd, buyBNS));
+
+        assertEquals(2, testPort.searchTransactions("BNS").size());
+        assertEquals(1, testPort.searchTransactions("BRK").size());
+        assertEquals(5, testPort.matchString("BNS").getShares());
+        assertEquals(90, testPort.matchString("BRK").getShares());
+    }
+
+    @Test
+    void testAddTransactionsParallelMatchesSerial() {
+        Portfolio serial = new Portfolio("Serial");
+        List<Transaction> transactions = new ArrayList<>();
+        List<Transaction> copies = new ArrayList<>();
+        for (int i = 0; i < 2000; i++) {
+            String ticker = "T" + (i % 37);
+            LocalDate date = date2.plusDays((i * 7919L) % 1500);
+            boolean isSell = i % 5 == 4;
+            transactions.add(new Transaction(ticker, date, isSell, 100 + i, false, 0, isSell ? 1 : 3, 4.99));
+            copies.add(new Transaction(ticker, date, isSell, 100 + i, false, 0, isSell ? 1 : 3, 4.99));
+        }
+        for (int i = 0; i < 37; i++) {
+            testPort.addNewSecurity("T" + i);
+            serial.addNewSecurity("T" + i);
+        }
+        testPort.addTransactions(transactions, new ForkJoinPool(4));
+        serial.addTransactions(copies);
+
+        for (String ticker : serial.getTickers()) {
+            assertEquals(serial.searchTransactions(ticker), testPort.searchTransactions(ticker));
+            assertEquals(serial.matchString(ticker).getAcb(), testPort.matchString(ticker).getAcb());
+        }
+    }
+
+    @Test
+    void testAddTransactionsParallelNonExisting() {
+        setTransactions();
+        testPort.addNewSecurity("BNS");
+        try {
+            testPort.addTransactions(Arrays.asList(buyBNS, buyBRKusd), ForkJoinPool.commonPool());
+            fail();
+        } catch (NoTickerException e) {
+            //Pass
+        }
+        assertEquals(0, testPort.matchString("BNS").getNumTransactions());
+    }
+
+    @Test
+    void testAddTransactionsNonExisting() {
+        setTransactions();
+        testPort.addNewSecurity("BNS");
+        try {
+            testPort.addTransactions(Arrays.asList(buyBNS, buyBRKusd));
+            fail();
+        } catch (NoTickerException e) {
+            //Pass
+        }
+        assertEquals(0, testPort.matchString("BNS").getNumTransactions());
+    }
+
+    @Test
+    void testPositionsAsOf() {
+        setTransactions();
+        testPort.addNewSecurity("BRK");
+        testPort.addNewSecurity("BNS");
+        testPort.addTransaction(buyBNS);
+        testPort.addTransaction(buyBRKusd);
+
+        List<Position> positions = testPort.positionsAsOf(date1);
+        assertEquals(2, positions.size());
+        assertEquals("BNS", positions.get(0).getTicker());
+        assertEquals(10, positions.get(0).getShares());
+        assertEquals("BRK", positions.get(1).getTicker());
+        assertEquals(0, positions.get(1).getShares());
+
+        positions = testPort.positionsAsOf(date3);
+        assertEquals(90, positions.get(1).getShares());
+        assertEquals((6543.21 + 5.99) * 1.3356, positions.get(1).getAcb(), .005);
+    }
+
+    @Test
+    void testSnapshot() {
+        setTransactions();
+        testPort.addNewSecurity("BRK");
+        testPort.addNewSecurity("BNS");
+        testPort.addTransaction(buyBNS);
+        PortfolioSnapshot snapshot = testPort.snapshot();
+        List<String> summary = testPort.getSummary();
+
+        testPort.addTransaction(buyBRKusd);
+        testPort.removeSecurity("BNS");
+        testPort.setName("Changed");
+
+        assertEquals("Simon", snapshot.getName());
+        assertEquals(2, snapshot.getNumHoldings());
+        assertEquals(Arrays.asList("BNS", "BRK"), snapshot.getTickers());
+        assertEquals(summary, snapshot.getSummary());
+        assertEquals(10, snapshot.positionsAsOf(date3).get(0).getShares());
+        assertEquals(0, snapshot.getHoldings().get(1).getNumTransactions());
+        assertEquals(testPort.getSummary(), testPort.snapshot().getSummary());
+    }
+
     @Test
     void testGetTickers() {
         testPort.addNewSecurity("BRK");
@@ -113,6 +249,22 @@ class PortfolioTest {
         assertEquals("AAA", testPort.getTickers().get(0));
     }
 
+    @Test
+    void testGetTickersManyInsertions() {
+        // Insert in a scrambled order and check the holdings come out sorted
+        for (int i = 0; i < 500; i++) {
+            assertTrue(testPort.addNewSecurity("T" + ((i * 7919) % 500)));
+        }
+        assertEquals(500, testPort.getNumHoldings());
+
+        List<String> tickers = testPort.getTickers();
+        for (int i = 1; i < tickers.size(); i++) {
+            assertTrue(tickers.get(i - 1).compareToIgnoreCase(tickers.get(i)) < 0);
+        }
+        assertTrue(testPort.hasTicker("T499"));
+        assertFalse(testPort.addNewSecurity("T250"));
+    }
+
     @Test
     void testHasTicker() {
         testPort.addNewSecurity("BRK");
@@ -224,10 +376,9 @@ class PortfolioTest {
         testPort.addNewSecurity("BNS");
         testPort.addTransaction(new Transaction("BNS", date3, false, 500,
                 false, 0, 5, 4.99));
-        Transaction tax = new Transaction("BNS", date2, true, 500,
+        Transaction tax = new Transaction("BNS", LocalDate.of(2021, Month.JUNE, 5), true, 500,
                 false, 0, 5, 4.99);
         setTransactions();
-        date2.set(2021, Calendar.JUNE, 5);
         testPort.addTransaction(tax);
         assertTrue(testPort.getTaxTransactions(2020).isEmpty());
         assertTrue(testPort.getTaxTransactions(2022).isEmpty());
@@ -236,6 +387,142 @@ class PortfolioTest {
 
     }
 
+    @Test
+    void testGetTaxSlips() {
+        testPort.addNewSecurity("BNS");
+        testPort.addNewSecurity("ABC");
+        testPort.addTransaction(new Transaction("BNS", LocalDate.of(2020, Month.JANUARY, 1), false, 500,
+                false, 0, 10, 0));
+        testPort.addTransaction(new Transaction("ABC", LocalDate.of(2020, Month.JANUARY, 1), false, 500,
+                false, 0, 10, 0));
+        Transaction sellBNS = new Transaction("BNS", LocalDate.of(2021, Month.DECEMBER, 31), true, 100,
+                false, 0, 1, 0);
+        Transaction sellABC = new Transaction("ABC", LocalDate.of(2021, Month.JANUARY, 1), true, 100,
+                false, 0, 1, 0);
+        testPort.addTransaction(sellBNS);
+        testPort.addTransaction(sellABC);
+        testPort.addTransaction(new Transaction("BNS", LocalDate.of(2022, Month.JANUARY, 1), true, 100,
+                false, 0, 1, 0));
+
+        assertEquals(Arrays.asList(sellABC, sellBNS), testPort.getTaxSlips(2021));
+        assertTrue(testPort.getTaxSlips(2020).isEmpty());
+        assertEquals(1, testPort.getTaxSlips(2022).size());
+
+        testPort.matchString("BNS").removeTransaction(1);
+        assertEquals(Collections.singletonList(sellABC), testPort.getTaxSlips(2021));
+        assertEquals(0, testPort.matchString("BNS").getNumSales(2021));
+    }
+
+    @Test
+    void testGetYearlyGains() {
+        testPort.addNewSecurity("BNS");
+        testPort.addNewSecurity("ABC");
+        testPort.addTransaction(new Transaction("BNS", LocalDate.of(2020, Month.JANUARY, 1), false, 500,
+                false, 0, 10, 0));
+        testPort.addTransaction(new Transaction("ABC", LocalDate.of(2020, Month.JANUARY, 1), false, 500,
+                true, 1.25, 10, 0));
+        testPort.addTransaction(new Transaction("BNS", LocalDate.of(2021, Month.DECEMBER, 31), true, 100,
+                false, 0, 1, 10));
+        testPort.addTransaction(new Transaction("ABC", LocalDate.of(2021, Month.JANUARY, 1), true, 100,
+                true, 1.25, 1, 0));
+
+        YearlyGains gains = testPort.getGains(2021);
+        assertEquals(2, gains.getNumSales());
+        assertEquals(225, gains.getProceeds(), .005);
+        assertEquals(10, gains.getCommissions(), .005);
+        assertEquals(112.5, gains.getCost(), .005);
+        assertEquals(225 - 10 - 112.5, gains.getGains(), .005);
+        assertEquals(0, testPort.getGains(2020).getNumSales());
+        assertEquals(Collections.singletonList(2021), new ArrayList<>(testPort.getYearlyGains().keySet()));
+
+        Portfolio other = new Portfolio("Other");
+        other.addNewSecurity("BNS");
+        other.addTransaction(new Transaction("BNS", LocalDate.of(2019, Month.JANUARY, 1), false, 100,
+                false, 0, 1, 0));
+        other.addTransaction(new Transaction("BNS", LocalDate.of(2021, Month.MAY, 1), true, 150,
+                false, 0, 1, 0));
+        SortedMap<Integer, YearlyGains> totals = Portfolio.getYearlyGains(Arrays.asList(testPort, other));
+        assertEquals(1, totals.size());
+        assertEquals(3, totals.get(2021).getNumSales());
+        assertEquals(225 - 10 - 112.5 + 50, totals.get(2021).getGains(), .005);
+    }
+
+    @Test
+    void testValuation() {
+        PriceSource prices = new PriceSource() {
+            @Override
+            public boolean hasPrice(String ticker, LocalDate date) {
+                return ticker.equals("BNS") && !date.isBefore(date1);
+            }
+
+            @Override
+            public double getPrice(String ticker, LocalDate date) {
+                assertTrue(hasPrice(ticker, date));
+                return date.isBefore(date3) ? 120 : 150;
+            }
+        };
+        setTransactions();
+        testPort.addNewSecurity("BNS");
+        testPort.addNewSecurity("BRK");
+        testPort.addNewSecurity("ABC");
+        testPort.addTransaction(buyBNS);
+        testPort.addTransaction(buyBRKusd);
+
+        List<Valuation> valuations = testPort.valuation(date3, prices);
+        assertEquals(Arrays.asList("ABC", "BNS", "BRK"), Arrays.asList(valuations.get(0).getTicker(),
+                valuations.get(1).getTicker(), valuations.get(2).getTicker()));
+        assertTrue(valuations.get(0).isPriced());
+        assertEquals(0, valuations.get(0).getMarketValue());
+        assertEquals(1500, valuations.get(1).getMarketValue(), .005);
+        assertEquals(1500 - 1094.17, valuations.get(1).getUnrealizedGain(), .005);
+        assertFalse(valuations.get(2).isPriced());
+        assertEquals(90, valuations.get(2).getShares());
+        assertEquals(0, valuations.get(2).getUnrealizedGain());
+
+        Valuation earlier = testPort.valuation(date3.minusDays(1), prices).get(1);
+        assertEquals(120, earlier.getPrice(), .005);
+        assertEquals(1200 - 1094.17, earlier.getUnrealizedGain(), .005);
+    }
+
+    @Test
+    void testValuationUsdHolding() {
+        PriceSource prices = new PriceSource() {
+            @Override
+            public boolean hasPrice(String ticker, LocalDate date) {
+                return true;
+            }
+
+            @Override
+            public double getPrice(String ticker, LocalDate date) {
+                return ticker.equals("BRK") ? 380.50 : 150;
+            }
+        };
+        Map<LocalDate, Double> byDate = new HashMap<>();
+        byDate.put(date3, 1.25);
+        FxRates rates = new FxRateTable(byDate);
+        setTransactions();
+        testPort.addNewSecurity("BNS");
+        testPort.addNewSecurity("BRK");
+        testPort.addTransaction(buyBNS);
+        testPort.addTransaction(buyBRKusd);
+        assertTrue(testPort.matchString("BRK").tradesInUsd());
+        assertFalse(testPort.matchString("BNS").tradesInUsd());
+
+        // The USD close is converted to CAD before it is set against the CAD ACB
+        Valuation brk = testPort.valuation(date3, prices, rates).get(1);
+        assertEquals(380.50 * 1.25, brk.getPrice(), .005);
+        assertEquals(90 * 380.50 * 1.25, brk.getMarketValue(), .005);
+        assertEquals(90 * 380.50 * 1.25 - 8747.11, brk.getUnrealizedGain(), .005);
+        // CAD holdings are not converted
+        assertEquals(1500, testPort.valuation(date3, prices, rates).get(0).getMarketValue(), .005);
+
+        // Without a rate for the day the USD holding is left unpriced
+        LocalDate stale = date3.plusDays(FxRateTable.MAX_STALE_DAYS + 1);
+        assertFalse(testPort.valuation(stale, prices, rates).get(1).isPriced());
+        assertFalse(testPort.valuation(date3, prices).get(1).isPriced());
+        assertTrue(testPort.valuation(date3, prices).get(0).isPriced());
+    }
+
     @Test
     void testGetHoldings() {
         setTransactions();
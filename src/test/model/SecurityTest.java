@@ -3,15 +3,20 @@ package model;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 
-import java.util.Calendar;
+import java.time.LocalDate;
+import java.time.Month;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
 import java.util.List;
+import java.util.Random;
 
 import static org.junit.jupiter.api.Assertions.*;
 
 class SecurityTest {
-    Calendar date1 = Calendar.getInstance();
-    Calendar date2 = Calendar.getInstance();
-    Calendar date3 = Calendar.getInstance();
+    LocalDate date1;
+    LocalDate date2;
+    LocalDate date3;
     Transaction buyBNS1;
     Transaction buyBNS2;
     Transaction sellBNS;
@@ -20,9 +25,9 @@ class SecurityTest {
     @BeforeEach
     public void setup() {
         bns = new Security("BNS");
-        date1.set(2019, Calendar.NOVEMBER, 20);
-        date2.set(2020, Calendar.JUNE, 5);
-        date3.set(2021, Calendar.MARCH, 20);
+        date1 = LocalDate.of(2019, Month.NOVEMBER, 20);
+        date2 = LocalDate.of(2020, Month.JUNE, 5);
+        date3 = LocalDate.of(2021, Month.MARCH, 20);
     }
 
     void makeTransactionsBNS() {
@@ -140,6 +145,666 @@ class SecurityTest {
         assertEquals(2402.18, bns.getAcb(), .0051);
     }
 
+    @Test
+        // Test that transactions on the same day stay in the order they were entered
+    void testAddTransactionSameDay() {
+        makeTransactionsBNS();
+        Transaction sellSameDay = new Transaction("BNS", date1, true, 600,
+                false, 0, 5, 4.99);
+        bns.addTransaction(buyBNS1);
+        bns.addTransaction(sellSameDay);
+
+        assertEquals(buyBNS1, bns.getTransactionList().get(0));
+        assertEquals(sellSameDay, bns.getTransactionList().get(1));
+        assertEquals(5, bns.getShares());
+    }
+
+    @Test
+        // Test that a batch given out of order is sorted and replayed to match adding one at a time
+    void testAddAllOutOfOrder() {
+        makeTransactionsBNS();
+        bns.addAll(Arrays.asList(buyBNS2, sellBNS, buyBNS1));
+
+        assertEquals(buyBNS1, bns.getTransactionList().get(0));
+        assertEquals(sellBNS, bns.getTransactionList().get(1));
+        assertEquals(buyBNS2, bns.getTransactionList().get(2));
+        assertEquals(-131.88, sellBNS.getGains(), .005);
+        assertEquals(547.09, sellBNS.getNewTotalACB(), .005);
+        assertEquals(3, bns.getNumTransactions());
+        assertEquals(25, bns.getShares());
+        assertEquals(2402.18, bns.getAcb(), .0051);
+    }
+
+    @Test
+        // Test that a batch is merged into an existing history
+    void testAddAllMergesIntoHistory() {
+        makeTransactionsBNS();
+        bns.addTransaction(buyBNS1);
+        bns.addTransaction(buyBNS2);
+        bns.addAll(Collections.singletonList(sellBNS));
+
+        assertEquals(sellBNS, bns.getTransactionList().get(1));
+        assertEquals(25, buyBNS2.getNewTotalShares());
+        assertEquals(2402.18, buyBNS2.getNewTotalACB(), .0051);
+        assertEquals(25, bns.getShares());
+
+        bns.addAll(new ArrayList<>());
+        assertEquals(3, bns.getNumTransactions());
+    }
+
+    @Test
+        // Test that a compact security replays the same totals and hands out detached transactions
+    void testCompactSecurity() {
+        makeTransactionsBNS();
+        Security compact = new Security("BNS", true);
+        assertTrue(compact.isCompact());
+        assertFalse(bns.isCompact());
+        compact.addTransaction(buyBNS1);
+        compact.addTransaction(buyBNS2);
+        compact.addAll(Collections.singletonList(sellBNS));
+
+        Transaction sell = compact.getTransactionList().get(1);
+        assertNotSame(sellBNS, sell);
+        assertEquals(date2, sell.getDate());
+        assertTrue(sell.getBuyOrSell());
+        assertEquals(-131.88, sell.getGains(), .005);
+        assertEquals(547.09, sell.getNewTotalACB(), .005);
+        assertEquals(25, compact.getShares());
+        assertEquals(2402.18, compact.getAcb(), .0051);
+
+        compact.removeTransaction(1);
+        assertEquals(30, compact.getTransactionList().get(1).getNewTotalShares());
+        assertEquals(5, sell.getNewTotalShares());
+    }
+
+    @Test
+        // Test that each transaction is passed on in order, the same as the copied history
+    void testForEachTransaction() {
+        makeTransactionsBNS();
+        Security compact = new Security("BNS", true);
+        compact.addAll(Arrays.asList(sellBNS, buyBNS2, buyBNS1));
+        List<Transaction> passed = new ArrayList<>();
+
+        compact.forEachTransaction(passed::add);
+        assertEquals(3, passed.size());
+        List<Transaction> copy = compact.copyHistory();
+        for (int i = 0; i < copy.size(); i++) {
+            assertEquals(copy.get(i).getDate(), passed.get(i).getDate());
+            assertEquals(copy.get(i).getNewTotalACB(), passed.get(i).getNewTotalACB(), .005);
+        }
+    }
+
+    @Test
+        // Test that a long history added one at a time and in a batch give the same totals
+    void testLongHistoryCompactMatchesRetained() {
+        Security compact = new Security("BNS", true);
+        List<Transaction> batch = new ArrayList<>();
+        for (int i = 0; i < 1000; i++) {
+            // Every fourth day is a sell of one share and the rest are buys of three, added out of order
+            int offset = (i * 37) % 1000;
+            boolean isSell = offset % 4 == 3;
+            Transaction t = new Transaction("BNS", date1.plusDays(offset), isSell, 100 + i,
+                    i % 2 == 0, 1.25, isSell ? 1 : 3, 1);
+            bns.addTransaction(t);
+            batch.add(t);
+        }
+        compact.addAll(batch);
+
+        assertEquals(1000, compact.getNumTransactions());
+        assertEquals(750 * 3 - 250, compact.getShares());
+        assertEquals(bns.getShares(), compact.getShares());
+        assertEquals(bns.getAcb(), compact.getAcb(), .0001);
+        for (int i = 0; i < 1000; i += 97) {
+            assertEquals(bns.getTransactionList().get(i).getNewTotalShares(),
+                    compact.getTransactionList().get(i).getNewTotalShares());
+        }
+    }
+
+    @Test
+    void testGetTransactionListOutOfBounds() {
+        try {
+            bns.getTransactionList().get(0);
+            fail();
+        } catch (IndexOutOfBoundsException e) {
+            //pass
+        }
+    }
+
+    @Test
+    void testPositionAsOf() {
+        testAddTransactionInMiddle();
+
+        Position beforeAll = bns.positionAsOf(date1.minusDays(1));
+        assertEquals("BNS", beforeAll.getTicker());
+        assertEquals(0, beforeAll.getShares());
+        assertEquals(0, beforeAll.getAcb());
+
+        Position onFirst = bns.positionAsOf(date1);
+        assertEquals(10, onFirst.getShares());
+        assertEquals(1094.17, onFirst.getAcb(), .005);
+
+        Position betweenSellAndBuy = bns.positionAsOf(date3.minusDays(1));
+        assertEquals(5, betweenSellAndBuy.getShares());
+        assertEquals(547.09, betweenSellAndBuy.getAcb(), .005);
+
+        Position afterAll = bns.positionAsOf(date3.plusYears(5));
+        assertEquals(25, afterAll.getShares());
+        assertEquals(2402.18, afterAll.getAcb(), .0051);
+    }
+
+    @Test
+    void testSnapshotUnchangedByLaterEdits() {
+        makeTransactionsBNS();
+        bns.addTransaction(buyBNS1);
+        bns.addTransaction(sellBNS);
+        SecuritySnapshot before = bns.snapshot();
+        assertSame(before, bns.snapshot());
+
+        bns.addTransaction(buyBNS2);
+        bns.removeTransaction(0);
+        SecuritySnapshot after = bns.snapshot();
+
+        assertEquals(2, before.getNumTransactions());
+        assertEquals(5, before.getShares());
+        assertEquals(547.09, before.getAcb(), .005);
+        assertEquals(1094.17, before.getTransactionList().get(0).getNewTotalACB(), .005);
+        assertEquals(5, before.positionAsOf(date3).getShares());
+        assertEquals(0, before.positionAsOf(date1.minusDays(1)).getShares());
+
+        assertEquals(2, after.getNumTransactions());
+        assertEquals(15, after.getShares());
+        assertEquals(bns.getAcb(), after.getAcb());
+        assertEquals(bns.getTransactionList().get(1).getNewTotalACB(),
+                after.getTransactionList().get(1).getNewTotalACB());
+        assertEquals(bns.toString(), after.toString());
+    }
+
+    @Test
+    void testSnapshotLongHistoryMatchesSecurity() {
+        Security compact = new Security("BNS", true);
+        for (int i = 0; i < 3000; i++) {
+            compact.addTransaction(new Transaction("BNS", date1.plusDays(i), i % 4 == 3, 100 + i,
+                    false, 0, i % 4 == 3 ? 1 : 3, 1));
+            if (i % 250 == 0) {
+                compact.snapshot();
+            }
+        }
+        compact.removeTransaction(1500);
+        SecuritySnapshot snapshot = compact.snapshot();
+
+        assertEquals(compact.getNumTransactions(), snapshot.getNumTransactions());
+        for (int i = 0; i < compact.getNumTransactions(); i++) {
+            Transaction expected = compact.getTransactionList().get(i);
+            Transaction actual = snapshot.getTransactionList().get(i);
+            assertEquals(expected.getEpochDay(), actual.getEpochDay());
+            assertEquals(expected.getNewTotalACB(), actual.getNewTotalACB());
+            assertEquals(expected.getNewTotalShares(), actual.getNewTotalShares());
+        }
+    }
+
+    // Kyle's example from the comments on Transaction
+    void makeSuperficialLossXYZ(Security xyz) {
+        xyz.addTransaction(new Transaction("XYZ", LocalDate.of(2019, Month.NOVEMBER, 3), false, 10000,
+                false, 0, 1000, 0));
+        xyz.addTransaction(new Transaction("XYZ", LocalDate.of(2019, Month.NOVEMBER, 17), true, 7000,
+                false, 0, 1000, 0));
+        xyz.addTransaction(new Transaction("XYZ", LocalDate.of(2019, Month.NOVEMBER, 21), false, 6000,
+                false, 0, 1000, 0));
+    }
+
+    @Test
+    void testSuperficialLossDenied() {
+        Security xyz = new Security("XYZ");
+        makeSuperficialLossXYZ(xyz);
+
+        Transaction sell = xyz.getTransactionList().get(1);
+        assertEquals(0, sell.getGains(), .005);
+        assertEquals(3000, sell.getSuperficialLoss(), .005);
+        assertEquals(3000, sell.getNewTotalACB(), .005);
+        assertTrue(sell.toString().contains("Superficial Loss: $3,000.00"));
+        assertEquals(1000, xyz.getShares());
+        assertEquals(9000, xyz.getAcb(), .005);
+    }
+
+    @Test
+    void testSuperficialLossNotRepurchased() {
+        Security xyz = new Security("XYZ");
+        makeSuperficialLossXYZ(xyz);
+        xyz.removeTransaction(2);
+
+        Transaction sell = xyz.getTransactionList().get(1);
+        assertEquals(-3000, sell.getGains(), .005);
+        assertEquals(0, sell.getSuperficialLoss());
+        assertFalse(sell.toString().contains("Superficial"));
+        assertEquals(0, xyz.getAcb(), .005);
+    }
+
+    @Test
+    void testSuperficialLossRepurchaseAfterWindow() {
+        Security xyz = new Security("XYZ");
+        makeSuperficialLossXYZ(xyz);
+        xyz.removeTransaction(2);
+        xyz.addTransaction(new Transaction("XYZ", LocalDate.of(2019, Month.DECEMBER, 18), false, 6000,
+                false, 0, 1000, 0));
+
+        assertEquals(-3000, xyz.getTransactionList().get(1).getGains(), .005);
+        assertEquals(6000, xyz.getAcb(), .005);
+    }
+
+    @Test
+    void testSuperficialLossSoldBeforeWindowEnds() {
+        Security xyz = new Security("XYZ");
+        makeSuperficialLossXYZ(xyz);
+        xyz.addTransaction(new Transaction("XYZ", LocalDate.of(2019, Month.DECEMBER, 1), true, 6000,
+                false, 0, 1000, 0));
+
+        Transaction sell = xyz.getTransactionList().get(1);
+        assertEquals(-3000, sell.getGains(), .005);
+        assertEquals(0, sell.getSuperficialLoss());
+    }
+
+    @Test
+    void testSuperficialLossPartial() {
+        Security xyz = new Security("XYZ");
+        xyz.addTransaction(new Transaction("XYZ", LocalDate.of(2019, Month.JANUARY, 1), false, 10000,
+                false, 0, 1000, 0));
+        xyz.addTransaction(new Transaction("XYZ", LocalDate.of(2019, Month.NOVEMBER, 17), true, 7000,
+                false, 0, 1000, 0));
+        xyz.addTransaction(new Transaction("XYZ", LocalDate.of(2019, Month.DECEMBER, 17), false, 1500,
+                false, 0, 250, 0));
+
+        Transaction sell = xyz.getTransactionList().get(1);
+        assertEquals(-2250, sell.getGains(), .005);
+        assertEquals(750, sell.getSuperficialLoss(), .005);
+        assertEquals(250, xyz.getShares());
+        assertEquals(2250, xyz.getAcb(), .005);
+    }
+
+    @Test
+    void testSuperficialLossCompactMatchesRetained() {
+        Security retained = new Security("XYZ");
+        Security compact = new Security("XYZ", true);
+        makeSuperficialLossXYZ(retained);
+        makeSuperficialLossXYZ(compact);
+
+        for (int i = 0; i < retained.getNumTransactions(); i++) {
+            Transaction expected = retained.getTransactionList().get(i);
+            Transaction actual = compact.getTransactionList().get(i);
+            assertEquals(expected.getGains(), actual.getGains());
+            assertEquals(expected.getSuperficialLoss(), actual.getSuperficialLoss());
+            assertEquals(expected.getNewTotalACB(), actual.getNewTotalACB());
+        }
+    }
+
+    // EFFECTS: Makes XYZ bought outside and inside the window of a sale on November 17, then split 2:1
+    Security makeSplitXYZ() {
+        Security xyz = new Security("XYZ");
+        xyz.addTransaction(new Transaction("XYZ", LocalDate.of(2019, Month.JANUARY, 1), false, 10000,
+                false, 0, 100, 0));
+        xyz.addTransaction(new Transaction("XYZ", LocalDate.of(2019, Month.NOVEMBER, 3), false, 10000,
+                false, 0, 100, 0));
+        xyz.addTransaction(Transaction.split("XYZ", LocalDate.of(2019, Month.NOVEMBER, 10), 2, 1));
+        return xyz;
+    }
+
+    @Test
+    void testSuperficialLossAfterSplit() {
+        Security xyz = makeSplitXYZ();
+        Transaction sale = new Transaction("XYZ", LocalDate.of(2019, Month.NOVEMBER, 17), true, 7000,
+                false, 0, 200, 0);
+        Transaction outcome = xyz.simulateSales(Collections.singletonList(sale)).get(0);
+        xyz.addTransaction(sale);
+
+        // The 100 shares bought in the window are 200 after the split, so the whole loss on 200 is denied
+        Transaction sell = xyz.getTransactionList().get(3);
+        assertEquals(3000, sell.getSuperficialLoss(), .005);
+        assertEquals(0, sell.getGains(), .005);
+        assertEquals(200, xyz.getShares());
+        assertEquals(13000, xyz.getAcb(), .005);
+        assertEquals(sell.getSuperficialLoss(), outcome.getSuperficialLoss());
+        assertEquals(sell.getNewTotalACB(), outcome.getNewTotalACB());
+    }
+
+    @Test
+    void testSuperficialLossWindowPassesSplit() {
+        Security xyz = makeSplitXYZ();
+        xyz.addTransaction(new Transaction("XYZ", LocalDate.of(2019, Month.NOVEMBER, 17), true, 7000,
+                false, 0, 200, 0));
+        xyz.addTransaction(new Transaction("XYZ", LocalDate.of(2020, Month.JANUARY, 20), true, 2000,
+                false, 0, 50, 0));
+
+        // The window of the later sale has left the split and the buy behind, so nothing of it is denied
+        Transaction later = xyz.getTransactionList().get(4);
+        assertEquals(0, later.getSuperficialLoss());
+        assertEquals(-1250, later.getGains(), .005);
+        assertEquals(3000, xyz.getTransactionList().get(3).getSuperficialLoss(), .005);
+    }
+
+    // EFFECTS: Makes the XYZ example without its sale
+    Security makeUnsoldXYZ() {
+        Security xyz = new Security("XYZ");
+        makeSuperficialLossXYZ(xyz);
+        xyz.removeTransaction(1);
+        return xyz;
+    }
+
+    @Test
+    void testSimulateSalesMatchesAdding() {
+        Security xyz = makeUnsoldXYZ();
+        SecuritySnapshot before = xyz.snapshot();
+        List<Transaction> sales = new ArrayList<>();
+        sales.add(new Transaction("XYZ", LocalDate.of(2019, Month.NOVEMBER, 17), true, 7000, false, 0, 1000, 0));
+        sales.add(new Transaction("XYZ", LocalDate.of(2019, Month.NOVEMBER, 21), true, 6500, false, 0, 500, 9.99));
+        sales.add(new Transaction("XYZ", LocalDate.of(2020, Month.MARCH, 2), true, 4000, true, 1.34, 1500, 5));
+        sales.add(new Transaction("XYZ", LocalDate.of(2020, Month.MARCH, 2), true, 24000, false, 0, 2000, 0));
+        sales.add(new Transaction("XYZ", LocalDate.of(2019, Month.OCTOBER, 1), true, 100, false, 0, 10, 0));
+
+        List<Transaction> outcomes = xyz.simulateSales(sales);
+
+        assertEquals(sales.size(), outcomes.size());
+        for (int i = 0; i < sales.size(); i++) {
+            Security added = makeUnsoldXYZ();
+            added.addTransaction(sales.get(i));
+            Transaction expected = sales.get(i);
+            assertEquals(expected.getGains(), outcomes.get(i).getGains());
+            assertEquals(expected.getSuperficialLoss(), outcomes.get(i).getSuperficialLoss());
+            assertEquals(expected.getNewTotalACB(), outcomes.get(i).getNewTotalACB());
+            assertEquals(expected.getNewTotalShares(), outcomes.get(i).getNewTotalShares());
+        }
+        assertEquals(3000, outcomes.get(0).getSuperficialLoss(), .005);
+        assertSame(before, xyz.snapshot());
+        assertEquals(2, xyz.getNumTransactions());
+    }
+
+    @Test
+    void testSimulateSalesLeavesSalesUnchanged() {
+        Security xyz = makeUnsoldXYZ();
+        Transaction sale = new Transaction("XYZ", LocalDate.of(2019, Month.NOVEMBER, 17), true, 7000,
+                false, 0, 1000, 0);
+
+        Transaction outcome = xyz.simulateSales(Collections.singletonList(sale)).get(0);
+        assertNotSame(sale, outcome);
+        assertEquals(0, sale.getGains());
+        assertEquals(0, outcome.getGains(), .005);
+        assertEquals(0, xyz.simulateSales(new ArrayList<>()).size());
+    }
+
+    // EFFECTS: Makes a security with the given cost basis method holding two lots, 10 bought at $10 and then 10 at
+    //          $30, and then 5 sold at $20
+    Security makeLots(CostBasisMethod method) {
+        Security lots = new Security("XYZ", false, method);
+        lots.addTransaction(new Transaction("XYZ", date1, false, 100, false, 0, 10, 0));
+        lots.addTransaction(new Transaction("XYZ", date2, false, 300, false, 0, 10, 0));
+        lots.addTransaction(new Transaction("XYZ", date3, true, 100, false, 0, 5, 0));
+        return lots;
+    }
+
+    @Test
+    void testFifoGivesUpOldestLot() {
+        Security fifo = makeLots(CostBasisMethod.FIFO);
+
+        assertEquals(CostBasisMethod.FIFO, fifo.getCostBasisMethod());
+        assertEquals(50, fifo.getTransactionList().get(2).getGains(), .005);
+        assertEquals(350, fifo.getAcb(), .005);
+        // Adding a purchase before the sale replays the lots from the start
+        fifo.addTransaction(new Transaction("XYZ", date1.minusDays(1), false, 10, false, 0, 5, 0));
+        assertEquals(90, fifo.getTransactionList().get(3).getGains(), .005);
+        assertEquals(400, fifo.getAcb(), .005);
+        fifo.removeTransaction(0);
+        assertEquals(50, fifo.getTransactionList().get(2).getGains(), .005);
+    }
+
+    @Test
+    void testHighestCostFirstGivesUpDearestLot() {
+        Security highest = makeLots(CostBasisMethod.HIGHEST_COST_FIRST);
+
+        assertEquals(-50, highest.getTransactionList().get(2).getGains(), .005);
+        // Losses are not superficial outside the average cost
+        assertEquals(0, highest.getTransactionList().get(2).getSuperficialLoss());
+        assertEquals(250, highest.getAcb(), .005);
+    }
+
+    @Test
+    void testAverageCostDefault() {
+        Security average = makeLots(CostBasisMethod.AVERAGE_COST);
+
+        assertEquals(CostBasisMethod.AVERAGE_COST, bns.getCostBasisMethod());
+        assertEquals(0, average.getTransactionList().get(2).getGains(), .005);
+        assertEquals(300, average.getAcb(), .005);
+    }
+
+    @Test
+    void testSimulateSalesByLots() {
+        for (CostBasisMethod method : CostBasisMethod.values()) {
+            Security lots = makeLots(method);
+            Transaction sale = new Transaction("XYZ", date3.plusDays(1), true, 240, false, 0, 12, 0);
+            Transaction outcome = lots.simulateSales(Collections.singletonList(sale)).get(0);
+
+            lots.addTransaction(sale);
+            assertEquals(sale.getGains(), outcome.getGains());
+            assertEquals(sale.getNewTotalACB(), outcome.getNewTotalACB());
+        }
+    }
+
+    // EFFECTS: Returns a history of XYZ a day apart from date1 that sells about half of what is held whenever more
+    //          than 40 shares are, so only a few lots are held at a time
+    List<Transaction> makeLotHistory(int rows, Random random) {
+        List<Transaction> history = new ArrayList<>();
+        int held = 0;
+        for (int row = 0; row < rows; row++) {
+            boolean isSell = held > 40;
+            int shares = isSell ? held / 2 : 1 + random.nextInt(10);
+            held += isSell ? -shares : shares;
+            history.add(new Transaction("XYZ", date1.plusDays(row), isSell, 10 + random.nextInt(9000) / 100.0,
+                    random.nextBoolean(), 1.3, shares, random.nextInt(10)));
+        }
+        return history;
+    }
+
+    // EFFECTS: Checks the two stores hold the same rows with the same gains and totals
+    void assertSameRows(TransactionStore expected, TransactionStore actual) {
+        assertEquals(expected.size(), actual.size());
+        for (int row = 0; row < expected.size(); row++) {
+            assertEquals(expected.get("XYZ", row).toString(), actual.get("XYZ", row).toString());
+        }
+    }
+
+    @Test
+    void testLotReplaysResumeFromCheckpoint() {
+        for (CostBasisMethod method : new CostBasisMethod[] {CostBasisMethod.FIFO,
+                CostBasisMethod.HIGHEST_COST_FIRST}) {
+            Random random = new Random(18);
+            List<Transaction> history = makeLotHistory(2000, random);
+            TransactionStore store = new TransactionStore(false, method);
+            store.merge(0, history);
+            assertEquals(0, store.replay(0));
+
+            // Editing near the end resumes within a couple of checkpoints of the edit, not from the first row
+            store.remove(1990);
+            int start = store.replay(1990);
+            assertTrue(start <= 1990 && start > 1990 - 2 * 64, "Replay resumed from " + start);
+            Transaction late = new Transaction("XYZ", date1.plusDays(1985), false, 55.55, false, 0, 3, 1);
+            int row = store.findInsertionIndex(late.getEpochDay());
+            store.insert(row, late);
+            assertTrue(store.replay(row) > row - 2 * 64);
+
+            // Which gives the same rows as replaying everything from the first row
+            history.remove(1990);
+            history.add(row, late);
+            TransactionStore fresh = new TransactionStore(false, method);
+            fresh.merge(0, history);
+            fresh.replay(0);
+            assertSameRows(fresh, store);
+        }
+    }
+
+    @Test
+    void testLotEditsMatchFullReplay() {
+        for (CostBasisMethod method : new CostBasisMethod[] {CostBasisMethod.FIFO,
+                CostBasisMethod.HIGHEST_COST_FIRST}) {
+            Random random = new Random(180);
+            List<Transaction> history = makeLotHistory(600, random);
+            TransactionStore store = new TransactionStore(false, method);
+            store.merge(0, history);
+            store.replay(0);
+            // Remove rows from anywhere, so that checkpoints are dropped and taken again
+            for (int i = 0; i < 50; i++) {
+                int row = random.nextInt(store.size());
+                store.remove(row);
+                store.replay(row);
+                history.remove(row);
+            }
+            TransactionStore fresh = new TransactionStore(false, method);
+            fresh.merge(0, history);
+            fresh.replay(0);
+            assertSameRows(fresh, store);
+
+            // A simulated sale resumes from a checkpoint too, and comes to the same as adding it
+            for (int day = 5; day < 600; day += 97) {
+                Transaction sale = new Transaction("XYZ", date1.plusDays(day), true, 100, false, 0, 3, 1);
+                Transaction outcome = store.simulateSale("XYZ", sale);
+                int row = fresh.findInsertionIndex(sale.getEpochDay());
+                fresh.insert(row, sale);
+                fresh.replay(row);
+                assertEquals(fresh.get("XYZ", row).getGains(), outcome.getGains());
+                fresh.remove(row);
+                fresh.replay(row);
+            }
+        }
+    }
+
+    // EFFECTS: Checks the yearly gains of the security against the sum of the sells in each year
+    void assertGainsMatchSales(Security s) {
+        for (int year = 2018; year <= 2023; year++) {
+            YearlyGains gains = s.getGains(year);
+            double sum = 0;
+            double denied = 0;
+            for (Transaction t : s.getSales(year)) {
+                sum += t.getGains();
+                denied += t.getSuperficialLoss();
+            }
+            assertEquals(s.getSales(year).size(), gains.getNumSales());
+            assertEquals(sum, gains.getGains(), .0001);
+            assertEquals(denied, gains.getSuperficialLosses(), .0001);
+            assertEquals(gains.getProceeds() - gains.getCommissions() - gains.getCost() + denied,
+                    gains.getGains(), .0001);
+        }
+    }
+
+    @Test
+    void testYearlyGainsFollowChanges() {
+        Random random = new Random(19);
+        LocalDate start = LocalDate.of(2018, Month.JANUARY, 1);
+        bns.addTransaction(new Transaction("BNS", start, false, 5000, false, 0, 1000, 0));
+
+        for (int i = 0; i < 300; i++) {
+            if (i % 4 == 3) {
+                bns.removeTransaction(1 + random.nextInt(bns.getNumTransactions() - 1));
+            } else {
+                boolean sell = random.nextBoolean();
+                bns.addTransaction(new Transaction("BNS", start.plusDays(1 + random.nextInt(6 * 365)), sell,
+                        1 + random.nextInt(100), false, 0, 1, random.nextInt(3)));
+            }
+            assertGainsMatchSales(bns);
+        }
+        assertEquals(bns.getYearlyGains().size(), bns.getYearlyGains().stream()
+                .filter(g -> g.getNumSales() > 0).count());
+        while (bns.getNumTransactions() > 0) {
+            bns.removeTransaction(bns.getNumTransactions() - 1);
+        }
+        assertTrue(bns.getYearlyGains().isEmpty());
+    }
+
+    @Test
+    void testYearlyGainsWithSuperficialLoss() {
+        bns.addTransaction(new Transaction("BNS", date1, false, 1000, false, 0, 10, 0));
+        bns.addTransaction(new Transaction("BNS", date2, true, 250, false, 0, 5, 0));
+        bns.addTransaction(new Transaction("BNS", date2.plusDays(10), false, 200, false, 0, 5, 0));
+
+        YearlyGains gains = bns.getGains(2020);
+        assertEquals(250, gains.getSuperficialLosses(), .005);
+        assertEquals(0, gains.getGains(), .005);
+        assertEquals(500, gains.getCost(), .005);
+        assertGainsMatchSales(bns);
+        assertEquals(0, bns.getGains(2019).getNumSales());
+    }
+
+    @Test
+    void testBackdatedSplit() {
+        makeTransactionsBNS();
+        bns.addTransaction(buyBNS1);
+        bns.addTransaction(sellBNS);
+        bns.addTransaction(buyBNS2);
+        bns.addTransaction(Transaction.split("BNS", date2.plusDays(60), 2, 1));
+
+        // The 5 shares held after the sale become 10 with the same ACB, the later buy adds 20
+        assertEquals(TransactionType.SPLIT, bns.getTransactionList().get(2).getType());
+        assertEquals(10, bns.getTransactionList().get(2).getNewTotalShares());
+        assertEquals(547.09, bns.getTransactionList().get(2).getNewTotalACB(), .005);
+        assertEquals(30, bns.getShares());
+        assertEquals(2402.18, bns.getAcb(), .0051);
+        assertEquals(1, bns.getNumSales(2020));
+
+        Security consolidated = new Security("BNS", true);
+        consolidated.addTransaction(new Transaction("BNS", date1, false, 1000, false, 0, 10, 0));
+        consolidated.addTransaction(Transaction.split("BNS", date2, 1, 4));
+        assertEquals(2, consolidated.getShares());
+        assertEquals(1000, consolidated.getAcb(), .005);
+        // Detached copies keep the ratio
+        assertEquals(4, consolidated.getTransactionList().get(1).getSplitFrom());
+        assertEquals(0, consolidated.getTransactionList().get(1).getValue());
+    }
+
+    @Test
+    void testSplitOnlyReplaysFromItsIndex() {
+        TransactionStore store = new TransactionStore(false);
+        for (int day = 0; day < 1000; day += 10) {
+            store.insert(store.size(), new Transaction("BNS", day, false, Money.of(100), false, 0, 1, 0));
+        }
+        store.replay(0);
+        int row = store.findInsertionIndex(995);
+        store.insert(row, Transaction.split("BNS", LocalDate.ofEpochDay(995), 2, 1));
+        // Only the rows from 30 days before the split on are replayed
+        assertEquals(row - 4, store.replay(row));
+        assertEquals(200, store.getTotalShares(store.size() - 1));
+    }
+
+    @Test
+    void testReturnOfCapital() {
+        bns.addTransaction(new Transaction("BNS", date1, false, 1000, false, 0, 10, 0));
+        bns.addTransaction(Transaction.returnOfCapital("BNS", date2, 400, false, 0));
+        assertEquals(600, bns.getAcb(), .005);
+        assertEquals(10, bns.getShares());
+        // A sale after gives up shares at the reduced cost
+        bns.addTransaction(new Transaction("BNS", date2.plusDays(1), true, 300, false, 0, 5, 0));
+        assertEquals(0, bns.getTransactionList().get(2).getGains(), .005);
+
+        // More capital back than the ACB left is a gain in the year it is paid
+        bns.addTransaction(Transaction.returnOfCapital("BNS", date3, 500, true, 1.2));
+        assertEquals(0, bns.getAcb(), .005);
+        assertEquals(300, bns.getTransactionList().get(3).getGains(), .005);
+        assertEquals(300, bns.getGains(2021).getGains(), .005);
+        assertEquals(0, bns.getGains(2021).getNumSales());
+        assertEquals(0, bns.getGains(2020).getGains(), .005);
+    }
+
+    @Test
+    void testCorporateActionsByLots() {
+        for (CostBasisMethod method : CostBasisMethod.values()) {
+            Security lots = makeLots(method);
+            lots.addTransaction(Transaction.split("XYZ", date3.plusDays(1), 2, 1));
+            lots.addTransaction(Transaction.returnOfCapital("XYZ", date3.plusDays(2), 30, false, 0));
+            Transaction sale = new Transaction("XYZ", date3.plusDays(3), true, 300, false, 0, 30, 0);
+            Transaction outcome = lots.simulateSales(Collections.singletonList(sale)).get(0);
+            lots.addTransaction(sale);
+
+            // Selling everything that is left gives up all of the cost left whichever lots go first
+            assertEquals(0, lots.getShares());
+            assertEquals(0, lots.getAcb(), .005);
+            assertEquals(sale.getGains(), outcome.getGains(), .005);
+        }
+    }
+
     @Test
     void testRemoveTransactionFromMultipleEndOfList() {
         testAddTransactionInMiddle();
@@ -193,6 +858,22 @@ class SecurityTest {
         System.out.println(bns);
     }
 
+    @Test
+    void testSummaryLineCachedUntilChange() {
+        makeTransactionsBNS();
+        bns.addTransaction(buyBNS1);
+        String line = bns.getSummaryLine("%s %d %s %d");
+        assertEquals("BNS 10 $1,094.17 1", line);
+        assertSame(line, bns.getSummaryLine("%s %d %s %d"));
+        assertEquals("BNS", bns.getSummaryLine("%s"));
+
+        bns.addTransaction(sellBNS);
+        assertEquals("BNS 5 $547.09 2", bns.getSummaryLine("%s %d %s %d"));
+        SecuritySnapshot snapshot = bns.snapshot();
+        assertEquals("BNS 5 $547.09 2", snapshot.getSummaryLine("%s %d %s %d"));
+        assertSame(snapshot.getSummaryLine("%s %d %s %d"), bns.snapshot().getSummaryLine("%s %d %s %d"));
+    }
+
     @Test
     void testGetTransactionRecordEmpty() {
         List<String> emptyRecord = bns.getTransactionRecord();
@@ -3,14 +3,15 @@ package model;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 
-import java.util.Calendar;
+import java.time.LocalDate;
+import java.time.Month;
 
 import static org.junit.jupiter.api.Assertions.*;
 
 class TransactionTest {
-    Calendar date1 = Calendar.getInstance();
-    Calendar date2 = Calendar.getInstance();
-    Calendar date3 = Calendar.getInstance();
+    LocalDate date1;
+    LocalDate date2;
+    LocalDate date3;
     Transaction sellBNS;
     Transaction buyBNS;
     Transaction sellBRKusd;
@@ -20,9 +21,9 @@ class TransactionTest {
 
     @BeforeEach
     void makeTransactions() {
-        date1.set(2020, Calendar.NOVEMBER, 20);
-        date2.set(2019, Calendar.JUNE, 5);
-        date3.set(2021, Calendar.MARCH, 20);
+        date1 = LocalDate.of(2020, Month.NOVEMBER, 20);
+        date2 = LocalDate.of(2019, Month.JUNE, 5);
+        date3 = LocalDate.of(2021, Month.MARCH, 20);
         buyBNS = new Transaction(bns, date1, false, 1089.18,
                 false, 0, 10, 4.99);
         sellBRKusd = new Transaction(brk, date3, true, 420.20,
@@ -33,10 +34,23 @@ class TransactionTest {
                 true, 1.3356, 90, 5.99);
     }
 
+    // EFFECTS: returns transaction as completed by a security holding prevShares shares with a total ACB of prevAcb
+    //          before it.  They are bought well over 30 days earlier so no loss on the transaction is superficial
+    private Transaction completeAfter(Transaction transaction, int prevShares, double prevAcb) {
+        Security security = new Security(transaction.getSecurity(), true);
+        if (prevShares > 0) {
+            security.addTransaction(new Transaction(transaction.getSecurity(), date2, false, prevAcb,
+                    false, 0, prevShares, 0));
+        }
+        security.addTransaction(transaction);
+        return security.getTransactionList().get(security.getNumTransactions() - 1);
+    }
+
     @Test
     void testTransactionConstruct() {
         assertEquals(bns, buyBNS.getSecurity());
         assertEquals(date1, buyBNS.getDate());
+        assertEquals(date1.toEpochDay(), buyBNS.getEpochDay());
         assertFalse(buyBNS.getBuyOrSell());
         assertEquals(buyBNS.getValue(), 1089.18);
         assertFalse(buyBNS.getCurrency());
@@ -48,12 +62,12 @@ class TransactionTest {
     @Test
         // Test values generated using free online acb calculator
     void testUpdateTransactionSellCAD() {
-        sellBNS.updateTransaction(10, 1089.18 + 4.99);  //Cost plus commission of buying
+        sellBNS = completeAfter(sellBNS, 10, 1089.18 + 4.99);  //Cost plus commission of buying
         assertEquals(-131.88, sellBNS.getGains(), .005);
         assertEquals(5, sellBNS.getNewTotalShares()); // Bought 10 and sold 5
         assertEquals(547.09, sellBNS.getNewTotalACB(), .005);
 
-        sellBNS.updateTransaction(20, 2018.18 + 8.99);  //Cost plus commission of buying
+        sellBNS = completeAfter(sellBNS, 20, 2018.18 + 8.99);  //Cost plus commission of buying
         assertEquals(-91.58, sellBNS.getGains(), .005);
         assertEquals(15, sellBNS.getNewTotalShares()); // Bought 10 and sold 5
         assertEquals(1520.38, sellBNS.getNewTotalACB(), .005);
@@ -63,13 +77,13 @@ class TransactionTest {
         // Test values generated using free online acb calculator
     void testUpdateTransactionBuyCAD() {
         // Test the base case where there is no previous shares
-        buyBNS.updateTransaction(0, 0);  //Cost plus commission of buying
+        buyBNS = completeAfter(buyBNS, 0, 0);  //Cost plus commission of buying
         assertEquals(0, buyBNS.getGains(), .005); // No gains on a buy trade
         assertEquals( 10, buyBNS.getNewTotalShares()); // 10 shares, buy 10 more
         assertEquals(1094.17, buyBNS.getNewTotalACB(), .005);
 
         // Test case with previous shares
-        buyBNS.updateTransaction(10, 1089.18 + 4.99);  //Cost plus commission of buying
+        buyBNS = completeAfter(buyBNS, 10, 1089.18 + 4.99);  //Cost plus commission of buying
         assertEquals(0, buyBNS.getGains(), .005); // No gains on a buy trade
         assertEquals( 20, buyBNS.getNewTotalShares()); // 10 shares, buy 10 more
         assertEquals(2188.34, buyBNS.getNewTotalACB(), .005);
@@ -78,7 +92,7 @@ class TransactionTest {
     @Test
         // Test values generated using free online acb calculator
     void testUpdateTransactionSellUSD() {
-        sellBRKusd.updateTransaction(100, 10550.55);
+        sellBRKusd = completeAfter(sellBRKusd, 100, 10550.55);
         assertEquals(27.03, sellBRKusd.getGains(), .005); // No gains on a buy trade
         assertEquals( 95, sellBRKusd.getNewTotalShares()); // 10 shares, buy 10 more
         assertEquals(10023.02, sellBRKusd.getNewTotalACB(), .005);
@@ -87,15 +101,49 @@ class TransactionTest {
     @Test
          //Test values generated using free online acb calculator
     void testUpdateTransactionBuyUSD(){
-        buyBRKusd.updateTransaction(0, 0);
+        buyBRKusd = completeAfter(buyBRKusd, 0, 0);
         assertEquals(0, buyBRKusd.getGains(), .005); // No gains on a buy trade
         assertEquals( 90, buyBRKusd.getNewTotalShares()); // 10 shares, buy 10 more
         assertEquals(8747.11, buyBRKusd.getNewTotalACB(), .005);
     }
 
+    @Test
+    void testUpdateSplit() {
+        Transaction split = Transaction.split(bns, date1, 3, 2);
+        assertEquals(TransactionType.SPLIT, split.getType());
+        assertFalse(split.getBuyOrSell());
+        assertEquals(2, split.getSplitFrom());
+        split = completeAfter(split, 11, 1000);
+        // 16.5 shares become 16, keeping the same ACB
+        assertEquals(16, split.getNewTotalShares());
+        assertEquals(1000, split.getNewTotalACB(), .005);
+        assertEquals(0, split.getGains());
+        assertTrue(split.toString().contains("Split 3 for 2 of BNS"));
+    }
+
+    @Test
+    void testUpdateReturnOfCapital() {
+        Transaction roc = Transaction.returnOfCapital(brk, date3, 100, true, 1.25);
+        assertEquals(TransactionType.RETURN_OF_CAPITAL, roc.getType());
+        assertTrue(roc.getType().isCorporateAction());
+        roc = completeAfter(roc, 10, 500);
+        assertEquals(10, roc.getNewTotalShares());
+        assertEquals(375, roc.getNewTotalACB(), .005);
+        assertEquals(0, roc.getGains());
+
+        // Capital returned beyond the ACB is a gain
+        roc = completeAfter(roc, 10, 100);
+        assertEquals(0, roc.getNewTotalACB(), .005);
+        assertEquals(25, roc.getGains(), .005);
+        assertTrue(roc.toString().contains("Return of capital on BRK"));
+        assertEquals(TransactionType.SELL, sellBNS.getType());
+        assertEquals(TransactionType.BUY, buyBNS.getType());
+        assertFalse(buyBNS.getType().isCorporateAction());
+    }
+
     @Test
     void testToString() {
-        buyBNS.updateTransaction(18, 1089.18);  // Invoke all fields filled in
+        buyBNS = completeAfter(buyBNS, 18, 1089.18);  // Invoke all fields filled in
         String str = buyBNS.toString();
         System.out.println(buyBNS);
         assertTrue(str.contains("Date") && str.contains("2020-November-20"));
@@ -109,7 +157,7 @@ class TransactionTest {
         assertTrue(str.contains("2,183.35"));
 
 
-        sellBRKusd.updateTransaction(500,10000);
+        sellBRKusd = completeAfter(sellBRKusd, 500, 10000);
         str = sellBRKusd.toString();
         assertTrue(str.contains("Date"));
         assertTrue(str.contains("2021-March-20"));
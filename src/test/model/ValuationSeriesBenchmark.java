@@ -0,0 +1,80 @@
+package model;
+
+import java.time.LocalDate;
+import java.util.Random;
+
+// A rough benchmark of working out the daily valuation series of a portfolio of 500 securities over 30 years, and
+// of updating it after one transaction is added.  Run the main method directly, it is not part of the test suite
+public class ValuationSeriesBenchmark {
+    private static final int TICKERS = 500;
+    private static final int TRANSACTIONS = 300;   // for each ticker
+    private static final LocalDate FIRST = LocalDate.of(1995, 1, 1);
+    private static final LocalDate LAST = LocalDate.of(2024, 12, 31);
+    private static final int ROUNDS = 5;
+
+    public static void main(String[] args) {
+        int numDays = (int) (LAST.toEpochDay() - FIRST.toEpochDay()) + 1;
+        Portfolio portfolio = new Portfolio("Bench", true);
+        long[][] closes = new long[TICKERS][numDays];
+        fill(portfolio, closes, numDays);
+        PriceSource prices = new ArrayPrices(closes);
+
+        for (int round = 0; round < ROUNDS; round++) {
+            long start = System.nanoTime();
+            ValuationSeries series = new ValuationSeries(portfolio, prices, FIRST, LAST);
+            long middle = System.nanoTime();
+            Transaction t = new Transaction("T" + round, FIRST.plusDays(numDays - 365), false, 1000, false, 0, 10, 0);
+            portfolio.addTransaction(t);
+            double value = series.getMarketValue(LAST);
+            long end = System.nanoTime();
+            System.out.printf("round %d: %d days, whole series %6.1f ms, one transaction %6.2f ms, last value %.2f%n",
+                    round, numDays, (middle - start) / 1e6, (end - middle) / 1e6, value);
+            series.close();
+        }
+    }
+
+    // MODIFIES: portfolio, closes
+    // EFFECTS: Adds the securities with random histories of mostly buys and gives each a random walk of prices
+    private static void fill(Portfolio portfolio, long[][] closes, int numDays) {
+        Random random = new Random(21);
+        for (int i = 0; i < TICKERS; i++) {
+            String ticker = "T" + i;
+            portfolio.addNewSecurity(ticker);
+            for (int row = 0; row < TRANSACTIONS; row++) {
+                portfolio.addTransaction(new Transaction(ticker, FIRST.plusDays(random.nextInt(numDays)),
+                        random.nextInt(4) == 0, random.nextInt(100000) / 100.0, false, 0, 1 + random.nextInt(5), 0));
+            }
+            long price = Money.of(20 + random.nextInt(100));
+            for (int day = 0; day < numDays; day++) {
+                price = Math.max(Money.of(1), price + Money.of(random.nextInt(101) - 50) / 100);
+                closes[i][day] = price;
+            }
+        }
+    }
+
+    // Prices held in memory for tickers T0, T1 and so on, for every day from FIRST
+    private static final class ArrayPrices implements PriceSource {
+        private final long[][] closes;
+
+        ArrayPrices(long[][] closes) {
+            this.closes = closes;
+        }
+
+        @Override
+        public boolean hasPrice(String ticker, LocalDate date) {
+            return true;
+        }
+
+        @Override
+        public double getPrice(String ticker, LocalDate date) {
+            return Money.toDouble(closes[Integer.parseInt(ticker.substring(1))][(int) (date.toEpochDay()
+                    - FIRST.toEpochDay())]);
+        }
+
+        @Override
+        public void fillPrices(String ticker, LocalDate first, long[] out) {
+            System.arraycopy(closes[Integer.parseInt(ticker.substring(1))],
+                    (int) (first.toEpochDay() - FIRST.toEpochDay()), out, 0, out.length);
+        }
+    }
+}
@@ -0,0 +1,144 @@
+package model;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDate;
+import java.time.Month;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ValuationSeriesTest {
+    LocalDate first;
+    LocalDate last;
+    Portfolio portfolio;
+    PriceSource prices;
+    FxRates rates;
+
+    @BeforeEach
+    void setup() {
+        first = LocalDate.of(2020, Month.JANUARY, 1);
+        last = LocalDate.of(2020, Month.DECEMBER, 31);
+        portfolio = new Portfolio("Test", true);
+        portfolio.addNewSecurity("BNS");
+        portfolio.addNewSecurity("BRK");
+        // Prices that change every day, with no BRK price at the weekends
+        prices = new PriceSource() {
+            @Override
+            public boolean hasPrice(String ticker, LocalDate date) {
+                return ticker.equals("BNS") || date.getDayOfWeek().getValue() < 6;
+            }
+
+            @Override
+            public double getPrice(String ticker, LocalDate date) {
+                return (ticker.equals("BNS") ? 50 : 300) + date.getDayOfYear() / 4.0;
+            }
+        };
+        // Exchange rates on weekdays only, which carry over the weekends
+        Map<LocalDate, Double> byDate = new HashMap<>();
+        for (LocalDate date = first; !date.isAfter(last); date = date.plusDays(1)) {
+            if (date.getDayOfWeek().getValue() < 6) {
+                byDate.put(date, 1.2 + date.getDayOfYear() / 1000.0);
+            }
+        }
+        rates = new FxRateTable(byDate);
+    }
+
+    // EFFECTS: Checks every day of the series against valuing the portfolio on that day
+    void assertMatchesValuation(ValuationSeries series) {
+        double[] market = series.getMarketValues();
+        double[] book = series.getBookValues();
+        for (int day = 0; day < series.getNumDays(); day++) {
+            LocalDate date = first.plusDays(day);
+            double marketValue = 0;
+            double bookValue = 0;
+            for (Valuation v : portfolio.valuation(date, prices, rates)) {
+                marketValue += v.getMarketValue();
+                bookValue += v.getAcb();
+            }
+            assertEquals(marketValue, market[day], .0001);
+            assertEquals(bookValue, book[day], .0001);
+        }
+    }
+
+    @Test
+    void testSeriesFollowsChanges() {
+        Random random = new Random(21);
+        portfolio.addTransaction(new Transaction("BNS", first.minusDays(5), false, 1000, false, 0, 100, 0));
+        ValuationSeries series = new ValuationSeries(portfolio, prices, rates, first, last);
+        assertEquals(first, series.getFirstDate());
+        assertEquals(366, series.getNumDays());
+        assertMatchesValuation(series);
+
+        for (int i = 0; i < 40; i++) {
+            String ticker = random.nextBoolean() ? "BNS" : "BRK";
+            Security s = portfolio.matchString(ticker);
+            if (i % 3 == 2 && s.getNumTransactions() > 0) {
+                s.removeTransaction(random.nextInt(s.getNumTransactions()));
+            } else {
+                s.addTransaction(new Transaction(ticker, first.plusDays(random.nextInt(400) - 20),
+                        s.getShares() > 10 && random.nextBoolean(), 10 + random.nextInt(500), false, 0,
+                        1 + random.nextInt(10), 1));
+            }
+            assertMatchesValuation(series);
+        }
+
+        portfolio.removeSecurity("BRK");
+        assertMatchesValuation(series);
+        double bookValue = series.getBookValue(last);
+        series.close();
+        portfolio.matchString("BNS").addTransaction(new Transaction("BNS", first, false, 10, false, 0, 1, 0));
+        assertEquals(bookValue, series.getBookValue(last));
+    }
+
+    @Test
+    void testUsdHoldingConverted() {
+        portfolio.addTransaction(new Transaction("BNS", first, false, 1000, false, 0, 100, 0));
+        portfolio.addTransaction(new Transaction("BRK", first.plusDays(1), false, 600, true, 1.3, 2, 0));
+        ValuationSeries series = new ValuationSeries(portfolio, prices, rates, first, last);
+        assertMatchesValuation(series);
+        // Thursday January 2nd, BRK at its USD close converted at the day's rate
+        assertEquals(100 * 50.5 + 2 * 300.5 * 1.202, series.getMarketValue(first.plusDays(1)), .0001);
+
+        // A CAD trade makes BRK trade in CAD, and every day is worked out again
+        Security brk = portfolio.matchString("BRK");
+        brk.addTransaction(new Transaction("BRK", last.minusDays(10), false, 300, false, 0, 1, 0));
+        assertMatchesValuation(series);
+        assertEquals(100 * 50.5 + 2 * 300.5, series.getMarketValue(first.plusDays(1)), .0001);
+        brk.removeTransaction(1);
+        assertMatchesValuation(series);
+
+        // With no rates at all the USD holding is left out of the market value
+        ValuationSeries noRates = new ValuationSeries(portfolio, prices, first, last);
+        assertEquals(100 * 50.5, noRates.getMarketValue(first.plusDays(1)), .0001);
+    }
+
+    @Test
+    void testValuesOnDate() {
+        portfolio.addTransaction(new Transaction("BNS", first, false, 1000, false, 0, 100, 0));
+        portfolio.addTransaction(new Transaction("BRK", first.plusDays(2), false, 600, false, 0, 2, 0));
+        ValuationSeries series = new ValuationSeries(portfolio, prices, first, last);
+
+        assertEquals(100 * 50.25, series.getMarketValue(first), .0001);
+        assertEquals(1000, series.getBookValue(first), .0001);
+        // Saturday January 4th has no BRK price
+        assertEquals(100 * 51, series.getMarketValue(first.plusDays(3)), .0001);
+        assertEquals(100 * 51.5 + 2 * 301.5, series.getMarketValue(first.plusDays(5)), .0001);
+        assertEquals(1600, series.getBookValue(last), .0001);
+        try {
+            series.getMarketValue(last.plusDays(1));
+            fail("Date is outside the series");
+        } catch (IllegalArgumentException e) {
+            // Pass
+        }
+        try {
+            series.getBookValue(first.minusDays(1));
+            fail("Date is outside the series");
+        } catch (IllegalArgumentException e) {
+            // Pass
+        }
+    }
+}
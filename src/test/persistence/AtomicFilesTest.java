@@ -0,0 +1,124 @@
+package persistence;
+
+import model.Portfolio;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.attribute.PosixFileAttributeView;
+import java.nio.file.attribute.PosixFilePermission;
+import java.nio.file.attribute.PosixFilePermissions;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static persistence.JsonReaderTest.TEST_FILES;
+
+class AtomicFilesTest {
+    private static final Path TARGET = Paths.get(TEST_FILES + "testAtomicSave.json");
+
+    @AfterEach
+    void cleanUp() throws IOException {
+        Files.deleteIfExists(TARGET);
+        for (int number = 1; number <= 3; number++) {
+            Files.deleteIfExists(AtomicFiles.backupPath(TARGET, number));
+        }
+    }
+
+    // EFFECTS: writes the portfolio to TARGET keeping the given number of backups
+    private void save(Portfolio p, int backups) throws IOException {
+        JsonWriter writer = new JsonWriter(TARGET.toString(), false, backups);
+        writer.open();
+        writer.write(p);
+        writer.close();
+    }
+
+    // EFFECTS: returns the name of the portfolio saved at the given path
+    private String savedName(Path path) throws IOException {
+        return new JsonReader(path.toString()).readPortfolio().getName();
+    }
+
+    // EFFECTS: returns true if the test directory holds a temporary file left by a save
+    private boolean hasTempFiles() {
+        File[] files = new File(TEST_FILES).listFiles((dir, name) -> name.endsWith(AtomicFiles.TEMP_SUFFIX));
+        return files != null && files.length > 0;
+    }
+
+    @Test
+    void testReplaceWithoutBackups() throws IOException {
+        Path temp = AtomicFiles.createTemp(TARGET);
+        assertEquals(TARGET.toAbsolutePath().getParent(), temp.getParent());
+        Files.write(temp, "new".getBytes(StandardCharsets.UTF_8));
+        Files.write(TARGET, "old".getBytes(StandardCharsets.UTF_8));
+
+        AtomicFiles.replace(temp, TARGET, 0);
+        assertFalse(Files.exists(temp));
+        assertEquals("new", new String(Files.readAllBytes(TARGET), StandardCharsets.UTF_8));
+        assertFalse(Files.exists(AtomicFiles.backupPath(TARGET, 1)));
+    }
+
+    @Test
+    void testSavesRotateBackups() throws IOException {
+        for (String name : new String[]{"first", "second", "third", "fourth"}) {
+            save(new Portfolio(name), 2);
+        }
+
+        assertEquals("fourth", savedName(TARGET));
+        assertEquals("third", savedName(AtomicFiles.backupPath(TARGET, 1)));
+        assertEquals("second", savedName(AtomicFiles.backupPath(TARGET, 2)));
+        assertFalse(Files.exists(AtomicFiles.backupPath(TARGET, 3)));
+        assertFalse(hasTempFiles());
+    }
+
+    @Test
+    void testSaveKeepsPermissions() throws IOException {
+        save(new Portfolio("shared"), 1);
+        if (Files.getFileAttributeView(TARGET, PosixFileAttributeView.class) == null) {
+            return;  // Only POSIX file systems have permissions to keep
+        }
+        Set<PosixFilePermission> shared = PosixFilePermissions.fromString("rw-rw-r--");
+        Files.setPosixFilePermissions(TARGET, shared);
+
+        save(new Portfolio("still shared"), 1);
+        assertEquals("still shared", savedName(TARGET));
+        assertEquals(shared, Files.getPosixFilePermissions(TARGET));
+    }
+
+    @Test
+    void testDeleteBackups() throws IOException {
+        for (String name : new String[]{"first", "second", "third"}) {
+            save(new Portfolio(name), 2);
+        }
+        assertTrue(JsonWriter.deleteBackups(TARGET.toString()));
+        assertFalse(Files.exists(AtomicFiles.backupPath(TARGET, 1)));
+        assertTrue(Files.exists(AtomicFiles.backupPath(TARGET, 2)));
+        assertTrue(AtomicFiles.deleteBackups(TARGET, 2));
+        assertFalse(Files.exists(AtomicFiles.backupPath(TARGET, 2)));
+        assertEquals("third", savedName(TARGET));
+    }
+
+    @Test
+    void testFirstSaveHasNoBackup() throws IOException {
+        save(new Portfolio("only"), 2);
+        assertEquals("only", savedName(TARGET));
+        assertFalse(Files.exists(AtomicFiles.backupPath(TARGET, 1)));
+    }
+
+    @Test
+    void testUnfinishedSaveLeavesFileInPlace() throws IOException {
+        save(new Portfolio("kept"), 0);
+        JsonWriter writer = new JsonWriter(TARGET.toString());
+        writer.open();
+        writer.write(new Portfolio("replacement"));
+
+        // Until close the new text is only in the temporary file
+        assertEquals("kept", savedName(TARGET));
+        writer.close();
+        assertEquals("replacement", savedName(TARGET));
+        assertFalse(hasTempFiles());
+    }
+}
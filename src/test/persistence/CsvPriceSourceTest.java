@@ -0,0 +1,139 @@
+package persistence;
+
+import model.Money;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.FileTime;
+import java.time.LocalDate;
+import java.time.Month;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CsvPriceSourceTest {
+    static final String PRICES = "./data/csv/test/PricesTest.csv";
+    static final LocalDate FRIDAY = LocalDate.of(2021, Month.MARCH, 19);
+
+    @Test
+    void testReadPrices() {
+        CsvPriceSource prices = new CsvPriceSource(PRICES);
+        assertEquals(78.31, prices.getPrice("BNS", FRIDAY));
+        assertEquals(77.00, prices.getPrice("BNS", FRIDAY.minusDays(1)));
+        // The weekend takes Friday's close
+        assertEquals(78.31, prices.getPrice("BNS", FRIDAY.plusDays(2)));
+        assertEquals(79.10, prices.getPrice("BNS", FRIDAY.plusDays(3)));
+        assertEquals(79.10, prices.getPrice("BNS", FRIDAY.plusDays(10)));
+        assertFalse(prices.hasPrice("BNS", FRIDAY.plusDays(11)));
+        assertFalse(prices.hasPrice("BNS", FRIDAY.minusDays(2)));
+        assertEquals(380.50, prices.getPrice("BRK", FRIDAY));
+        assertFalse(prices.hasPrice("XYZ", FRIDAY));
+        try {
+            prices.getPrice("ABC", FRIDAY);
+            fail("No price expected");
+        } catch (IllegalArgumentException e) {
+            // Pass
+        }
+    }
+
+    @Test
+    void testFillPrices() {
+        CsvPriceSource prices = new CsvPriceSource(PRICES);
+        long[] closes = new long[14];
+        prices.fillPrices("BNS", FRIDAY.minusDays(2), closes);
+
+        for (int day = 0; day < closes.length; day++) {
+            LocalDate date = FRIDAY.minusDays(2).plusDays(day);
+            long expected = prices.hasPrice("BNS", date) ? Money.of(prices.getPrice("BNS", date)) : 0;
+            assertEquals(expected, closes[day]);
+        }
+        assertEquals(0, closes[0]);
+        assertEquals(0, closes[13]);
+    }
+
+    @Test
+    void testFileIndexedOnce() {
+        CsvPriceSource prices = new CsvPriceSource(PRICES);
+        prices.getPrice("BNS", FRIDAY);
+        prices.hasPrice("BNS", FRIDAY.plusDays(3));
+        prices.hasPrice("ABC", FRIDAY);
+        prices.getPrice("BRK", FRIDAY);
+        prices.hasPrice("XYZ", FRIDAY);
+        assertEquals(1, prices.getNumIndexes());
+        // ABC is not in the file so it has nothing to read
+        assertEquals(3, prices.getNumReads());
+    }
+
+    @Test
+    void testPricesCachedByTicker() {
+        CsvPriceSource prices = new CsvPriceSource(PRICES, 2);
+        prices.getPrice("BNS", FRIDAY);
+        prices.hasPrice("BNS", FRIDAY.plusDays(3));
+        prices.hasPrice("XYZ", FRIDAY);
+        prices.hasPrice("XYZ", FRIDAY);
+        assertEquals(2, prices.getNumReads());
+
+        // BNS was used longer ago than XYZ, so it makes room for BRK
+        prices.getPrice("BRK", FRIDAY);
+        prices.hasPrice("XYZ", FRIDAY);
+        assertEquals(3, prices.getNumReads());
+        prices.getPrice("BNS", FRIDAY);
+        assertEquals(4, prices.getNumReads());
+        assertEquals(1, prices.getNumIndexes());
+    }
+
+    @Test
+    void testIndexedAgainWhenModified() throws IOException {
+        Path copy = Files.createTempFile("prices", ".csv");
+        try {
+            Files.copy(Paths.get(PRICES), copy, StandardCopyOption.REPLACE_EXISTING);
+            CsvPriceSource prices = new CsvPriceSource(copy.toString());
+            assertEquals(78.31, prices.getPrice("BNS", FRIDAY));
+            assertFalse(prices.hasPrice("BNS", FRIDAY.minusDays(4)));
+
+            Files.write(copy, "BNS,2021-03-15,75.25\n".getBytes(StandardCharsets.UTF_8), StandardOpenOption.APPEND);
+            FileTime modified = Files.getLastModifiedTime(copy);
+            Files.setLastModifiedTime(copy, FileTime.fromMillis(modified.toMillis() + 60000));
+            assertEquals(75.25, prices.getPrice("BNS", FRIDAY.minusDays(4)));
+            assertEquals(78.31, prices.getPrice("BNS", FRIDAY));
+            assertEquals(2, prices.getNumIndexes());
+            assertEquals(2, prices.getNumReads());
+        } finally {
+            Files.deleteIfExists(copy);
+        }
+    }
+
+    @Test
+    void testConcurrentLookups() throws InterruptedException {
+        CsvPriceSource prices = new CsvPriceSource(PRICES);
+        Thread[] threads = new Thread[8];
+        double[] found = new double[threads.length];
+        for (int i = 0; i < threads.length; i++) {
+            int thread = i;
+            threads[i] = new Thread(() -> found[thread] = prices.getPrice(thread % 2 == 0 ? "BNS" : "BRK", FRIDAY));
+            threads[i].start();
+        }
+        for (int i = 0; i < threads.length; i++) {
+            threads[i].join();
+            assertEquals(i % 2 == 0 ? 78.31 : 380.50, found[i]);
+        }
+        // Only threads that all made the very first lookup index the file
+        assertTrue(prices.getNumIndexes() >= 1 && prices.getNumIndexes() <= threads.length);
+        prices.getPrice("BNS", FRIDAY);
+        assertTrue(prices.getNumIndexes() <= threads.length);
+    }
+
+    @Test
+    void testReadNonExistentFile() {
+        CsvPriceSource prices = new CsvPriceSource("./data/csv/test/noSuchFile.csv");
+        assertFalse(prices.hasPrice("BNS", FRIDAY));
+        assertFalse(prices.hasPrice("BNS", FRIDAY));
+        assertEquals(1, prices.getNumIndexes());
+        assertEquals(0, prices.getNumReads());
+    }
+}
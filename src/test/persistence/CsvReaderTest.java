@@ -7,6 +7,7 @@ import org.junit.jupiter.api.Test;
 
 import java.io.File;
 import java.io.FileNotFoundException;
+import java.io.IOException;
 
 import static org.junit.jupiter.api.Assertions.*;
 
@@ -170,4 +171,31 @@ class CsvReaderTest {
         }
     }
 
-}
\ No newline at end of file
+    @Test
+    void testReaderLooksUpMissingFxRate() {
+        try {
+            CsvReader reader = new CsvReader("./data/csv/test/NoFxRateTransaction.csv",
+                    new FxRateReader(FxRateReaderTest.FX_RATES).read());
+            ImportData ced = reader.parseData();
+            assertEquals(1, ced.getTransactions().size());
+            // Boxing day has no rate of its own and takes the rate of the day before
+            assertEquals(1.3125, ced.getTransactions().get(0).getFxRate());
+        } catch (IOException | FileCorruptException e) {
+            fail("Exception not expected");
+        }
+    }
+
+    @Test
+    void testReaderMissingFxRateNotOnFile() {
+        CsvReader reader = new CsvReader("./data/csv/test/NoFxRateTransaction.csv");
+        try {
+            reader.parseData();
+            fail("No rate for the transaction");
+        } catch (FileNotFoundException e) {
+            fail("File exists");
+        } catch (FileCorruptException e) {
+            // Pass
+        }
+    }
+
+}
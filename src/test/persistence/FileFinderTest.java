@@ -4,10 +4,12 @@ import exceptions.DirectoryNotFoundException;
 import model.Portfolio;
 import org.junit.jupiter.api.Test;
 
+import java.io.File;
 import java.io.IOException;
 import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.nio.file.LinkOption;
+import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.util.Collections;
 import java.util.List;
@@ -42,6 +44,26 @@ class FileFinderTest {
         }
     }
 
+    @Test
+    void testNamesSkipBackupsAndTempFiles() throws IOException, DirectoryNotFoundException {
+        Path dir = Files.createTempDirectory("fileFinderTest");
+        Path saved = dir.resolve("X.json");
+        try {
+            assertTrue(FileFinder.writePortfolioSaveFile(new Portfolio("X"), saved.toString()));
+            assertTrue(FileFinder.writePortfolioSaveFile(new Portfolio("X"), saved.toString()));
+            // As a save that was interrupted before its temporary file replaced the save file leaves it
+            AtomicFiles.createTemp(saved);
+            assertTrue(Files.exists(AtomicFiles.backupPath(saved, 1)));
+
+            assertEquals(Collections.singletonList("X"), FileFinder.getNamesFromSystem(dir.toString(), ".json"));
+        } finally {
+            for (File f : dir.toFile().listFiles()) {
+                assertTrue(f.delete());
+            }
+            Files.delete(dir);
+        }
+    }
+
     @Test
     void testDirectoryNotFoundException() {
         DirectoryNotFoundException e = new DirectoryNotFoundException("test");
@@ -0,0 +1,54 @@
+package persistence;
+
+import exceptions.FileCorruptException;
+import model.FxRateTable;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.time.LocalDate;
+import java.time.Month;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class FxRateReaderTest {
+    static final String FX_RATES = "./data/csv/test/FxRatesTest.csv";
+
+    @Test
+    void testReadBankOfCanadaFile() {
+        try {
+            FxRateTable table = new FxRateReader(FX_RATES).read();
+            assertEquals(8, table.getNumDays());
+            assertEquals(1.3150, table.getRate(LocalDate.of(2019, Month.DECEMBER, 20)));
+            assertEquals(1.3150, table.getRate(LocalDate.of(2019, Month.DECEMBER, 22)));
+            assertEquals(1.3125, table.getRate(LocalDate.of(2019, Month.DECEMBER, 26)));
+            assertEquals(1.3080, table.getRate(LocalDate.of(2019, Month.DECEMBER, 27)));
+            assertFalse(table.hasRate(LocalDate.of(2019, Month.DECEMBER, 19)));
+        } catch (IOException | FileCorruptException e) {
+            fail("Exception not expected");
+        }
+    }
+
+    @Test
+    void testReadFileWithoutRates() {
+        try {
+            new FxRateReader("./data/csv/test/NoNewLineSecurity.csv").read();
+            fail("File has no rates");
+        } catch (IOException e) {
+            fail("File exists");
+        } catch (FileCorruptException e) {
+            // Pass
+        }
+    }
+
+    @Test
+    void testReadNonExistentFile() {
+        try {
+            new FxRateReader("./data/csv/test/noSuchFile.csv").read();
+            fail("IOException expected");
+        } catch (IOException e) {
+            // Pass
+        } catch (FileCorruptException e) {
+            fail("File does not exist");
+        }
+    }
+}
@@ -7,8 +7,9 @@ import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 
 import java.io.FileNotFoundException;
+import java.time.LocalDate;
+import java.time.Month;
 import java.util.ArrayList;
-import java.util.Calendar;
 import java.util.List;
 
 import static org.junit.jupiter.api.Assertions.*;
@@ -92,9 +93,9 @@ class ImportDataTest {
     }
 
     class TransactionBuilder {
-        Calendar date1 = Calendar.getInstance();
-        Calendar date2 = Calendar.getInstance();
-        Calendar date3 = Calendar.getInstance();
+        LocalDate date1;
+        LocalDate date2;
+        LocalDate date3;
         Transaction sellBNS;
         Transaction buyBNS;
         Transaction sellBRKusd;
@@ -103,9 +104,9 @@ class ImportDataTest {
         String brk = "BRK";
 
         protected TransactionBuilder() {
-            date1.set(2020, Calendar.NOVEMBER, 20);
-            date2.set(2019, Calendar.JUNE, 5);
-            date3.set(2021, Calendar.MARCH, 20);
+            date1 = LocalDate.of(2020, Month.NOVEMBER, 20);
+            date2 = LocalDate.of(2019, Month.JUNE, 5);
+            date3 = LocalDate.of(2021, Month.MARCH, 20);
             buyBNS = new Transaction(bns, date1, false, 1089.18,
                     false, 0, 10, 4.99);
             sellBRKusd = new Transaction(brk, date3, true, 420.20,
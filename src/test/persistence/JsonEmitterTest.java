@@ -0,0 +1,97 @@
+package persistence;
+
+import org.json.JSONException;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.io.StringWriter;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class JsonEmitterTest {
+
+    // MODIFIES: json
+    // EFFECTS: writes an object with a member of each kind of value, and an empty and a nested array
+    private void writeSample(JsonEmitter json) throws IOException {
+        json.beginObject();
+        json.name("s");
+        json.value("a\"b\\c\n\u0001é");
+        json.name("n");
+        json.value(-12L);
+        json.name("d");
+        json.value(1.5);
+        json.name("w");
+        json.value(500.0);
+        json.name("b");
+        json.value(true);
+        json.name("e");
+        json.beginArray();
+        json.endArray();
+        json.name("a");
+        json.beginArray();
+        json.value(1L);
+        json.beginObject();
+        json.endObject();
+        json.endArray();
+        json.endObject();
+    }
+
+    @Test
+    void testCompact() throws IOException {
+        StringWriter out = new StringWriter();
+        writeSample(new JsonEmitter(out, 0));
+        assertEquals("{\"s\":\"a\\\"b\\\\c\\n\\u0001é\",\"n\":-12,\"d\":1.5,\"w\":500,\"b\":true,\"e\":[],"
+                + "\"a\":[1,{}]}", out.toString());
+    }
+
+    @Test
+    void testIndented() throws IOException {
+        StringWriter out = new StringWriter();
+        writeSample(new JsonEmitter(out, 2));
+        assertEquals("{\n  \"s\": \"a\\\"b\\\\c\\n\\u0001é\",\n  \"n\": -12,\n  \"d\": 1.5,\n  \"w\": 500,\n"
+                + "  \"b\": true,\n  \"e\": [],\n  \"a\": [\n    1,\n    {}\n  ]\n}", out.toString());
+    }
+
+    @Test
+    void testReadBack() throws IOException {
+        StringWriter out = new StringWriter();
+        writeSample(new JsonEmitter(out, 4));
+        JsonTokenizer json = new JsonTokenizer(new StringReader(out.toString()));
+        json.beginObject();
+        json.hasNext();
+        assertEquals("s", json.nextName());
+        assertEquals("a\"b\\c\n\u0001é", json.nextString());
+        json.hasNext();
+        assertEquals("n", json.nextName());
+        assertEquals(-12, json.nextInt());
+        json.hasNext();
+        assertEquals("d", json.nextName());
+        assertEquals(1.5, json.nextDouble());
+        while (json.hasNext()) {
+            json.nextName();
+            json.skipValue();
+        }
+        json.endObject();
+    }
+
+    @Test
+    void testNotFinite() {
+        JsonEmitter json = new JsonEmitter(new StringWriter(), 0);
+        assertThrows(JSONException.class, () -> json.value(Double.NaN));
+        assertThrows(JSONException.class, () -> json.value(Double.POSITIVE_INFINITY));
+    }
+
+    @Test
+    void testDeepNesting() throws IOException {
+        StringWriter out = new StringWriter();
+        JsonEmitter json = new JsonEmitter(out, 0);
+        for (int i = 0; i < 20; i++) {
+            json.beginArray();
+        }
+        for (int i = 0; i < 20; i++) {
+            json.endArray();
+        }
+        assertEquals("[[[[[[[[[[[[[[[[[[[[]]]]]]]]]]]]]]]]]]]]", out.toString());
+    }
+}
@@ -3,9 +3,15 @@ package persistence;
 import model.*;
 import org.junit.jupiter.api.Test;
 
+import org.json.JSONException;
+
 import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.ForkJoinPool;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.junit.jupiter.api.Assertions.assertTrue;
@@ -16,6 +22,7 @@ This Test suite has borrowed some code structure and concepts from JsonSerializa
 
 class JsonReaderTest {
     protected static final String TEST_FILES = "./data/portfolios/test/";
+    private static final String TEXT_FILE = TEST_FILES + "testReaderText.json";
     Portfolio testPort;
 
     @Test
@@ -91,6 +98,80 @@ class JsonReaderTest {
     }
 
 
+    @Test
+    void testReaderGeneralPortfolioParallel() {
+        Portfolio serial = null;
+        try {
+            serial = new JsonReader(TEST_FILES + "testWriterGeneralPortfolio.json").readPortfolio();
+            testPort = new JsonReader(TEST_FILES + "testWriterGeneralPortfolio.json",
+                    ForkJoinPool.commonPool()).readPortfolio();
+        } catch (IOException e) {
+            fail("Exception should not have been thrown");
+        }
+
+        assertEquals(serial.getTickers(), testPort.getTickers());
+        assertEquals(serial.searchTransactions("BNS"), testPort.searchTransactions("BNS"));
+        assertEquals(serial.searchTransactions("BRK"), testPort.searchTransactions("BRK"));
+    }
+
+    // EFFECTS: writes text to a file, reads a portfolio from it with reader and deletes the file again
+    private Portfolio readText(JsonReader reader, String text) throws IOException {
+        Files.write(Paths.get(TEXT_FILE), text.getBytes(StandardCharsets.UTF_8));
+        try {
+            return reader.readPortfolio();
+        } finally {
+            Files.delete(Paths.get(TEXT_FILE));
+        }
+    }
+
+    @Test
+    void testReaderMembersInAnyOrder() {
+        JsonReader reader = new JsonReader(TEXT_FILE);
+        try {
+            testPort = readText(reader, "{\"transactions\": [\n"
+                    + "  {\"day\": 20, \"month\": 10, \"year\": 2019, \"ticker\": \"BNS\", \"shares\": 10,"
+                    + "   \"isSell\": false, \"isUSD\": false, \"fxRate\": 0, \"value\": 1089.18,"
+                    + "   \"commission\": 4.99, \"note\": {\"by\": [\"hand\", 1]}},\n"
+                    + "  {\"type\": \"SPLIT\", \"splitFrom\": 1, \"ticker\": \"BNS\", \"year\": 2020, \"month\": 0,"
+                    + "   \"day\": 15, \"shares\": 2, \"isSell\": false, \"isUSD\": false, \"fxRate\": 0,"
+                    + "   \"value\": 0, \"commission\": 0},\n"
+                    + "  {\"commission\": 4.99, \"value\": 500.0, \"fxRate\": 0, \"isUSD\": false, \"isSell\": true,"
+                    + "   \"shares\": 5, \"day\": 5, \"month\": 5, \"year\": 2020, \"ticker\": \"BNS\"}],\n"
+                    + " \"holdings\": [{\"ticker\": \"BNS\", \"exchange\": \"TSX\"}, {\"ticker\": \"BRK\"}],\n"
+                    + " \"costBasis\": \"FIFO\", \"ledgerGeneration\": 3, \"name\": \"Re\\\"ordered \u00e9\"}");
+            assertEquals(3, reader.getLedgerGeneration());
+        } catch (IOException e) {
+            fail("Exception should not have been thrown");
+        }
+
+        assertEquals("Re\"ordered \u00e9", testPort.getName());
+        assertEquals(CostBasisMethod.FIFO, testPort.getCostBasisMethod());
+        assertEquals(2, testPort.getNumHoldings());
+        Security bns = testPort.matchString("BNS");
+        assertEquals(3, bns.getNumTransactions());
+        assertEquals(TransactionType.SPLIT, bns.getTransactionList().get(1).getType());
+        assertEquals(15, bns.getShares());
+        assertEquals(0, testPort.matchString("BRK").getNumTransactions());
+    }
+
+    @Test
+    void testReaderMalformedPortfolio() {
+        String[] malformed = {"", "{\"name\": \"A\" \"holdings\": []}", "{\"name\": \"A\", \"holdings\": [",
+                "{\"holdings\": [], \"transactions\": []}", "{\"name\": \"A\", \"holdings\": [{}]}",
+                "{\"name\": \"A\", \"holdings\": [{\"ticker\": \"X\"}], \"transactions\": [{\"ticker\": \"X\"}]}"};
+
+        for (String text : malformed) {
+            try {
+                readText(new JsonReader(TEXT_FILE), text);
+                fail("JSONException expected for " + text);
+            } catch (JSONException e) {
+                // pass
+            } catch (IOException e) {
+                fail("Exception should not have been thrown");
+            }
+        }
+    }
+
     @Test
     void testReaderEmptyNamesList() {
         List<String> names;
@@ -0,0 +1,128 @@
+package persistence;
+
+import org.json.JSONException;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.StringReader;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class JsonTokenizerTest {
+
+    // EFFECTS: returns a tokenizer over the given text
+    private JsonTokenizer tokenize(String text) {
+        return new JsonTokenizer(new StringReader(text));
+    }
+
+    @Test
+    void testObjectOfEveryType() throws IOException {
+        JsonTokenizer json = tokenize(" {\n\t\"s\" : \"text\", \"i\": -12, \"d\": 1.5e2, \"t\": true, \"f\": false }");
+        json.beginObject();
+        assertTrue(json.hasNext());
+        assertEquals("s", json.nextName());
+        assertEquals("text", json.nextString());
+        assertTrue(json.hasNext());
+        assertEquals("i", json.nextName());
+        assertEquals(-12, json.nextInt());
+        assertTrue(json.hasNext());
+        assertEquals("d", json.nextName());
+        assertEquals(150.0, json.nextDouble());
+        assertTrue(json.hasNext());
+        assertEquals("t", json.nextName());
+        assertTrue(json.nextBoolean());
+        assertTrue(json.hasNext());
+        assertEquals("f", json.nextName());
+        assertFalse(json.nextBoolean());
+        assertFalse(json.hasNext());
+        json.endObject();
+    }
+
+    @Test
+    void testEscapes() throws IOException {
+        JsonTokenizer json = tokenize("[\"a\\\"b\\\\c\\/d\\n\\t\\u00e9\\u20AC\"]");
+        json.beginArray();
+        assertTrue(json.hasNext());
+        assertEquals("a\"b\\c/d\n\t\u00e9\u20ac", json.nextString());
+        assertFalse(json.hasNext());
+        json.endArray();
+    }
+
+    @Test
+    void testStringLongerThanBuffer() throws IOException {
+        StringBuilder text = new StringBuilder();
+        for (int i = 0; i < 20000; i++) {
+            text.append((char) ('a' + i % 26));
+        }
+        JsonTokenizer json = tokenize("[\"" + text + "\", 12345]");
+        json.beginArray();
+        json.hasNext();
+        assertEquals(text.toString(), json.nextString());
+        json.hasNext();
+        assertEquals(12345, json.nextInt());
+        json.endArray();
+    }
+
+    @Test
+    void testSkipValue() throws IOException {
+        JsonTokenizer json = tokenize("{\"skip\": {\"a\": [1, {\"b\": null}, \"]\"], \"c\": {}}, \"keep\": 7}");
+        json.beginObject();
+        json.hasNext();
+        assertEquals("skip", json.nextName());
+        json.skipValue();
+        assertTrue(json.hasNext());
+        assertEquals("keep", json.nextName());
+        assertEquals(7, json.nextInt());
+        assertFalse(json.hasNext());
+        json.endObject();
+    }
+
+    @Test
+    void testEmptyContainers() throws IOException {
+        JsonTokenizer json = tokenize("[[], {}]");
+        json.beginArray();
+        assertTrue(json.hasNext());
+        json.beginArray();
+        assertFalse(json.hasNext());
+        json.endArray();
+        assertTrue(json.hasNext());
+        json.beginObject();
+        assertFalse(json.hasNext());
+        json.endObject();
+        assertFalse(json.hasNext());
+        json.endArray();
+    }
+
+    @Test
+    void testMissingComma() throws IOException {
+        JsonTokenizer json = tokenize("[1 2]");
+        json.beginArray();
+        json.hasNext();
+        json.nextInt();
+        assertThrows(JSONException.class, json::hasNext);
+    }
+
+    @Test
+    void testWrongTypes() throws IOException {
+        assertThrows(JSONException.class, () -> tokenize("1.5").nextInt());
+        assertThrows(JSONException.class, () -> tokenize("3000000000").nextInt());
+        assertThrows(JSONException.class, () -> tokenize("null").nextBoolean());
+        assertThrows(JSONException.class, () -> tokenize("true").nextDouble());
+        assertThrows(JSONException.class, () -> tokenize("5").nextString());
+        assertThrows(JSONException.class, () -> tokenize("[").beginObject());
+    }
+
+    @Test
+    void testUnexpectedEnd() throws IOException {
+        assertThrows(JSONException.class, () -> tokenize("\"open").nextString());
+        assertThrows(JSONException.class, () -> tokenize("\"\\u00").nextString());
+        assertThrows(JSONException.class, () -> tokenize("\"\\x\"").nextString());
+        assertThrows(JSONException.class, () -> tokenize("  ").beginArray());
+        JsonTokenizer json = tokenize("{\"a\": 1");
+        json.beginObject();
+        json.hasNext();
+        json.nextName();
+        json.nextInt();
+        assertThrows(JSONException.class, json::hasNext);
+    }
+}
@@ -5,8 +5,11 @@ import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 
 import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.time.LocalDate;
+import java.time.Month;
 import java.util.ArrayList;
-import java.util.Calendar;
 import java.util.List;
 
 import static org.junit.jupiter.api.Assertions.*;
@@ -18,9 +21,9 @@ This Test suite has borrowed some code structure and concepts from JsonSerializa
 
 class JsonWriterTest {
     Portfolio testPort;
-    Calendar date1;
-    Calendar date2;
-    Calendar date3;
+    LocalDate date1;
+    LocalDate date2;
+    LocalDate date3;
     Transaction buyBNS;
     Transaction sellBNS;
     Transaction buyBRKusd;
@@ -28,12 +31,9 @@ class JsonWriterTest {
     @BeforeEach
     void setup() {
         testPort = new Portfolio("Simon");
-        date1 = Calendar.getInstance();
-        date2 = Calendar.getInstance();
-        date3 = Calendar.getInstance();
-        date1.set(2019, Calendar.NOVEMBER, 20);
-        date2.set(2020, Calendar.JUNE, 5);
-        date3.set(2021, Calendar.MARCH, 20);
+        date1 = LocalDate.of(2019, Month.NOVEMBER, 20);
+        date2 = LocalDate.of(2020, Month.JUNE, 5);
+        date3 = LocalDate.of(2021, Month.MARCH, 20);
     }
 
     void setTransactions() {
@@ -75,6 +75,84 @@ class JsonWriterTest {
         }
     }
 
+    @Test
+    void testWriterCostBasisMethod() {
+        try {
+            Portfolio p = new Portfolio("Test", false, CostBasisMethod.FIFO);
+            JsonWriter writer = new JsonWriter(TEST_FILES + "testWriterCostBasis.json");
+            writer.open();
+            writer.write(p);
+            writer.close();
+
+            JsonReader reader = new JsonReader(TEST_FILES + "testWriterCostBasis.json");
+            p = reader.readPortfolio();
+            assertEquals(CostBasisMethod.FIFO, p.getCostBasisMethod());
+            p.addNewSecurity("BNS");
+            assertEquals(CostBasisMethod.FIFO, p.matchString("BNS").getCostBasisMethod());
+            Files.delete(Paths.get(TEST_FILES + "testWriterCostBasis.json"));
+        } catch (IOException e) {
+            fail("Exception should not have been thrown");
+        }
+    }
+
+    @Test
+    void testWriterCorporateActions() {
+        try {
+            Portfolio p = new Portfolio("Test");
+            p.addNewSecurity("BNS");
+            p.addTransaction(new Transaction("BNS", date1, false, 1000, false, 0, 10, 0));
+            p.addTransaction(Transaction.split("BNS", date2, 3, 1));
+            p.addTransaction(Transaction.returnOfCapital("BNS", date3, 100, true, 1.25));
+            JsonWriter writer = new JsonWriter(TEST_FILES + "testWriterCorporateActions.json");
+            writer.open();
+            writer.write(p);
+            writer.close();
+
+            JsonReader reader = new JsonReader(TEST_FILES + "testWriterCorporateActions.json");
+            Security bns = reader.readPortfolio().matchString("BNS");
+            Files.delete(Paths.get(TEST_FILES + "testWriterCorporateActions.json"));
+            assertEquals(TransactionType.SPLIT, bns.getTransactionList().get(1).getType());
+            assertEquals(1, bns.getTransactionList().get(1).getSplitFrom());
+            assertEquals(TransactionType.RETURN_OF_CAPITAL, bns.getTransactionList().get(2).getType());
+            assertEquals(30, bns.getShares());
+            assertEquals(875, bns.getAcb(), .005);
+        } catch (IOException e) {
+            fail("Exception should not have been thrown");
+        }
+    }
+
+    @Test
+    void testWriterCompact() {
+        String path = TEST_FILES + "testWriterCompact.json";
+        try {
+            setTransactions();
+            Portfolio p = new Portfolio("Compact\"one\"");
+            p.addNewSecurity("BNS");
+            p.addNewSecurity("BRK");
+            p.addTransaction(buyBNS);
+            p.addTransaction(sellBNS);
+            p.addTransaction(buyBRKusd);
+            JsonWriter writer = new JsonWriter(path, true);
+            writer.open();
+            writer.write(p, 7);
+            writer.close();
+            assertFalse(writer.checkError());
+
+            List<String> lines = Files.readAllLines(Paths.get(path));
+            assertEquals(1, lines.size());
+            assertFalse(lines.get(0).contains(" "));
+            JsonReader reader = new JsonReader(path);
+            Portfolio read = reader.readPortfolio();
+            Files.delete(Paths.get(path));
+            assertEquals(7, reader.getLedgerGeneration());
+            assertEquals(p.getName(), read.getName());
+            assertEquals(p.searchTransactions("BNS"), read.searchTransactions("BNS"));
+            assertEquals(p.searchTransactions("BRK"), read.searchTransactions("BRK"));
+        } catch (IOException e) {
+            fail("Exception should not have been thrown");
+        }
+    }
+
     @Test
     void testWriterGeneralPortfolio() {
         setupPortfolio();
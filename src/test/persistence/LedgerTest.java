@@ -0,0 +1,182 @@
+package persistence;
+
+import model.*;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDate;
+import java.time.Month;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static persistence.JsonReaderTest.TEST_FILES;
+
+class LedgerTest {
+    private static final String PORTFOLIO_FILE = TEST_FILES + "testLedgerPortfolio.json";
+    private static final String LEDGER_FILE = TEST_FILES + "testLedgerPortfolio.ledger";
+
+    LocalDate date1;
+    LocalDate date2;
+
+    @BeforeEach
+    void setup() {
+        date1 = LocalDate.of(2019, Month.NOVEMBER, 20);
+        date2 = LocalDate.of(2020, Month.JUNE, 5);
+        Portfolio saved = new Portfolio("Ledger");
+        saved.addNewSecurity("BNS");
+        saved.addTransaction(new Transaction("BNS", date1, false, 1089.18, false, 0, 10, 4.99));
+        Ledger.delete(PORTFOLIO_FILE);
+        assertTrue(FileFinder.writePortfolioSaveFile(saved, PORTFOLIO_FILE));
+    }
+
+    @AfterEach
+    void cleanUp() {
+        FileFinder.deleteFile(PORTFOLIO_FILE);
+        FileFinder.deleteFile(AtomicFiles.backupPath(Paths.get(PORTFOLIO_FILE), 1).toString());
+        Ledger.delete(PORTFOLIO_FILE);
+    }
+
+    // EFFECTS: Makes a few changes of every kind to the portfolio
+    void makeChanges(Portfolio p) {
+        p.addNewSecurity("BRK");
+        p.addNewSecurity("XYZ");
+        p.addTransaction(new Transaction("BRK", date2, false, 6543.21, true, 1.3356, 90, 5.99));
+        p.addTransaction(new Transaction("BNS", date2, true, 500, false, 0, 5, 4.99));
+        p.addTransaction(new Transaction("BNS", date2.plusDays(1), false, 100, false, 0, 1, 0));
+        p.matchString("BNS").removeTransaction(2);
+        p.removeSecurity("XYZ");
+    }
+
+    @Test
+    void testChangesReplayedWithoutSave() throws IOException {
+        Ledger ledger = Ledger.open(PORTFOLIO_FILE, null);
+        makeChanges(ledger.getPortfolio());
+        String expected = ledger.getPortfolio().toJson().toString();
+        // Closing without a save is the same as the program ending
+        ledger.close();
+
+        Ledger reopened = Ledger.open(PORTFOLIO_FILE, null);
+        assertEquals(expected, reopened.getPortfolio().toJson().toString());
+        assertEquals(5, reopened.getPortfolio().matchString("BNS").getShares());
+        assertFalse(reopened.getPortfolio().hasTicker("XYZ"));
+        reopened.close();
+    }
+
+    @Test
+    void testRunsOfAddsReplayedInOrder() throws IOException {
+        Ledger ledger = Ledger.open(PORTFOLIO_FILE, null);
+        Portfolio p = ledger.getPortfolio();
+        p.addNewSecurity("BRK");
+        for (int i = 0; i < 20; i++) {
+            // Several on the same day, so the batch has to keep the order they were added in
+            p.addTransaction(new Transaction(i % 3 == 0 ? "BRK" : "BNS", date2.plusDays(i / 4), i % 5 == 4,
+                    100 + i, false, 0, 1 + i % 2, 0));
+            if (i == 9) {
+                p.matchString("BNS").removeTransaction(3);
+            }
+        }
+        p.addTransaction(new Transaction("BNS", date1, false, 50, false, 0, 1, 0));
+        String expectedBns = p.searchTransactions("BNS").toString();
+        String expectedBrk = p.searchTransactions("BRK").toString();
+        ledger.close();
+
+        Ledger reopened = Ledger.open(PORTFOLIO_FILE, null);
+        assertEquals(expectedBns, reopened.getPortfolio().searchTransactions("BNS").toString());
+        assertEquals(expectedBrk, reopened.getPortfolio().searchTransactions("BRK").toString());
+        reopened.close();
+    }
+
+    @Test
+    void testSaveThenDiscard() throws IOException {
+        Ledger ledger = Ledger.open(PORTFOLIO_FILE, null);
+        Portfolio p = ledger.getPortfolio();
+        p.addNewSecurity("BRK");
+        ledger.save();
+        long savedLength = Files.size(Paths.get(LEDGER_FILE));
+        p.addNewSecurity("XYZ");
+        p.addTransaction(new Transaction("BNS", date2, true, 500, false, 0, 5, 4.99));
+        ledger.discard();
+        ledger.close();
+
+        assertEquals(savedLength, Files.size(Paths.get(LEDGER_FILE)));
+        Ledger reopened = Ledger.open(PORTFOLIO_FILE, null);
+        assertTrue(reopened.getPortfolio().hasTicker("BRK"));
+        assertFalse(reopened.getPortfolio().hasTicker("XYZ"));
+        assertEquals(1, reopened.getPortfolio().matchString("BNS").getNumTransactions());
+        reopened.close();
+    }
+
+    @Test
+    void testSaveIsSmallAppend() throws IOException {
+        long savedSize = Files.size(Paths.get(PORTFOLIO_FILE));
+        Ledger ledger = Ledger.open(PORTFOLIO_FILE, null);
+        ledger.getPortfolio().addTransaction(new Transaction("BNS", date2, true, 500, false, 0, 5, 4.99));
+        ledger.save();
+        ledger.close();
+
+        assertEquals(savedSize, Files.size(Paths.get(PORTFOLIO_FILE)));
+        assertEquals(3, Files.readAllLines(Paths.get(LEDGER_FILE)).size());
+    }
+
+    @Test
+    void testCompactionRewritesSaveFile() throws IOException {
+        Ledger ledger = Ledger.open(PORTFOLIO_FILE, null);
+        Portfolio p = ledger.getPortfolio();
+        for (int i = 0; i < 600; i++) {
+            p.addTransaction(new Transaction("BNS", date2.plusDays(i), false, 10, false, 0, 1, 0));
+        }
+        String expected = p.toJson().toString();
+        ledger.save();
+        ledger.close();
+
+        assertEquals(0, Files.size(Paths.get(LEDGER_FILE)));
+        JsonReader reader = new JsonReader(PORTFOLIO_FILE);
+        assertEquals(610, reader.readPortfolio().matchString("BNS").getShares());
+        assertEquals(1, reader.getLedgerGeneration());
+        Ledger reopened = Ledger.open(PORTFOLIO_FILE, null);
+        assertEquals(expected, reopened.getPortfolio().toJson().toString());
+        reopened.close();
+    }
+
+    @Test
+    void testStaleLedgerIgnored() throws IOException {
+        Ledger ledger = Ledger.open(PORTFOLIO_FILE, null);
+        ledger.getPortfolio().addNewSecurity("BRK");
+        byte[] staleLedger = Files.readAllBytes(Paths.get(LEDGER_FILE));
+        // The save file moves on a generation but the program ends before the ledger is emptied
+        JsonWriter writer = new JsonWriter(PORTFOLIO_FILE);
+        writer.open();
+        writer.write(ledger.getPortfolio(), 1);
+        writer.close();
+        ledger.close();
+        Files.write(Paths.get(LEDGER_FILE), staleLedger);
+
+        Ledger reopened = Ledger.open(PORTFOLIO_FILE, null);
+        assertTrue(reopened.getPortfolio().hasTicker("BRK"));
+        assertEquals(2, reopened.getPortfolio().getNumHoldings());
+        assertEquals(0, Files.size(Paths.get(LEDGER_FILE)));
+        reopened.close();
+    }
+
+    @Test
+    void testPartlyWrittenLineIgnored() throws IOException {
+        Ledger ledger = Ledger.open(PORTFOLIO_FILE, null);
+        ledger.getPortfolio().addNewSecurity("BRK");
+        ledger.close();
+        Files.write(Paths.get(LEDGER_FILE), "{\"event\":\"addSecurity\",\"tic".getBytes(StandardCharsets.UTF_8),
+                StandardOpenOption.APPEND);
+
+        Ledger reopened = Ledger.open(PORTFOLIO_FILE, null);
+        assertEquals(2, reopened.getPortfolio().getNumHoldings());
+        reopened.getPortfolio().addNewSecurity("XYZ");
+        reopened.close();
+        Ledger recovered = Ledger.open(PORTFOLIO_FILE, null);
+        assertEquals(3, recovered.getPortfolio().getNumHoldings());
+        recovered.close();
+    }
+}
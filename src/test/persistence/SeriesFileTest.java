@@ -0,0 +1,139 @@
+package persistence;
+
+import exceptions.FileCorruptException;
+import model.FxRates;
+import model.PriceSource;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.time.LocalDate;
+import java.time.Month;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static persistence.JsonReaderTest.TEST_FILES;
+
+class SeriesFileTest {
+    private static final String SERIES_FILE = TEST_FILES + "testSeries.series";
+
+    LocalDate friday;
+    Map<String, Map<LocalDate, Double>> series;
+
+    @BeforeEach
+    void setup() {
+        friday = LocalDate.of(2020, Month.JUNE, 5);
+        Map<LocalDate, Double> fx = new HashMap<>();
+        fx.put(friday, 1.3540);
+        fx.put(friday.plusDays(3), 1.3412);
+        Map<LocalDate, Double> bns = new HashMap<>();
+        bns.put(friday.minusDays(10), 55.12);
+        bns.put(friday.plusDays(3), 57.01);
+        series = new HashMap<>();
+        series.put(SeriesFile.FX_SERIES, fx);
+        series.put("BNS", bns);
+    }
+
+    @AfterEach
+    void cleanUp() {
+        FileFinder.deleteFile(SERIES_FILE);
+    }
+
+    @Test
+    void testWriteAndOpen() throws IOException, FileCorruptException {
+        SeriesFile.write(SERIES_FILE, series);
+        SeriesFile file = SeriesFile.open(SERIES_FILE);
+
+        assertEquals(Arrays.asList("BNS", SeriesFile.FX_SERIES), file.getSeriesNames());
+        assertEquals(55.12, file.getValue("BNS", friday.minusDays(10)));
+        assertEquals(57.01, file.getValue("BNS", friday.plusDays(3)));
+        // Carried forward for a week and no further
+        assertEquals(55.12, file.getValue("BNS", friday.minusDays(3)));
+        assertFalse(file.hasValue("BNS", friday.minusDays(2)));
+        assertFalse(file.hasValue("BNS", friday.minusDays(11)));
+        assertFalse(file.hasValue("BNS", friday.plusDays(4)));
+        assertFalse(file.hasValue("XYZ", friday));
+        try {
+            file.getValue("XYZ", friday);
+            fail("No such series");
+        } catch (IllegalArgumentException e) {
+            // Pass
+        }
+    }
+
+    @Test
+    void testFxRates() throws IOException, FileCorruptException {
+        SeriesFile.write(SERIES_FILE, series);
+        FxRates rates = SeriesFile.open(SERIES_FILE).getFxRates();
+
+        assertFalse(rates.hasRate(friday.minusDays(1)));
+        assertEquals(1.3540, rates.getRate(friday));
+        assertEquals(1.3540, rates.getRate(friday.plusDays(2)));
+        assertEquals(1.3412, rates.getRate(friday.plusDays(3)));
+    }
+
+    @Test
+    void testPrices() throws IOException, FileCorruptException {
+        SeriesFile.write(SERIES_FILE, series);
+        PriceSource prices = SeriesFile.open(SERIES_FILE).getPrices();
+
+        assertEquals(55.12, prices.getPrice("BNS", friday.minusDays(10)));
+        assertEquals(57.01, prices.getPrice("BNS", friday.plusDays(3)));
+        assertFalse(prices.hasPrice("BNS", friday.minusDays(2)));
+        assertFalse(prices.hasPrice("BRK", friday));
+    }
+
+    @Test
+    void testFileSize() throws IOException {
+        SeriesFile.write(SERIES_FILE, series);
+        // A header, two names and a record of two values for each of 14 days
+        assertEquals(20 + 2 * SeriesFile.NAME_BYTES + 14 * 2 * Long.BYTES, Files.size(Paths.get(SERIES_FILE)));
+    }
+
+    @Test
+    void testEmpty() throws IOException, FileCorruptException {
+        SeriesFile.write(SERIES_FILE, new HashMap<>());
+        SeriesFile file = SeriesFile.open(SERIES_FILE);
+        assertEquals(0, file.getSeriesNames().size());
+        assertFalse(file.getFxRates().hasRate(friday));
+    }
+
+    @Test
+    void testOpenNotSeriesFile() throws IOException {
+        try {
+            SeriesFile.open(FxRateReaderTest.FX_RATES);
+            fail("Not a series file");
+        } catch (FileCorruptException e) {
+            // Pass
+        }
+    }
+
+    @Test
+    void testOpenTruncatedFile() throws IOException {
+        SeriesFile.write(SERIES_FILE, series);
+        byte[] data = Files.readAllBytes(Paths.get(SERIES_FILE));
+        Files.write(Paths.get(SERIES_FILE), Arrays.copyOf(data, data.length - 1));
+        try {
+            SeriesFile.open(SERIES_FILE);
+            fail("File is truncated");
+        } catch (FileCorruptException e) {
+            // Pass
+        }
+    }
+
+    @Test
+    void testNameTooLong() throws IOException {
+        series.put("ABCDEFGHIJKLMNOPQ", new HashMap<>());
+        try {
+            SeriesFile.write(SERIES_FILE, series);
+            fail("Name is too long");
+        } catch (IllegalArgumentException e) {
+            // Pass
+        }
+    }
+}